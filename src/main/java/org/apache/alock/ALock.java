@@ -1,5 +1,6 @@
 package org.apache.alock;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -15,4 +16,23 @@ public interface ALock {
     boolean tryLock(long timeout, TimeUnit unit) throws InterruptedException;
 
     void unlock();
+
+    /**
+     * 异步获取锁，以当前线程为持有者
+     */
+    CompletableFuture<Void> lockAsync();
+
+    /**
+     * 异步获取锁，持有关系绑定到owner，可在任意线程通过同一owner释放
+     * @param owner
+     */
+    CompletableFuture<Void> lockAsync(Object owner);
+
+    CompletableFuture<Boolean> tryLockAsync(long timeout, TimeUnit unit);
+
+    CompletableFuture<Boolean> tryLockAsync(Object owner, long timeout, TimeUnit unit);
+
+    CompletableFuture<Void> unlockAsync();
+
+    CompletableFuture<Void> unlockAsync(Object owner);
 }
@@ -1,19 +1,193 @@
 package org.apache.alock;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import org.apache.alock.domain.ALockConfig;
 import org.apache.alock.jedis.JedisClient;
+import org.apache.alock.jedis.JedisClusterClient;
+import org.apache.alock.jedis.JedisInvalidationTracker;
+import org.apache.alock.jedis.JedisPipelinedClient;
+import org.apache.alock.processor.ALockProcessor;
+import org.apache.alock.processor.LockNearCache;
+import org.apache.alock.processor.impl.RedisClusterLockProcessor;
 import org.apache.alock.processor.impl.RedisLockProcessor;
+import org.apache.alock.processor.impl.RedlockProcessor;
+import redis.clients.jedis.JedisCluster;
 import redis.clients.jedis.JedisPool;
 
 public class ALockFactory {
 
+    /**
+     * 同一连接池上的锁共享处理器与锁注册表，续租等请求才能跨锁合并，
+     * 同一key的本地线程也只在一个锁对象上排队
+     */
+    private static final ConcurrentMap<JedisPool, ALockManager> REDIS_MANAGERS = new ConcurrentHashMap<>();
+
+    /**
+     * 以节点列表加等待预算为key，同一组节点使用不同预算时各自独立
+     */
+    private static final ConcurrentMap<List<Object>, ALockManager> REDLOCK_MANAGERS = new ConcurrentHashMap<>();
+
+    private static final ConcurrentMap<JedisCluster, ALockManager> CLUSTER_MANAGERS = new ConcurrentHashMap<>();
+
     /**
      * 创建一个基于redis的分布式锁
      * @return
      */
     public static ALock createDistributedReentrantLockBasedOnRedis(ALockConfig lockConfig,
                                                                    JedisPool jedisPool){
-        JedisClient jedisClient = new JedisClient(jedisPool);
-        return new DistributedReentrantLock(lockConfig, new RedisLockProcessor(jedisClient));
+        return redisLockManager(jedisPool).getLock(lockConfig);
+    }
+
+    /**
+     * 基于redis一次认领最多limit个候选锁，返回认领成功的锁（由当前线程持有，按正常流程续租）
+     * @return
+     */
+    public static List<ALock> claimDistributedReentrantLocksBasedOnRedis(List<ALockConfig> candidates, int limit,
+                                                                        JedisPool jedisPool){
+        return redisLockManager(jedisPool).claimLocks(candidates, limit);
+    }
+
+    /**
+     * 创建一个基于redis的多key锁，全部key在一次脚本中原子获取；不参与进程内按key共享
+     * @return
+     */
+    public static ALock createMultiLockBasedOnRedis(Collection<ALockConfig> lockConfigs, JedisPool jedisPool){
+        return new MultiLock(lockConfigs, redisLockManager(jedisPool).getLockProcessor());
+    }
+
+    /**
+     * 创建一个基于redis hash的分布式读写锁；不参与进程内按key共享，同一key应复用同一个读写锁对象
+     * @return
+     */
+    public static ALockReadWriteLock createReadWriteLockBasedOnRedis(ALockConfig lockConfig, JedisPool jedisPool){
+        return new ALockReadWriteLock(lockConfig, redisLockManager(jedisPool).getLockProcessor());
+    }
+
+    /**
+     * 创建一个基于redis有序集合的分布式信号量，同一key应复用同一个信号量对象
+     * @return
+     */
+    public static ASemaphore createSemaphoreBasedOnRedis(ALockConfig lockConfig, int totalPermits, JedisPool jedisPool){
+        return new ASemaphore(lockConfig, totalPermits, redisLockManager(jedisPool).getLockProcessor());
+    }
+
+    /**
+     * 创建一个基于多个独立redis节点（Redlock）的分布式锁
+     * @return
+     */
+    public static ALock createDistributedReentrantLockBasedOnRedlock(ALockConfig lockConfig,
+                                                                     List<JedisPool> jedisPools){
+        return createDistributedReentrantLockBasedOnRedlock(lockConfig, jedisPools,
+            RedlockProcessor.DEFAULT_LATENCY_BUDGET_MS);
+    }
+
+    /**
+     * 创建一个基于多个独立redis节点（Redlock）的分布式锁，latencyBudgetMillis为每次请求等待各节点应答的上限，
+     * 节点间网络较远时应调大，否则慢节点总被计为未应答
+     * @return
+     */
+    public static ALock createDistributedReentrantLockBasedOnRedlock(ALockConfig lockConfig,
+                                                                     List<JedisPool> jedisPools,
+                                                                     long latencyBudgetMillis){
+        return redlockManager(jedisPools, latencyBudgetMillis).getLock(lockConfig);
+    }
+
+    /**
+     * 创建一个基于redis cluster的分布式锁，需要相邻分布的锁可通过ALockConfig的hashTag落在同一slot
+     * @return
+     */
+    public static ALock createDistributedReentrantLockBasedOnRedisCluster(ALockConfig lockConfig,
+                                                                          JedisCluster jedisCluster){
+        return clusterLockManager(jedisCluster).getLock(lockConfig);
+    }
+
+    /**
+     * 创建一个基于redis cluster的分布式读写锁
+     * @return
+     */
+    public static ALockReadWriteLock createReadWriteLockBasedOnRedisCluster(ALockConfig lockConfig,
+                                                                           JedisCluster jedisCluster){
+        return new ALockReadWriteLock(lockConfig, clusterLockManager(jedisCluster).getLockProcessor());
+    }
+
+    /**
+     * 创建一个基于redis cluster的分布式信号量
+     * @return
+     */
+    public static ASemaphore createSemaphoreBasedOnRedisCluster(ALockConfig lockConfig, int totalPermits,
+                                                               JedisCluster jedisCluster){
+        return new ASemaphore(lockConfig, totalPermits, clusterLockManager(jedisCluster).getLockProcessor());
+    }
+
+    /**
+     * 为redis上的锁开启持有者近缓存，由CLIENT TRACKING（需要redis 6.0+）推送的失效消息保持一致，
+     * 锁状态查询不再每次访问redis；host、port、password需与jedisPool一致
+     * @return
+     */
+    public static LockNearCache enableNearCacheBasedOnRedis(JedisPool jedisPool, String host, int port,
+                                                           String password, int maxEntries){
+        RedisLockProcessor processor = (RedisLockProcessor) redisLockManager(jedisPool).getLockProcessor();
+        synchronized (processor){
+            if (processor.getNearCache() == null){
+                LockNearCache nearCache = new LockNearCache(maxEntries);
+                new JedisInvalidationTracker(host, port, password, ALockConfig.ALOCK_PREFIX + ALockConfig.ALOCK_SEPRATOR,
+                    nearCache).start();
+                processor.setNearCache(nearCache);
+            }
+            return processor.getNearCache();
+        }
+    }
+
+    /**
+     * 让jedisPool上的锁改用多路复用客户端：各线程的命令合并为pipeline，在connections个专用连接上批量执行。
+     * 需在该jedisPool创建任何锁之前调用
+     * @return 是否生效，已有锁使用该jedisPool时返回false
+     */
+    public static boolean enablePipeliningBasedOnRedis(JedisPool jedisPool, int connections, int maxBatchSize,
+                                                       long flushIntervalMicros, long timeoutMillis){
+        if (REDIS_MANAGERS.containsKey(jedisPool)){
+            return false;
+        }
+        return REDIS_MANAGERS.putIfAbsent(jedisPool, new ALockManager(new RedisLockProcessor(
+            new JedisPipelinedClient(jedisPool, connections, maxBatchSize, flushIntervalMicros, timeoutMillis)))) == null;
+    }
+
+    private static ALockManager clusterLockManager(JedisCluster jedisCluster){
+        ALockManager manager = CLUSTER_MANAGERS.get(jedisCluster);
+        if (manager == null){
+            CLUSTER_MANAGERS.putIfAbsent(jedisCluster,
+                new ALockManager(new RedisClusterLockProcessor(new JedisClusterClient(jedisCluster))));
+            manager = CLUSTER_MANAGERS.get(jedisCluster);
+        }
+        return manager;
+    }
+
+    private static ALockManager redlockManager(List<JedisPool> jedisPools, long latencyBudgetMillis){
+        List<Object> key = new ArrayList<Object>(jedisPools);
+        key.add(latencyBudgetMillis);
+        ALockManager manager = REDLOCK_MANAGERS.get(key);
+        if (manager == null){
+            List<ALockProcessor> nodes = new ArrayList<>(jedisPools.size());
+            for (JedisPool jedisPool : jedisPools){
+                nodes.add(redisLockManager(jedisPool).getLockProcessor());
+            }
+            REDLOCK_MANAGERS.putIfAbsent(key, new ALockManager(new RedlockProcessor(nodes, latencyBudgetMillis)));
+            manager = REDLOCK_MANAGERS.get(key);
+        }
+        return manager;
+    }
+
+    private static ALockManager redisLockManager(JedisPool jedisPool){
+        ALockManager manager = REDIS_MANAGERS.get(jedisPool);
+        if (manager == null){
+            REDIS_MANAGERS.putIfAbsent(jedisPool, new ALockManager(new RedisLockProcessor(new JedisClient(jedisPool))));
+            manager = REDIS_MANAGERS.get(jedisPool);
+        }
+        return manager;
     }
 }
@@ -0,0 +1,15 @@
+package org.apache.alock;
+
+/**
+ * 锁持有者的租约状态回调，在调度线程中执行，不应阻塞
+ * @author wy
+ */
+public interface ALockLeaseListener {
+
+    /**
+     * 本地估计的租约已失效：到期前没有续租成功，或已发现锁丢失（续租时发现，或收到锁变更通知后核实）。
+     * 此后该次持有不再视为有效，受锁保护的操作应尽快中止
+     * @param lockKey
+     */
+    void onLeaseExpired(String lockKey);
+}
@@ -0,0 +1,114 @@
+package org.apache.alock;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.alock.domain.ALockConfig;
+import org.apache.alock.processor.ALockProcessor;
+
+/**
+ * 进程内锁注册表：同一lockUniqueKey在JVM内只对应一个锁对象，
+ * 本地线程先在该对象上排队，只有队首线程与远程存储交互。
+ * 锁对象以弱引用持有，不再被使用（且未持有、无等待者）时自动回收。
+ * 同一key的锁以首次创建时的ALockConfig（租期等）为准。
+ * @author wy
+ */
+public class ALockManager {
+
+    private final ALockProcessor lockProcessor;
+
+    private final ConcurrentMap<String, LockReference> locks = new ConcurrentHashMap<>();
+
+    private final ReferenceQueue<DistributedReentrantLock> staleLocks = new ReferenceQueue<>();
+
+    public ALockManager(ALockProcessor lockProcessor){
+        this.lockProcessor = lockProcessor;
+    }
+
+    /**
+     * 获取（或创建）lockUniqueKey对应的锁
+     * @param lockConfig
+     * @return
+     */
+    public DistributedReentrantLock getLock(ALockConfig lockConfig){
+        expungeStaleLocks();
+        String key = lockConfig.getLockUniqueKey();
+        for (;;){
+            LockReference ref = locks.get(key);
+            DistributedReentrantLock lock = ref == null ? null : ref.get();
+            if (lock != null){
+                return lock;
+            }
+            DistributedReentrantLock newLock = lockConfig.isFair() ? new FairLock(lockConfig, lockProcessor)
+                : new DistributedReentrantLock(lockConfig, lockProcessor);
+            LockReference newRef = new LockReference(key, newLock, staleLocks);
+            boolean registered = ref == null ? locks.putIfAbsent(key, newRef) == null : locks.replace(key, ref, newRef);
+            if (registered){
+                return newLock;
+            }
+        }
+    }
+
+    /**
+     * 一次交互从候选中认领最多limit个锁，认领到的锁由当前线程持有并按正常流程续租，用完需unlock
+     * @param candidates
+     * @param limit
+     * @return 认领成功的锁
+     */
+    public List<ALock> claimLocks(List<ALockConfig> candidates, int limit){
+        //使用注册表中锁对象自身的配置，保证后续续租、释放的锁值一致；本地已持有的跳过
+        Map<ALockConfig, DistributedReentrantLock> locks = new IdentityHashMap<>();
+        List<ALockConfig> configs = new ArrayList<>(candidates.size());
+        for (ALockConfig candidate : candidates){
+            DistributedReentrantLock lock = getLock(candidate);
+            if (lock.isLocallyFree() && !locks.containsKey(lock.getLockConfig())){
+                locks.put(lock.getLockConfig(), lock);
+                configs.add(lock.getLockConfig());
+            }
+        }
+        List<ALock> claimed = new ArrayList<>();
+        long sentNanos = System.nanoTime();
+        for (ALockConfig config : lockProcessor.claimLocks(configs, limit)){
+            DistributedReentrantLock lock = locks.get(config);
+            if (lock.adoptGrabbedLock(sentNanos)){
+                claimed.add(lock);
+            }else {
+                lockProcessor.tryReleaseLock(config);
+            }
+        }
+        return claimed;
+    }
+
+    /**
+     * 当前注册的锁数量（含尚未清理的已回收项）
+     */
+    public int size(){
+        return locks.size();
+    }
+
+    public ALockProcessor getLockProcessor() {
+        return lockProcessor;
+    }
+
+    private void expungeStaleLocks(){
+        LockReference ref;
+        while ((ref = (LockReference) staleLocks.poll()) != null){
+            locks.remove(ref.key, ref);
+        }
+    }
+
+    private static class LockReference extends WeakReference<DistributedReentrantLock>{
+        final String key;
+
+        LockReference(String key, DistributedReentrantLock lock, ReferenceQueue<DistributedReentrantLock> queue){
+            super(lock, queue);
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package org.apache.alock;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.alock.domain.ALockConfig;
+import org.apache.alock.exception.ALockProcessException;
+import org.apache.alock.processor.ALockProcessor;
+import org.apache.alock.processor.ALockReadWriteProcessor;
+import org.apache.alock.processor.ALockWatchListener;
+import org.apache.alock.scheduler.LeaseRenewalListener;
+
+/**
+ * 分布式读写锁：读者与写者记录在同一个redis hash中。
+ * 同一进程内的读者共享一个远程读持有，只有第一个读者与最后一个读者访问远程存储；
+ * 写者优先：有写者等待时不再接纳新的读者（已持有读锁的持有者仍可重入），避免写者饥饿。
+ * 不支持读锁升级为写锁。
+ * @author wy
+ */
+public class ALockReadWriteLock {
+
+    private final ReadLock readLock;
+
+    private final WriteLock writeLock;
+
+    public ALockReadWriteLock(ALockConfig lockConfig, ALockProcessor lockProcessor){
+        if (!(lockProcessor instanceof ALockReadWriteProcessor)){
+            throw new IllegalArgumentException("lock processor does not support read write lock.");
+        }
+        ALockReadWriteProcessor rwProcessor = (ALockReadWriteProcessor) lockProcessor;
+        this.writeLock = new WriteLock(lockConfig, lockProcessor, rwProcessor);
+        this.readLock = new ReadLock(new SharedReadLock(lockConfig, lockProcessor, rwProcessor, writeLock));
+    }
+
+    public ALock readLock(){
+        return readLock;
+    }
+
+    public ALock writeLock(){
+        return writeLock;
+    }
+
+    /**
+     * 写锁：与普通可重入锁一致，仅远程操作换为读写锁脚本
+     */
+    static class WriteLock extends DistributedReentrantLock{
+        private final ALockReadWriteProcessor rwProcessor;
+
+        WriteLock(ALockConfig lockConfig, ALockProcessor lockProcessor, ALockReadWriteProcessor rwProcessor){
+            super(lockConfig, lockProcessor);
+            this.rwProcessor = rwProcessor;
+        }
+
+        @Override
+        protected long grabRemoteLock() {
+            return rwProcessor.tryGrabWriteLock(getLockConfig());
+        }
+
+        @Override
+        protected void tryReleaseRemoteLock() {
+            rwProcessor.tryReleaseWriteLock(getLockConfig());
+        }
+
+        @Override
+        protected void renewRemoteLock(LeaseRenewalListener listener) {
+            try{
+                if (rwProcessor.tryExpandWriteLock(getLockConfig())){
+                    listener.renewed();
+                }else {
+                    listener.lost();
+                }
+            }catch (ALockProcessException e){
+                listener.failed(e);
+            }
+        }
+
+        /**
+         * 每次重试都会刷新写等待，轮询时总是尝试抢占
+         */
+        @Override
+        protected boolean isRemoteLockFree() {
+            return true;
+        }
+
+        /**
+         * 读写共用一个hash，单个读者或写等待的变化也会产生keyspace事件，只由续租发现丢失
+         */
+        @Override
+        protected boolean watchRemoteLock(ALockWatchListener listener) {
+            return false;
+        }
+    }
+
+    /**
+     * 进程内所有读者以同一个owner持有的远程读锁
+     */
+    static class SharedReadLock extends DistributedReentrantLock{
+        private final ALockReadWriteProcessor rwProcessor;
+        private final WriteLock writeLock;
+        //最近一次续租时远程有写者在等待
+        private volatile boolean writerWaiting;
+
+        SharedReadLock(ALockConfig lockConfig, ALockProcessor lockProcessor, ALockReadWriteProcessor rwProcessor,
+                       WriteLock writeLock){
+            super(lockConfig, lockProcessor);
+            this.rwProcessor = rwProcessor;
+            this.writeLock = writeLock;
+        }
+
+        @Override
+        protected long grabRemoteLock() {
+            writerWaiting = false;
+            return rwProcessor.tryGrabReadLock(getLockConfig());
+        }
+
+        @Override
+        protected void tryReleaseRemoteLock() {
+            rwProcessor.tryReleaseReadLock(getLockConfig());
+        }
+
+        @Override
+        protected void renewRemoteLock(LeaseRenewalListener listener) {
+            int res;
+            try{
+                res = rwProcessor.tryExpandReadLock(getLockConfig());
+            }catch (ALockProcessException e){
+                listener.failed(e);
+                return;
+            }
+            if (res == ALockReadWriteProcessor.RENEW_LOST){
+                listener.lost();
+                return;
+            }
+            writerWaiting = res == ALockReadWriteProcessor.RENEW_WRITER_WAITING;
+            listener.renewed();
+        }
+
+        @Override
+        protected boolean isRemoteLockFree() {
+            return true;
+        }
+
+        @Override
+        protected boolean watchRemoteLock(ALockWatchListener listener) {
+            return false;
+        }
+
+        /**
+         * 本地或远程有写者等待时，新的读者不再加入当前的读持有
+         */
+        @Override
+        protected boolean canReenter(Object owner) {
+            return !writerWaiting && !writeLock.hasQueuedWaiters();
+        }
+    }
+
+    /**
+     * 读锁：按持有者记录本地重入次数，远程读持有由SharedReadLock以同一owner共享
+     */
+    static class ReadLock implements ALock{
+        private static final Object SHARED_OWNER = new Object();
+
+        private final SharedReadLock sharedLock;
+
+        private final ConcurrentMap<Object, AtomicInteger> readHolds = new ConcurrentHashMap<>();
+
+        ReadLock(SharedReadLock sharedLock){
+            this.sharedLock = sharedLock;
+        }
+
+        @Override
+        public void lock() {
+            Object owner = Thread.currentThread();
+            if (!reenter(owner)){
+                sharedLock.lock(SHARED_OWNER);
+                held(owner);
+            }
+        }
+
+        @Override
+        public boolean tryLock() {
+            Object owner = Thread.currentThread();
+            if (reenter(owner)){
+                return true;
+            }
+            if (sharedLock.tryLock(SHARED_OWNER)){
+                held(owner);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public boolean tryLock(long timeout, TimeUnit unit) throws InterruptedException {
+            Object owner = Thread.currentThread();
+            if (reenter(owner)){
+                return true;
+            }
+            if (sharedLock.tryLock(SHARED_OWNER, timeout, unit)){
+                held(owner);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void unlock() {
+            release(Thread.currentThread());
+        }
+
+        @Override
+        public CompletableFuture<Void> lockAsync() {
+            return lockAsync(Thread.currentThread());
+        }
+
+        @Override
+        public CompletableFuture<Void> lockAsync(Object owner) {
+            if (reenter(owner)){
+                return CompletableFuture.completedFuture(null);
+            }
+            return sharedLock.lockAsync(SHARED_OWNER).thenRun(() -> held(owner));
+        }
+
+        @Override
+        public CompletableFuture<Boolean> tryLockAsync(long timeout, TimeUnit unit) {
+            return tryLockAsync(Thread.currentThread(), timeout, unit);
+        }
+
+        @Override
+        public CompletableFuture<Boolean> tryLockAsync(Object owner, long timeout, TimeUnit unit) {
+            if (reenter(owner)){
+                return CompletableFuture.completedFuture(true);
+            }
+            return sharedLock.tryLockAsync(SHARED_OWNER, timeout, unit).thenApply(locked -> {
+                if (locked){
+                    held(owner);
+                }
+                return locked;
+            });
+        }
+
+        @Override
+        public CompletableFuture<Void> unlockAsync() {
+            return unlockAsync(Thread.currentThread());
+        }
+
+        @Override
+        public CompletableFuture<Void> unlockAsync(Object owner) {
+            return CompletableFuture.runAsync(() -> release(owner), sharedLock.getAsyncExecutor());
+        }
+
+        /**
+         * 已持有读锁的持有者直接重入，不受写者优先限制
+         */
+        private boolean reenter(Object owner){
+            AtomicInteger holds = readHolds.get(owner);
+            if (holds != null && sharedLock.reenter(SHARED_OWNER)){
+                holds.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+
+        private void held(Object owner){
+            AtomicInteger holds = readHolds.get(owner);
+            if (holds == null){
+                readHolds.putIfAbsent(owner, new AtomicInteger());
+                holds = readHolds.get(owner);
+            }
+            holds.incrementAndGet();
+        }
+
+        private void release(Object owner){
+            AtomicInteger holds = readHolds.get(owner);
+            if (holds == null){
+                throw new IllegalStateException("owner does not hold the read lock.");
+            }
+            if (holds.decrementAndGet() == 0){
+                readHolds.remove(owner);
+            }
+            sharedLock.unlock(SHARED_OWNER);
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package org.apache.alock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.alock.domain.ALockConfig;
+import org.apache.alock.exception.ALockProcessException;
+import org.apache.alock.processor.ALockProcessor;
+import org.apache.alock.processor.ALockReleaseListener;
+import org.apache.alock.processor.ASemaphoreProcessor;
+import org.apache.alock.scheduler.ALockScheduler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 分布式信号量：最多totalPermits个许可同时被持有。
+ * 许可不绑定线程，任意线程可归还本节点持有的许可；本节点持有的全部许可一次交互完成续租，
+ * 宕机节点的许可随租约到期回收。等待者由释放通知唤醒，非公平。
+ * @author wy
+ */
+public class ASemaphore {
+    private static final Logger LOG = LoggerFactory.getLogger(ASemaphore.class);
+
+    private static final ALockScheduler SCHEDULER = ALockScheduler.getInstance();
+
+    private final ALockConfig lockConfig;
+
+    private final int totalPermits;
+
+    private final ALockProcessor lockProcessor;
+
+    private final ASemaphoreProcessor semaphoreProcessor;
+
+    private final AtomicLong permitSeq = new AtomicLong(0);
+
+    private final Queue<String> heldPermits = new ConcurrentLinkedQueue<>();
+
+    private final Queue<Thread> waiters = new ConcurrentLinkedQueue<>();
+
+    private final AtomicBoolean renewing = new AtomicBoolean(false);
+
+    //订阅释放通知后等待者只在预计到期时兜底重试
+    private volatile boolean subscribed;
+
+    private final AtomicBoolean subscribing = new AtomicBoolean(false);
+
+    private final ALockReleaseListener releaseListener = new ALockReleaseListener() {
+        @Override
+        public void onRelease(String lockKey) {
+            wakeWaiters();
+        }
+    };
+
+    private final Runnable renewTask = new Runnable() {
+        @Override
+        public void run() {
+            renewPermits();
+        }
+    };
+
+    public ASemaphore(ALockConfig lockConfig, int totalPermits, ALockProcessor lockProcessor){
+        if (!(lockProcessor instanceof ASemaphoreProcessor)){
+            throw new IllegalArgumentException("lock processor does not support semaphore.");
+        }
+        if (totalPermits <= 0){
+            throw new IllegalArgumentException("totalPermits must be positive.");
+        }
+        this.lockConfig = lockConfig;
+        this.totalPermits = totalPermits;
+        this.lockProcessor = lockProcessor;
+        this.semaphoreProcessor = (ASemaphoreProcessor) lockProcessor;
+    }
+
+    public ALockConfig getLockConfig() {
+        return lockConfig;
+    }
+
+    public int getTotalPermits() {
+        return totalPermits;
+    }
+
+    /**
+     * 本节点当前持有的许可数
+     */
+    public int heldPermits(){
+        return heldPermits.size();
+    }
+
+    public void acquire(int permits) throws InterruptedException {
+        acquirePermits(permits, -1);
+    }
+
+    public boolean tryAcquire(int permits){
+        checkPermits(permits);
+        return tryAcquireRemote(permits) == ALockProcessor.GRABBED;
+    }
+
+    public boolean tryAcquire(int permits, long timeout, TimeUnit unit) throws InterruptedException {
+        return acquirePermits(permits, Math.max(0, unit.toNanos(timeout)));
+    }
+
+    /**
+     * 归还本节点持有的许可，已因过期丢失的许可不再归还
+     * @param permits
+     */
+    public void release(int permits){
+        checkPermits(permits);
+        List<String> permitIds = new ArrayList<>(permits);
+        for (int i = 0; i < permits; i++){
+            String permitId = heldPermits.poll();
+            if (permitId == null){
+                break;
+            }
+            permitIds.add(permitId);
+        }
+        if (permitIds.isEmpty()){
+            return;
+        }
+        try{
+            semaphoreProcessor.releasePermits(lockConfig, permitIds);
+        }catch (ALockProcessException e){
+            //Permits will release after expire time
+        }
+        wakeWaiters();
+    }
+
+    /**
+     * @param timeoutNanos 小于0表示不超时
+     */
+    private boolean acquirePermits(int permits, long timeoutNanos) throws InterruptedException {
+        checkPermits(permits);
+        if (Thread.interrupted()){
+            throw new InterruptedException();
+        }
+        final long deadline = System.nanoTime() + timeoutNanos;
+        Thread current = Thread.currentThread();
+        subscribe();
+        //先登记再尝试，尝试失败到park之间的释放通知不会丢失
+        waiters.add(current);
+        try{
+            for (;;){
+                long wait = tryAcquireRemote(permits);
+                if (wait == ALockProcessor.GRABBED){
+                    return true;
+                }
+                long parkNanos = TimeUnit.MILLISECONDS.toNanos(pollMillis(wait));
+                if (timeoutNanos >= 0){
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0){
+                        return false;
+                    }
+                    parkNanos = Math.min(parkNanos, remaining);
+                }
+                LockSupport.parkNanos(this, parkNanos);
+                if (Thread.interrupted()){
+                    throw new InterruptedException();
+                }
+            }
+        }finally {
+            waiters.remove(current);
+        }
+    }
+
+    /**
+     * @return ALockProcessor.GRABBED表示成功，否则为预计等待时间
+     */
+    private long tryAcquireRemote(int permits){
+        List<String> permitIds = new ArrayList<>(permits);
+        for (int i = 0; i < permits; i++){
+            permitIds.add(lockConfig.getLockValue() + ":" + permitSeq.incrementAndGet());
+        }
+        long res;
+        try{
+            res = semaphoreProcessor.tryAcquirePermits(lockConfig, totalPermits, permitIds);
+        }catch (ALockProcessException e){
+            //超时等错误时许可可能已写入，按许可id释放
+            try{
+                semaphoreProcessor.releasePermits(lockConfig, permitIds);
+            }catch (ALockProcessException re){
+                //Permits will release after expire time
+            }
+            return 0;
+        }
+        if (res == ALockProcessor.GRABBED){
+            heldPermits.addAll(permitIds);
+            startRenewTask();
+        }
+        return res;
+    }
+
+    /**
+     * 下次重试前的等待时间：等到最早的许可到期，但不超过按租期计算的轮询间隔（最多MAX_RETRY_POLL_MILLIS）；
+     * 已订阅时释放会提前唤醒，轮询兜底通知丢失与许可被续期的情况
+     */
+    private long pollMillis(long wait){
+        long poll = Math.max(1, Math.min(lockConfig.getMillisLease() / 5, ALockConfig.MAX_RETRY_POLL_MILLIS));
+        if (wait <= 0){
+            return Math.max(1, Math.min(lockConfig.getMillisLease() / 10, ALockConfig.MAX_RETRY_POLL_MILLIS));
+        }
+        return Math.min(wait, poll);
+    }
+
+    private void subscribe(){
+        if (!subscribed && subscribing.compareAndSet(false, true)){
+            subscribed = lockProcessor.subscribeRelease(lockConfig, releaseListener);
+            if (!subscribed){
+                subscribing.set(false);
+            }
+        }
+    }
+
+    private void wakeWaiters(){
+        for (Thread waiter : waiters){
+            LockSupport.unpark(waiter);
+        }
+    }
+
+    private void startRenewTask(){
+        if (renewing.compareAndSet(false, true)){
+            SCHEDULER.scheduleIo(renewTask, lockConfig.getMillisLease() / 2);
+        }
+    }
+
+    private void renewPermits(){
+        if (heldPermits.isEmpty()){
+            renewing.set(false);
+            //停止续租与新获取许可并发时由本线程继续续租
+            if (heldPermits.isEmpty() || !renewing.compareAndSet(false, true)){
+                return;
+            }
+        }
+        try{
+            List<String> lost = semaphoreProcessor.expandPermits(lockConfig, new ArrayList<>(heldPermits));
+            if (!lost.isEmpty()){
+                LOG.warn("semaphore permits lost, key:{}, permits:{}", lockConfig.getLockUniqueKey(), lost.size());
+                heldPermits.removeAll(lost);
+            }
+        }catch (ALockProcessException e){
+            //retry
+        }
+        SCHEDULER.scheduleIo(renewTask, (long)(0.75 * lockConfig.getMillisLease()));
+    }
+
+    private void checkPermits(int permits){
+        if (permits <= 0 || permits > totalPermits){
+            throw new IllegalArgumentException("permits must be in [1, " + totalPermits + "].");
+        }
+    }
+}
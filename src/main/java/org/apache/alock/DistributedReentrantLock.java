@@ -2,132 +2,751 @@ package org.apache.alock;
 
 import org.apache.alock.domain.ALockConfig;
 import org.apache.alock.exception.ALockProcessException;
-import org.apache.alock.exception.OptimisticLockingException;
+import org.apache.alock.metrics.ALockMetrics;
+import org.apache.alock.metrics.ALockMetricsRegistry;
 import org.apache.alock.processor.ALockProcessor;
+import org.apache.alock.processor.ALockReleaseListener;
+import org.apache.alock.processor.ALockWatchListener;
+import org.apache.alock.processor.ALockWatchProcessor;
+import org.apache.alock.scheduler.ALockScheduler;
+import org.apache.alock.scheduler.ALockTimeout;
+import org.apache.alock.scheduler.LeaseRenewalListener;
+import org.apache.alock.scheduler.LeaseRenewer;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * 基于redis的可重入锁实现
  * @author wy
  */
 public class DistributedReentrantLock implements ALock{
+    private static final Logger LOG = LoggerFactory.getLogger(DistributedReentrantLock.class);
+
+    private static final ALockScheduler SCHEDULER = ALockScheduler.getInstance();
+
+    private static final AtomicReferenceFieldUpdater<Node, Node> NEXT =
+        AtomicReferenceFieldUpdater.newUpdater(Node.class, Node.class, "next");
+
+    //单核时自旋只会推迟持有者运行
+    private static final boolean SPIN_ENABLED = Runtime.getRuntime().availableProcessors() > 1;
+    private static final int MIN_SPINS = 16;
+    private static final int INITIAL_SPINS = 256;
+    private static final int MAX_SPINS = 1 << 12;
 
     private final ALockConfig lockConfig;
 
     private final ALockProcessor lockProcessor;
 
+    private final LeaseRenewer leaseRenewer;
+
+    //异步结果在此完成，调用方的后续操作不占用调度器工作线程
+    private final Executor asyncExecutor;
+
     private final AtomicReference<Node> head = new AtomicReference<>();
     private final AtomicReference<Node> tail = new AtomicReference<>();
 
-    //通过线程持有 实现 可重入
-    private final AtomicReference<Thread> exclusiveOwnerThread = new AtomicReference<>();
+    //通过持有者标识实现可重入：同步调用为当前线程，异步调用可传入任意token，由token持有者在任意线程释放
+    private final AtomicReference<Object> exclusiveOwner = new AtomicReference<>();
     private final AtomicInteger holdCnt = new AtomicInteger(0);
+    //同一时刻只有一个本地线程与远程存储竞争，其余线程直接排队
+    private final AtomicBoolean grabbing = new AtomicBoolean(false);
+
+    //handoff模式下本地无持有者但远程租约仍保留
+    private final AtomicBoolean leaseRetained = new AtomicBoolean(false);
+    private volatile long leaseAcquiredNanos;
+    private volatile ALockTimeout retainedReleaseTimeout;
+    private final Runnable retainedReleaseTask = new Runnable() {
+        @Override
+        public void run() {
+            if (leaseRetained.compareAndSet(true, false)){
+                releaseRemoteLock();
+                unparkQueueNode();
+            }
+        }
+    };
+
+    //最近一次抢占失败时得知的远程持有者剩余租期：据此安排下次重试，
+    //并在短时间内直接判定tryLock失败，不再访问远程存储；收到释放通知即失效
+    private volatile boolean remoteHeld;
+    private volatile long remoteFreeAtNanos;
+    private volatile long negativeCacheUntilNanos;
+    private final AtomicInteger grabFailures = new AtomicInteger(0);
 
-    private final AtomicReference<RetryLockThread> retryLockRef = new AtomicReference<>();
-    private final AtomicReference<ContinueLockLeaseThread> continueLockLeaseRef = new AtomicReference<>();
+    //本地持有开始时间，仅开启埋点时记录
+    private volatile long heldSinceNanos;
+    //本地排队中（未获取、未取消）的等待者数量
+    private final AtomicInteger queueLength = new AtomicInteger(0);
 
+    //本地估计的租约到期时间：从抢占或续租请求发出时刻起算，不晚于远程实际到期；0表示无有效租约
+    private final AtomicLong leaseValidUntilNanos = new AtomicLong(0);
+    private final List<ALockLeaseListener> leaseListeners = new CopyOnWriteArrayList<>();
+    //是否已安排租约到期检查，只在注册了监听时安排
+    private final AtomicBoolean leaseWatched = new AtomicBoolean(false);
+    private final Runnable leaseExpiryTask = new Runnable() {
+        @Override
+        public void run() {
+            checkLeaseExpiry();
+        }
+    };
+
+    //持有期间监听远程锁key的变更（配置watchLease时），收到通知后读取一次远程存储核实是否丢失
+    private volatile boolean watching;
+    private final AtomicBoolean lossCheckPending = new AtomicBoolean(false);
+    private final ALockWatchListener watchListener = new ALockWatchListener() {
+        @Override
+        public void onLockChanged(String lockKey, String event) {
+            if (leaseValidUntilNanos.get() != 0 && lossCheckPending.compareAndSet(false, true)){
+                SCHEDULER.executeIo(lossCheckTask);
+            }
+        }
+    };
+    private final Runnable lossCheckTask = new Runnable() {
+        @Override
+        public void run() {
+            checkLeaseLoss();
+        }
+    };
+
+    //队首等待者在本地持有者释放前的自旋次数，按最近自旋的成败自适应调整
+    private volatile int spinLimit = INITIAL_SPINS;
+
+    private final AtomicReference<RetryLockTask> retryLockRef = new AtomicReference<>();
+    private final AtomicReference<ContinueLockLeaseTask> continueLockLeaseRef = new AtomicReference<>();
+
+    /**
+     * 本地等待队列节点（CLH变体，与AbstractQueuedSynchronizer相同）：prev为准确链接，next仅作为提示，
+     * 为空或指向已取消节点时从tail向前查找；链接字段直接CAS，每个等待者只分配一个节点
+     */
     static class Node{
-        final AtomicReference<Node> prev = new AtomicReference<>();
-        final AtomicReference<Node> next = new AtomicReference<>();
+        volatile Node prev;
+        volatile Node next;
+        final Object owner;
+        //同步等待的线程，异步等待节点为null
         final Thread t;
+        //异步等待的结果，同步等待节点为null
+        final CompletableFuture<Boolean> future;
+        //等待超时的节点不再参与竞争，尽量从队列中摘除，未摘除的由后续节点跳过
+        volatile boolean cancelled;
+        //串行化异步节点的获取尝试与取消；尝试中会访问远程存储，不使用监视器以免在虚拟线程上pin住载体线程
+        final ReentrantLock attemptLock;
+        //异步节点已获取到锁，由attemptLock保护
+        boolean acquired;
+        //入队时间，仅开启埋点时记录
+        final long enqueueNanos;
 
-        Node(Thread t){
+        Node(Object owner, Thread t, CompletableFuture<Boolean> future){
+            this.owner = owner;
             this.t = t;
+            this.future = future;
+            this.attemptLock = future == null ? null : new ReentrantLock();
+            this.enqueueNanos = startNanos();
         }
         Node(){
+            owner = null;
             t = null;
+            future = null;
+            attemptLock = null;
+            enqueueNanos = 0;
         }
     }
 
     public DistributedReentrantLock(ALockConfig lockConfig, ALockProcessor lockProcessor){
         this.lockConfig = lockConfig;
         this.lockProcessor = lockProcessor;
+        this.leaseRenewer = LeaseRenewer.of(lockProcessor);
+        this.asyncExecutor = lockConfig.getAsyncExecutor() != null ? lockConfig.getAsyncExecutor()
+            : SCHEDULER.getCompletionExecutor();
+    }
+
+    public ALockConfig getLockConfig() {
+        return lockConfig;
+    }
+
+    Executor getAsyncExecutor() {
+        return asyncExecutor;
+    }
+
+    /**
+     * 本地是否空闲（无持有者且未保留远程租约）
+     */
+    boolean isLocallyFree(){
+        return exclusiveOwner.get() == null && !leaseRetained.get();
+    }
+
+    /**
+     * 远程锁已在外部（如批量认领）抢占成功，登记为当前线程持有并开始续租
+     * @param grabSentNanos 抢占请求发出的时刻，租约有效期从此起算
+     * @return 本地已有持有者时返回false，调用方需释放远程锁
+     */
+    boolean adoptGrabbedLock(long grabSentNanos){
+        if (!exclusiveOwner.compareAndSet(null, Thread.currentThread())){
+            return false;
+        }
+        leaseAcquiredNanos = System.nanoTime();
+        grantLease(grabSentNanos);
+        heldSinceNanos = startNanos();
+        holdCnt.set(1);
+        shutdownRetryTask();
+        startContinueLockLeaseTask();
+        watchLease();
+        return true;
     }
 
     @Override
     public void lock() {
-        if (!tryLock()){
-            acquireQueueNode(addWaiter());
-        }
+        lock(Thread.currentThread());
     }
 
     @Override
     public boolean tryLock() {
-        if (Thread.currentThread() == exclusiveOwnerThread.get()){
-            holdCnt.incrementAndGet();
+        return tryAcquire(Thread.currentThread());
+    }
+
+    /**
+     * 以owner为持有者同步获取锁，由当前线程等待
+     */
+    void lock(Object owner){
+        long start = startNanos();
+        if (!tryAcquire(owner)){
+            acquireQueueNode(addWaiter(owner, Thread.currentThread(), null));
+        }
+        recordAcquired(start);
+    }
+
+    boolean tryLock(Object owner){
+        long start = startNanos();
+        boolean locked = tryAcquire(owner);
+        if (locked){
+            recordAcquired(start);
+        }
+        return locked;
+    }
+
+    boolean tryLock(Object owner, long timeout, TimeUnit unit) throws InterruptedException {
+        long start = startNanos();
+        boolean locked = tryAcquire(owner)
+            || acquireQueueNodeWithTimeout(addWaiter(owner, Thread.currentThread(), null), unit.toMillis(timeout));
+        if (locked){
+            recordAcquired(start);
+        }
+        return locked;
+    }
+
+    void unlock(Object owner){
+        release(owner);
+    }
+
+    /**
+     * owner已持有锁时增加持有计数；持有计数已归零（正在释放）时返回false
+     */
+    boolean reenter(Object owner){
+        for (;;){
+            int c = holdCnt.get();
+            if (c <= 0 || exclusiveOwner.get() != owner){
+                return false;
+            }
+            if (holdCnt.compareAndSet(c, c + 1)){
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 本地是否有等待者
+     */
+    boolean hasQueuedWaiters(){
+        return firstQueued() != null;
+    }
+
+    private boolean tryAcquire(Object owner) {
+        if (owner == exclusiveOwner.get()){
+            return canReenter(owner) && reenter(owner);
+        }
+        //本地已有持有者，或前面还有本地等待者时不访问远程存储，只有队首与远程交互
+        if (exclusiveOwner.get() != null || hasQueuedPredecessors(owner)){
+            return false;
+        }
+        //handoff模式下远程租约仍由本节点保留，直接接手，无需访问远程存储
+        if (leaseRetained.get()){
+            if (!leaseRetained.compareAndSet(true, false)){
+                return false;
+            }
+            cancelRetainedRelease();
+            heldSinceNanos = startNanos();
+            exclusiveOwner.set(owner);
+            holdCnt.set(1);
+            shutdownRetryTask();
             return true;
         }
+        if (remoteHeld && System.nanoTime() - negativeCacheUntilNanos < 0){
+            return false;
+        }
+        if (!grabbing.compareAndSet(false, true)){
+            return false;
+        }
+        //上一个抢占者可能已在检查之后拿到锁并让出grabbing；远程按锁值可重入，再次抢占会覆盖其持有计数
+        if (exclusiveOwner.get() != null || leaseRetained.get()){
+            grabbing.set(false);
+            return false;
+        }
         boolean locked = false;
+        long remainingLease = 0;
+        long sentNanos = System.nanoTime();
+        //抢占抛出任何异常都要让出grabbing，否则本地再也没有线程能与远程竞争
         try{
-            lockProcessor.grabLock(lockConfig);
-            locked = true;
-        }catch (OptimisticLockingException | ALockProcessException e){
+            try{
+                remainingLease = grabRemoteLock();
+                locked = remainingLease == ALockProcessor.GRABBED;
+                if (!locked){
+                    recordGrabFailed();
+                }
+            }catch (ALockProcessException e){
+                undoMaybeGrabbed();
+            }
+            if (locked){
+                remoteHeld = false;
+                grabFailures.set(0);
+                leaseAcquiredNanos = System.nanoTime();
+                grantLease(sentNanos);
+                heldSinceNanos = startNanos();
+                exclusiveOwner.set(owner);
+                holdCnt.set(1);
+            }else {
+                recordRemoteHeld(remainingLease);
+            }
+        }finally {
+            grabbing.set(false);
         }
-        if (locked){
-            exclusiveOwnerThread.set(Thread.currentThread());
-            holdCnt.set(1);
 
-            shutdownRetryThread();
+        if (locked){
+            shutdownRetryTask();
 
             //continue lease
-            startContinueLockLeaseThread();
-        }
+            startContinueLockLeaseTask();
+            watchLease();
 
+            propagate(owner);
+        }
         return locked;
     }
 
+    /**
+     * 抢占出错（如命令超时）时脚本可能已在redis执行，按锁值释放一次，避免在租期内占着锁却报告失败；
+     * 释放也失败时等待租期到期
+     */
+    private void undoMaybeGrabbed(){
+        try{
+            tryReleaseRemoteLock();
+        }catch (ALockProcessException e){
+            //Lock will release after expire time
+        }
+    }
+
+    /**
+     * 记录抢占失败得到的持有者剩余租期，负缓存时长不超过租期的1/20
+     */
+    private void recordRemoteHeld(long remainingLease){
+        grabFailures.incrementAndGet();
+        if (remainingLease <= 0){
+            remoteHeld = false;
+            return;
+        }
+        long now = System.nanoTime();
+        remoteFreeAtNanos = now + TimeUnit.MILLISECONDS.toNanos(remainingLease);
+        negativeCacheUntilNanos = now + TimeUnit.MILLISECONDS.toNanos(
+            Math.min(remainingLease, Math.max(1, lockConfig.getMillisLease() / 20)));
+        remoteHeld = true;
+    }
+
     @Override
     public boolean tryLock(long timeout, TimeUnit unit) throws InterruptedException {
-        if (tryLock()){
-            return true;
-        }
-        return acquireQueueNodeWithTimeout(addWaiter(), unit.toMillis(timeout));
+        return tryLock(Thread.currentThread(), timeout, unit);
     }
 
     @Override
     public void unlock() {
-        if (exclusiveOwnerThread.get() != Thread.currentThread()){
-            throw new IllegalStateException("current thread does not hold the lock.");
+        release(Thread.currentThread());
+    }
+
+    @Override
+    public CompletableFuture<Void> lockAsync() {
+        return lockAsync(Thread.currentThread());
+    }
+
+    @Override
+    public CompletableFuture<Void> lockAsync(Object owner) {
+        return acquireAsync(owner, -1).thenApply(locked -> null);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> tryLockAsync(long timeout, TimeUnit unit) {
+        return tryLockAsync(Thread.currentThread(), timeout, unit);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> tryLockAsync(Object owner, long timeout, TimeUnit unit) {
+        return acquireAsync(owner, unit.toMillis(timeout));
+    }
+
+    @Override
+    public CompletableFuture<Void> unlockAsync() {
+        return unlockAsync(Thread.currentThread());
+    }
+
+    @Override
+    public CompletableFuture<Void> unlockAsync(Object owner) {
+        return CompletableFuture.runAsync(() -> release(owner), asyncExecutor);
+    }
+
+    private void release(Object owner) {
+        if (exclusiveOwner.get() != owner){
+            throw new IllegalStateException("owner does not hold the lock.");
         }
         if (holdCnt.decrementAndGet() > 0){
             return;
         }
+        recordReleased();
+        if (retainLease(owner)){
+            return;
+        }
         try{
-            lockProcessor.releaseLock(lockConfig);
-        }catch (ALockProcessException | OptimisticLockingException e){
+            releaseRemoteLock();
+        }finally {
+            exclusiveOwner.compareAndSet(owner, null);
+
+            unparkQueueNode();
+        }
+    }
+
+    /**
+     * 抢占远程锁
+     * @return ALockProcessor.GRABBED表示成功，否则为持有者剩余租期
+     */
+    protected long grabRemoteLock(){
+        return lockProcessor.tryGrabLock(lockConfig);
+    }
+
+    /**
+     * 释放远程锁
+     */
+    protected void tryReleaseRemoteLock(){
+        lockProcessor.tryReleaseLock(lockConfig);
+    }
+
+    /**
+     * 提交一次续租
+     */
+    protected void renewRemoteLock(LeaseRenewalListener listener){
+        leaseRenewer.renew(lockConfig, listener);
+    }
+
+    /**
+     * 远程锁是否空闲
+     */
+    protected boolean isRemoteLockFree(){
+        return lockProcessor.isLockFree(lockConfig.getLockUniqueKey());
+    }
+
+    /**
+     * 订阅远程锁释放通知
+     * @return 是否支持释放通知
+     */
+    protected boolean subscribeRemoteRelease(ALockReleaseListener listener){
+        return lockProcessor.subscribeRelease(lockConfig, listener);
+    }
+
+    protected void unsubscribeRemoteRelease(ALockReleaseListener listener){
+        lockProcessor.unsubscribeRelease(lockConfig, listener);
+    }
+
+    /**
+     * 本地等待者已全部离开（如超时），远程不再需要为本节点保留等待状态
+     */
+    protected void onWaitAbandoned(){
+    }
+
+    /**
+     * 开始监听远程锁的变更
+     * @return 处理器是否支持
+     */
+    protected boolean watchRemoteLock(ALockWatchListener listener){
+        return lockProcessor instanceof ALockWatchProcessor
+            && ((ALockWatchProcessor) lockProcessor).watchLock(lockConfig, listener);
+    }
+
+    protected void unwatchRemoteLock(ALockWatchListener listener){
+        if (lockProcessor instanceof ALockWatchProcessor){
+            ((ALockWatchProcessor) lockProcessor).unwatchLock(lockConfig, listener);
+        }
+    }
+
+    /**
+     * 收到锁变更通知后核实远程锁是否仍由本节点持有
+     */
+    protected boolean isRemoteLockHeld(){
+        return ((ALockWatchProcessor) lockProcessor).isLockHeld(lockConfig);
+    }
+
+    /**
+     * 租约丢失（续租时发现，或收到锁变更通知后核实）时回调，此时持有者可能仍在执行受锁保护的操作；
+     * 配置了interruptOnLeaseLost时中断同步持有锁的线程，使响应中断的操作尽快中止
+     * @param owner 当前持有者，handoff保留租约期间为null
+     */
+    protected void onLeaseLost(Object owner){
+        if (lockConfig.isInterruptOnLeaseLost() && owner instanceof Thread){
+            ((Thread) owner).interrupt();
+        }
+    }
+
+    /**
+     * 已持有锁的owner能否重入；多个本地持有方共享同一owner（如读锁）时可借此暂停新的加入
+     */
+    protected boolean canReenter(Object owner){
+        return true;
+    }
+
+    private void releaseRemoteLock(){
+        try{
+            tryReleaseRemoteLock();
+        }catch (ALockProcessException e){
             //Lock will release after expire time
         }finally {
-            exclusiveOwnerThread.compareAndSet(Thread.currentThread(), null);
+            shutdownContinueLockLeaseTask();
+            leaseValidUntilNanos.set(0);
+            if (watching){
+                watching = false;
+                unwatchRemoteLock(watchListener);
+            }
+        }
+    }
 
-            shutdownContinueLockLeaseThread();
+    /**
+     * 当前线程是否持有锁且本地估计的租约仍有效，不访问远程存储
+     */
+    public boolean isHeldByCurrentThread(){
+        return isHeldBy(Thread.currentThread());
+    }
 
-            unparkQueueNode();
+    /**
+     * owner是否持有锁且本地估计的租约仍有效，不访问远程存储
+     * @param owner
+     */
+    public boolean isHeldBy(Object owner){
+        return owner != null && exclusiveOwner.get() == owner && holdCnt.get() > 0 && remainingLeaseNanos() > 0;
+    }
+
+    /**
+     * 本地估计的剩余租期（毫秒），无有效租约时返回0。未计入之后的续租，是保守值
+     */
+    public long remainingLeaseMillis(){
+        return TimeUnit.NANOSECONDS.toMillis(remainingLeaseNanos());
+    }
+
+    /**
+     * 不依赖后续续租，租约在time时长内是否一直有效；用于开始耗时操作前的判断
+     * @param time
+     * @param unit
+     */
+    public boolean isLeaseValidFor(long time, TimeUnit unit){
+        return remainingLeaseNanos() > unit.toNanos(time);
+    }
+
+    /**
+     * 不依赖后续续租，租约到System.nanoTime()的deadlineNanos时刻是否仍有效
+     * @param deadlineNanos
+     */
+    public boolean isLeaseValidUntil(long deadlineNanos){
+        long until = leaseValidUntilNanos.get();
+        return until != 0 && until - deadlineNanos > 0;
+    }
+
+    /**
+     * 注册租约回调，持有期间本地估计的租约失效时通知
+     * @param listener
+     */
+    public void addLeaseListener(ALockLeaseListener listener){
+        leaseListeners.add(listener);
+        watchLeaseExpiry();
+    }
+
+    public void removeLeaseListener(ALockLeaseListener listener){
+        leaseListeners.remove(listener);
+    }
+
+    private long remainingLeaseNanos(){
+        long until = leaseValidUntilNanos.get();
+        if (until == 0){
+            return 0;
         }
+        return Math.max(0, until - System.nanoTime());
+    }
+
+    /**
+     * 新获得租约：有效期从请求发出时刻起算
+     */
+    private void grantLease(long sentNanos){
+        leaseValidUntilNanos.set(sentNanos + TimeUnit.MILLISECONDS.toNanos(lockConfig.getMillisLease()));
+        watchLeaseExpiry();
     }
 
     /**
-     * 等待当前节点就绪
+     * 续租成功后顺延有效期；租约已释放或已判定失效时不再恢复
+     */
+    private void extendLease(long sentNanos){
+        long until = sentNanos + TimeUnit.MILLISECONDS.toNanos(lockConfig.getMillisLease());
+        for (;;){
+            long current = leaseValidUntilNanos.get();
+            if (current == 0 || until - current <= 0 || leaseValidUntilNanos.compareAndSet(current, until)){
+                return;
+            }
+        }
+    }
+
+    /**
+     * 续租时发现锁已丢失，租约立即失效
+     */
+    private void expireLease(){
+        long current = leaseValidUntilNanos.get();
+        if (current != 0 && leaseValidUntilNanos.compareAndSet(current, System.nanoTime()) && !leaseListeners.isEmpty()){
+            SCHEDULER.execute(leaseExpiryTask);
+        }
+    }
+
+    private void watchLease(){
+        if (lockConfig.isWatchLease() && !watching){
+            watching = watchRemoteLock(watchListener);
+        }
+    }
+
+    /**
+     * 核实通知：远程锁已不属于本节点时按续租发现丢失处理；核实期间换了一次持有（续租任务已更换）则忽略
+     */
+    private void checkLeaseLoss(){
+        lossCheckPending.set(false);
+        ContinueLockLeaseTask t = continueLockLeaseRef.get();
+        if (t == null || leaseValidUntilNanos.get() == 0){
+            return;
+        }
+        boolean held;
+        try{
+            held = isRemoteLockHeld();
+        }catch (ALockProcessException e){
+            return;
+        }
+        if (!held && continueLockLeaseRef.get() == t){
+            t.lost();
+        }
+    }
+
+    private void watchLeaseExpiry(){
+        if (leaseListeners.isEmpty() || !leaseWatched.compareAndSet(false, true)){
+            return;
+        }
+        long remaining = leaseValidUntilNanos.get() - System.nanoTime();
+        SCHEDULER.schedule(leaseExpiryTask, Math.max(0, TimeUnit.NANOSECONDS.toMillis(remaining) + 1));
+    }
+
+    /**
+     * 到期检查：有效期已被续租顺延时按新的到期时间再检查，否则通知监听并结束本次持有的租约
+     */
+    private void checkLeaseExpiry(){
+        leaseWatched.set(false);
+        long until = leaseValidUntilNanos.get();
+        if (until == 0){
+            return;
+        }
+        if (until - System.nanoTime() > 0){
+            watchLeaseExpiry();
+            return;
+        }
+        if (!leaseValidUntilNanos.compareAndSet(until, 0)){
+            return;
+        }
+        String lockKey = lockConfig.getLockUniqueKey();
+        for (ALockLeaseListener listener : leaseListeners){
+            try{
+                listener.onLeaseExpired(lockKey);
+            }catch (Exception e){
+                LOG.error("lease listener error, key:" + lockKey, e);
+            }
+        }
+    }
+
+    /**
+     * handoff模式：有本地等待者或配置了保留窗口时不释放远程租约，直接转交给下一个本地线程；
+     * 连续持有超过上限后正常释放，给其他节点竞争的机会
+     * @return 是否保留了租约
+     */
+    private boolean retainLease(Object owner){
+        if (!lockConfig.isHandoff()
+            || System.nanoTime() - leaseAcquiredNanos >= TimeUnit.MILLISECONDS.toNanos(lockConfig.getMaxHandoffMillis())){
+            return false;
+        }
+        boolean hasWaiter = firstQueued() != null;
+        long graceMillis = lockConfig.getHandoffGraceMillis();
+        if (!hasWaiter && graceMillis <= 0){
+            return false;
+        }
+        //等待者被唤醒后没有接手（如超时取消）时，租约也会在保留窗口后释放
+        long releaseDelay = hasWaiter ? Math.max(graceMillis, lockConfig.getMillisLease() / 10) : graceMillis;
+        leaseRetained.set(true);
+        retainedReleaseTimeout = SCHEDULER.scheduleIo(retainedReleaseTask, releaseDelay);
+        exclusiveOwner.compareAndSet(owner, null);
+        unparkQueueNode();
+        return true;
+    }
+
+    private void cancelRetainedRelease(){
+        ALockTimeout t = retainedReleaseTimeout;
+        if (t != null){
+            t.cancel();
+        }
+    }
+
+    /**
+     * 等待当前节点就绪；等待期间不响应中断，中断状态被清除以免park立即返回而空转，获取锁后再恢复
      */
     private void acquireQueueNode(final Node node){
+        boolean interrupted = false;
         for (;;){
-            Node p = node.prev.get();
-            if (p == head.get() && tryLock()){
-                head.set(node);
-                p.next.set(null);
-                node.prev.set(null);//help gc
-                break;
+            if (isFirstQueued(node)){
+                if (tryAcquire(node.owner)){
+                    setHead(node);
+                    recordQueueWait(node);
+                    propagate(node.owner);
+                    break;
+                }
+                if (spinForLocalRelease()){
+                    continue;
+                }
             }
 
-            if (exclusiveOwnerThread.get() == null){
-                startRetryThread();
+            if (exclusiveOwner.get() == null){
+                startRetryTask();
             }
 
             LockSupport.park(this);
+            if (Thread.interrupted()){
+                interrupted = true;
+            }
+        }
+        if (interrupted){
+            Thread.currentThread().interrupt();
         }
     }
 
@@ -135,106 +754,362 @@ public class DistributedReentrantLock implements ALock{
      * 指定超时时间 获取等待锁
      * @param node
      * @param timeoutInMs
+     * @throws InterruptedException 等待期间被中断，节点已取消
      */
-    private boolean acquireQueueNodeWithTimeout(final Node node, long timeoutInMs){
+    private boolean acquireQueueNodeWithTimeout(final Node node, long timeoutInMs) throws InterruptedException {
         long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutInMs);
         final long deadline = System.nanoTime() + timeoutNanos;
         for (;;){
-            Node p = node.prev.get();
-            if (p == head.get() && tryLock()){
-                head.set(node);
-                p.next.set(null);
-                node.prev.set(null);//help gc
+            boolean first = isFirstQueued(node);
+            if (first && tryAcquire(node.owner)){
+                setHead(node);
+                recordQueueWait(node);
+                propagate(node.owner);
                 return true;
             }
 
             timeoutNanos = deadline - System.nanoTime();
             if (timeoutNanos <= 0){
+                node.cancelled = true;
+                cancelNode(node);
                 return false;
             }
-            if (exclusiveOwnerThread.get() == null){
-                startRetryThread();
+            if (first && spinForLocalRelease()){
+                continue;
+            }
+            if (exclusiveOwner.get() == null){
+                startRetryTask();
             }
 
             LockSupport.parkNanos(this, timeoutNanos);
+            if (Thread.interrupted()){
+                node.cancelled = true;
+                cancelNode(node);
+                throw new InterruptedException();
+            }
         }
     }
 
     /**
-     * 添加到等待队列
+     * 异步获取锁：等待期间不占用调用线程，由释放通知、重试任务或本地释放驱动后续尝试
+     * @param timeoutInMs 小于0表示不超时
      */
-    private Node addWaiter(){
-        Node n = new Node(Thread.currentThread());
-        Node t = tail.get();
-        //Try the fast path of enq; backup to full enq on failure
-        if (t != null){
-            n.prev.set(t);
-            if (tail.compareAndSet(t, n)){
-                t.next.set(n);
-                return n;
+    private CompletableFuture<Boolean> acquireAsync(Object owner, long timeoutInMs){
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+        long start = startNanos();
+        if (start != 0){
+            future.thenAccept(locked -> {
+                if (locked){
+                    recordAcquired(start);
+                }
+            });
+        }
+        SCHEDULER.executeIo(() -> {
+            try{
+                if (tryAcquire(owner)){
+                    if (!future.complete(true)){
+                        release(owner);
+                    }
+                    return;
+                }
+                Node node = addWaiter(owner, null, future);
+                if (timeoutInMs >= 0){
+                    ALockTimeout t = SCHEDULER.schedule(() -> cancelAsyncNode(node), timeoutInMs);
+                    future.whenComplete((r, e) -> t.cancel());
+                }
+                future.whenComplete((r, e) -> {
+                    if (future.isCancelled()){
+                        cancelAsyncNode(node);
+                    }
+                });
+                acquireAsyncNode(node);
+            }catch (Throwable e){
+                future.completeExceptionally(e);
+            }
+        });
+        return completeAsync(owner, future);
+    }
+
+    /**
+     * 内部结果在调度线程上产生，转到asyncExecutor上完成返回给调用方的future；
+     * 调用方取消时取消内部等待，取消晚于获取成功时归还锁
+     */
+    private CompletableFuture<Boolean> completeAsync(Object owner, CompletableFuture<Boolean> acquired){
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        acquired.whenCompleteAsync((locked, e) -> {
+            if (e != null){
+                result.completeExceptionally(e);
+            }else if (!result.complete(locked) && locked){
+                release(owner);
+            }
+        }, asyncExecutor);
+        result.whenComplete((r, e) -> {
+            if (result.isCancelled()){
+                acquired.cancel(false);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 尝试为异步等待节点获取锁，同一节点的尝试串行执行
+     */
+    private void acquireAsyncNode(Node node){
+        node.attemptLock.lock();
+        try{
+            if (node.cancelled || node.future.isDone()){
+                return;
+            }
+            if (isFirstQueued(node) && tryAcquire(node.owner)){
+                node.acquired = true;
+                setHead(node);
+                recordQueueWait(node);
+                propagate(node.owner);
+                //调用方已取消等待，归还刚获取的锁
+                if (!node.future.complete(true)){
+                    release(node.owner);
+                }
+                return;
+            }
+        }finally {
+            node.attemptLock.unlock();
+        }
+        if (exclusiveOwner.get() == null){
+            startRetryTask();
+        }
+    }
+
+    private void cancelAsyncNode(Node node){
+        node.attemptLock.lock();
+        try{
+            if (node.cancelled || node.acquired){
+                return;
+            }
+            node.cancelled = true;
+            node.future.complete(false);
+        }finally {
+            node.attemptLock.unlock();
+        }
+        cancelNode(node);
+    }
+
+    /**
+     * 摘除已标记取消的节点：为队尾时直接回退tail，否则让未取消的前驱跳过它；
+     * 摘除失败时节点留在队列中，由后继在isFirstQueued中越过。最后唤醒新的队首
+     */
+    private void cancelNode(Node node){
+        queueLength.decrementAndGet();
+        Node pred = node.prev;
+        while (pred != null && pred.cancelled){
+            pred = pred.prev;
+        }
+        if (pred != null){
+            Node predNext = pred.next;
+            if (tail.get() == node && tail.compareAndSet(node, pred)){
+                NEXT.compareAndSet(pred, predNext, null);
+            }else if (pred != head.get()){
+                Node next = node.next;
+                if (next != null && !next.cancelled){
+                    NEXT.compareAndSet(pred, predNext, next);
+                }
             }
         }
+        unparkQueueNode();
+    }
+
+    /**
+     * 队首等待者在锁由本地持有时短暂自旋，持有者很快释放时省去park与unpark的线程切换；
+     * 自旋内等到释放则加倍下次的自旋次数，否则减半
+     * @return 是否等到本地持有者释放
+     */
+    private boolean spinForLocalRelease(){
+        if (!SPIN_ENABLED || exclusiveOwner.get() == null){
+            return false;
+        }
+        int limit = spinLimit;
+        for (int i = 0; i < limit; i++){
+            if (exclusiveOwner.get() == null){
+                spinLimit = Math.min(MAX_SPINS, limit << 1);
+                return true;
+            }
+        }
+        spinLimit = Math.max(MIN_SPINS, limit >> 1);
+        return false;
+    }
+
+    /**
+     * 添加到等待队列
+     */
+    private Node addWaiter(Object owner, Thread waiter, CompletableFuture<Boolean> future){
+        Node n = new Node(owner, waiter, future);
+        queueLength.incrementAndGet();
         enqueue(n);
         return n;
     }
 
     /**
-     * 返回前驱节点
+     * 返回前驱节点；队列首次使用时创建空的头节点
      */
     private Node enqueue(Node node){
         for (;;){
             Node t = tail.get();
             if (t == null){
-                Node h = new Node();
-                h.next.set(node);
-                node.prev.set(h);
-                if (head.compareAndSet(null, h)){
-                    tail.set(node);
-                    return h;
+                if (head.compareAndSet(null, new Node())){
+                    tail.set(head.get());
                 }
             }else {
-                node.prev.set(t);
+                node.prev = t;
                 if (tail.compareAndSet(t, node)){
-                    t.next.set(node);
+                    t.next = node;
                     return t;
                 }
             }
         }
     }
 
-    private void unparkQueueNode(){
+    /**
+     * 节点之前是否只剩已取消的节点；越过的已取消前驱顺带从链上摘除
+     */
+    private boolean isFirstQueued(Node node){
+        Node h = head.get();
+        Node p = node.prev;
+        if (p == h || p == null || !p.cancelled){
+            return p == h;
+        }
+        do {
+            p = p.prev;
+        }while (p != null && p != h && p.cancelled);
+        if (p != null){
+            node.prev = p;
+            p.next = node;
+        }
+        return p == h;
+    }
+
+    private void setHead(Node node){
+        queueLength.decrementAndGet();
+        Node h = head.get();
+        head.set(node);
+        h.next = null;
+        node.prev = null;//help gc
+    }
+
+    /**
+     * 第一个未取消的等待节点：next指针为空（入队尚未完成链接）或已取消时从tail向前查找
+     */
+    private Node firstQueued(){
         Node h = head.get();
-        if (h != null && h.next.get() != null){
-            LockSupport.unpark(h.next.get().t);
+        if (h == null){
+            return null;
+        }
+        Node n = h.next;
+        if (n != null && !n.cancelled){
+            return n;
+        }
+        Node first = null;
+        for (Node p = tail.get(); p != null && p != h; p = p.prev){
+            if (!p.cancelled){
+                first = p;
+            }
+        }
+        return first;
+    }
+
+    /**
+     * 是否有排在该持有者之前的本地等待者
+     */
+    private boolean hasQueuedPredecessors(Object owner){
+        Node n = firstQueued();
+        return n != null && n.owner != owner;
+    }
+
+    private void unparkQueueNode(){
+        Node n = firstQueued();
+        if (n == null){
+            return;
+        }
+        if (n.future != null){
+            SCHEDULER.executeIo(() -> acquireAsyncNode(n));
+        }else {
+            LockSupport.unpark(n.t);
+        }
+    }
+
+    /**
+     * 队首等待者与刚获取锁的是同一owner时（共享持有），继续唤醒它重入
+     */
+    private void propagate(Object owner){
+        Node n = firstQueued();
+        if (n != null && n.owner == owner){
+            unparkQueueNode();
+        }
+    }
+
+    /**
+     * 开启埋点时返回当前时间，否则返回0，调用方据此跳过记录
+     */
+    private static long startNanos(){
+        return ALockMetricsRegistry.get().isEnabled() ? System.nanoTime() : 0;
+    }
+
+    private static void recordAcquired(long start){
+        if (start != 0){
+            ALockMetricsRegistry.get().acquired(System.nanoTime() - start);
         }
     }
 
-    private void startRetryThread(){
-        RetryLockThread t = retryLockRef.get();
-        while (t == null || t.getState() == Thread.State.TERMINATED){
-            RetryLockThread nt = new RetryLockThread(lockConfig.getMillisLease() / 10,
+    private void recordQueueWait(Node node){
+        if (node.enqueueNanos != 0){
+            ALockMetricsRegistry.get().queueWaited(lockConfig.getLockUniqueKey(), queueLength.get(),
+                System.nanoTime() - node.enqueueNanos);
+        }
+    }
+
+    private void recordGrabFailed(){
+        ALockMetrics metrics = ALockMetricsRegistry.get();
+        if (metrics.isEnabled()){
+            metrics.grabFailed(lockConfig.getLockUniqueKey(), queueLength.get());
+        }
+    }
+
+    private void recordReleased(){
+        long since = heldSinceNanos;
+        if (since != 0){
+            heldSinceNanos = 0;
+            ALockMetricsRegistry.get().released(System.nanoTime() - since);
+        }
+    }
+
+    private void startRetryTask(){
+        RetryLockTask t = retryLockRef.get();
+        while (t == null || t.isShutdown()){
+            RetryLockTask nt = new RetryLockTask(lockConfig.getMillisLease() / 10,
                     lockConfig.getMillisLease() / 5);
             retryLockRef.compareAndSet(t, nt);
             t = retryLockRef.get();
         }
         if (t.startState.compareAndSet(false, true)){
+            //先订阅再启动，收到释放通知立即唤醒；轮询仅作为丢消息时的兜底
+            if (subscribeRemoteRelease(t)){
+                t.retryIntervalInMs = lockConfig.getMillisLease() / 2;
+            }
             t.start();
         }
     }
 
-    private void shutdownRetryThread(){
-        RetryLockThread t = retryLockRef.get();
-        if (t != null && t.isAlive()){
-            t.interrupt();
+    private void shutdownRetryTask(){
+        RetryLockTask t = retryLockRef.get();
+        if (t != null){
+            t.shutdown();
         }
     }
 
-    private void startContinueLockLeaseThread(){
-        ContinueLockLeaseThread t = continueLockLeaseRef.get();
-        while (t == null || t.getState() == Thread.State.TERMINATED){
+    private void startContinueLockLeaseTask(){
+        ContinueLockLeaseTask t = continueLockLeaseRef.get();
+        while (t == null || t.isShutdown()){
             long delay = (long)(0.5 * lockConfig.getMillisLease());
             long retryInterval = (long)(0.75 * lockConfig.getMillisLease());
-            ContinueLockLeaseThread nt = new ContinueLockLeaseThread(delay, retryInterval);
+            ContinueLockLeaseTask nt = new ContinueLockLeaseTask(delay, retryInterval);
             continueLockLeaseRef.compareAndSet(t, nt);
 
             t = continueLockLeaseRef.get();
@@ -244,53 +1119,74 @@ public class DistributedReentrantLock implements ALock{
         }
     }
 
-    private void shutdownContinueLockLeaseThread(){
-        ContinueLockLeaseThread t = continueLockLeaseRef.get();
-        if (t != null && t.isAlive()){
-            t.interrupt();
+    private void shutdownContinueLockLeaseTask(){
+        ContinueLockLeaseTask t = continueLockLeaseRef.get();
+        if (t != null){
+            t.shutdown();
         }
     }
 
     /**
-     * 内置线程
+     * 内置周期任务，由进程内共享的调度器驱动，不单独占用线程
      */
-    abstract class LockThread extends Thread{
-        final Object sync = new Object();
+    abstract class LockTask implements Runnable{
         final long delayInMs;
-        final long retryIntervalInMs;
+        volatile long retryIntervalInMs;
         final AtomicBoolean startState = new AtomicBoolean(false);
-        private volatile boolean shouldShutdown = false;
-        private volatile boolean firstRunning = true;
+        private final AtomicBoolean shutdownState = new AtomicBoolean(false);
+        private volatile ALockTimeout timeout;
 
-        LockThread(String name, long delayInMs, long retryIntervalInMs){
-            setDaemon(true);
+        LockTask(long delayInMs, long retryIntervalInMs){
             this.delayInMs = delayInMs;
             this.retryIntervalInMs = retryIntervalInMs;
-            setName(name + getId());
+        }
+
+        void start(){
+            schedule(firstDelayInMs());
         }
 
         @Override
         public void run() {
-            while (!shouldShutdown){
-                try{
-                    if (firstRunning && delayInMs > 0){
-                        firstRunning = false;
-                        synchronized (sync){
-                            sync.wait(delayInMs);
-                        }
-                    }
+            if (shutdownState.get()){
+                return;
+            }
+            try{
+                execute();
+            }catch (InterruptedException e){
+                shutdown();
+                return;
+            }
+            schedule(nextDelayInMs());
+        }
 
-                    execute();
+        long firstDelayInMs(){
+            return delayInMs;
+        }
 
-                    synchronized (sync){
-                        sync.wait(retryIntervalInMs);
-                    }
-                }catch (InterruptedException e){
-                    shouldShutdown = true;
+        long nextDelayInMs(){
+            return retryIntervalInMs;
+        }
+
+        private void schedule(long delay){
+            ALockTimeout t = SCHEDULER.scheduleIo(this, delay);
+            timeout = t;
+            if (shutdownState.get()){
+                t.cancel();
+            }
+        }
+
+        void shutdown(){
+            if (shutdownState.compareAndSet(false, true)){
+                ALockTimeout t = timeout;
+                if (t != null){
+                    t.cancel();
                 }
+                beforeShutdown();
             }
+        }
 
-            beforeShutdown();
+        boolean isShutdown(){
+            return shutdownState.get();
         }
 
         abstract void execute()throws InterruptedException;
@@ -298,54 +1194,109 @@ public class DistributedReentrantLock implements ALock{
         protected void beforeShutdown(){}
     }
 
-    private class RetryLockThread extends LockThread{
-        RetryLockThread(long delayInMs, long retryIntervalInMs){
-            super("RetryLockThread", delayInMs, retryIntervalInMs);
+    private class RetryLockTask extends LockTask implements ALockReleaseListener{
+
+        RetryLockTask(long delayInMs, long retryIntervalInMs){
+            super(delayInMs, retryIntervalInMs);
         }
 
         @Override
         void execute() throws InterruptedException{
-            if (exclusiveOwnerThread.get() != null){
+            if (exclusiveOwner.get() != null){
                 throw new InterruptedException(String.format("Lock:%s has running thread.", lockConfig.getLockTarget()));
             }
-            Node h = head.get();
-            if (h == null){
+            if (firstQueued() == null){
+                onWaitAbandoned();
                 throw new InterruptedException(String.format("Lock:%s has no waiting thread.", lockConfig.getLockTarget()));
             }
             boolean needRetry = false;
             try{
-                needRetry = lockProcessor.isLockFree(lockConfig.getLockUniqueKey());
+                needRetry = isRemoteLockFree();
             }catch (ALockProcessException e){
                 needRetry = true;
             }
             if (needRetry){
+                remoteHeld = false;
                 unparkQueueNode();
             }
         }
 
+        @Override
+        long firstDelayInMs() {
+            return nextDelayInMs();
+        }
+
+        /**
+         * 已知持有者剩余租期时在其到期后重试，否则按连续失败次数指数退避；
+         * 均不超过轮询间隔（最多MAX_RETRY_POLL_MILLIS），持有者续租或通知丢失时仍能兜底，并加随机抖动避免各节点同时重试
+         */
+        @Override
+        long nextDelayInMs() {
+            long maxDelay = Math.max(1, Math.min(retryIntervalInMs, ALockConfig.MAX_RETRY_POLL_MILLIS));
+            long delay;
+            long freeIn = remoteFreeAtNanos - System.nanoTime();
+            if (remoteHeld && freeIn > 0){
+                delay = Math.min(TimeUnit.NANOSECONDS.toMillis(freeIn) + 1, maxDelay);
+            }else {
+                long base = Math.max(1, lockConfig.getMillisLease() / 100);
+                delay = Math.min(maxDelay, base << Math.min(grabFailures.get(), 10));
+            }
+            return delay + ThreadLocalRandom.current().nextLong(delay / 10 + 1);
+        }
+
+        @Override
+        public void onRelease(String lockKey) {
+            remoteHeld = false;
+            unparkQueueNode();
+        }
+
         @Override
         protected void beforeShutdown() {
+            unsubscribeRemoteRelease(this);
             retryLockRef.compareAndSet(this, null);
         }
     }
 
-    private class ContinueLockLeaseThread extends LockThread{
+    private class ContinueLockLeaseTask extends LockTask implements LeaseRenewalListener{
+        //最近一次续租请求提交的时刻，合并续租的实际发送只会更晚
+        private volatile long renewSentNanos;
 
-        ContinueLockLeaseThread(long delayInMs, long retryIntervalInMs){
-            super("ContinueLockLeaseThread", delayInMs, retryIntervalInMs);
+        ContinueLockLeaseTask(long delayInMs, long retryIntervalInMs){
+            super(delayInMs, retryIntervalInMs);
         }
 
         @Override
         void execute() throws InterruptedException {
-            try{
-                lockProcessor.expandLockExpire(lockConfig);
-            }catch (OptimisticLockingException oe){
-                throw new InterruptedException(String.format("Lock:%s has released.", lockConfig.getLockTarget()));
-            }catch (ALockProcessException e){
-                //retry
+            renewSentNanos = System.nanoTime();
+            //同一tick内到期的续租合并为一次批量请求
+            renewRemoteLock(this);
+        }
+
+        @Override
+        public void renewed() {
+            ALockMetricsRegistry.get().renewSucceeded();
+            if (continueLockLeaseRef.get() == this){
+                extendLease(renewSentNanos);
             }
         }
 
+        @Override
+        public void lost() {
+            ALockMetricsRegistry.get().leaseLost();
+            if (continueLockLeaseRef.get() == this){
+                leaseRetained.set(false);
+                expireLease();
+                onLeaseLost(exclusiveOwner.get());
+            }
+            shutdown();
+        }
+
+        @Override
+        public void failed(ALockProcessException e) {
+            ALockMetricsRegistry.get().renewFailed();
+            //retry
+        }
+
         @Override
         protected void beforeShutdown() {
             continueLockLeaseRef.compareAndSet(this, null);
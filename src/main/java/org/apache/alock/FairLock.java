@@ -0,0 +1,70 @@
+package org.apache.alock;
+
+import org.apache.alock.domain.ALockConfig;
+import org.apache.alock.exception.ALockProcessException;
+import org.apache.alock.processor.ALockFairProcessor;
+import org.apache.alock.processor.ALockProcessor;
+import org.apache.alock.processor.ALockReleaseListener;
+
+/**
+ * 公平锁：各节点的队首等待者在远程队列中登记票据，按票据先后获取锁，避免节点饥饿；
+ * 释放时只唤醒下一张票据所在的节点，每次释放的远程开销与等待节点数无关。
+ * 本地排队、续租等行为与DistributedReentrantLock一致，等待期间的轮询兼作票据刷新。
+ * @author wy
+ */
+public class FairLock extends DistributedReentrantLock {
+
+    private final ALockFairProcessor fairProcessor;
+
+    public FairLock(ALockConfig lockConfig, ALockProcessor lockProcessor){
+        super(lockConfig, lockProcessor);
+        if (!lockConfig.isFair()){
+            throw new IllegalArgumentException("lock config is not fair, key:" + lockConfig.getLockUniqueKey());
+        }
+        if (!(lockProcessor instanceof ALockFairProcessor)){
+            throw new IllegalArgumentException("lock processor does not support fair lock.");
+        }
+        this.fairProcessor = (ALockFairProcessor) lockProcessor;
+        fairProcessor.checkFairLock(lockConfig);
+    }
+
+    /**
+     * 只有本地已有等待者时才登记票据，tryLock()失败不会占用队列位置
+     */
+    @Override
+    protected long grabRemoteLock() {
+        return fairProcessor.tryGrabFairLock(getLockConfig(), hasQueuedWaiters());
+    }
+
+    @Override
+    protected void tryReleaseRemoteLock() {
+        fairProcessor.tryReleaseFairLock(getLockConfig());
+    }
+
+    /**
+     * 每次重试都会刷新票据，轮询时总是尝试抢占
+     */
+    @Override
+    protected boolean isRemoteLockFree() {
+        return true;
+    }
+
+    @Override
+    protected boolean subscribeRemoteRelease(ALockReleaseListener listener) {
+        return fairProcessor.subscribeTicket(getLockConfig(), listener);
+    }
+
+    @Override
+    protected void unsubscribeRemoteRelease(ALockReleaseListener listener) {
+        fairProcessor.unsubscribeTicket(getLockConfig(), listener);
+    }
+
+    @Override
+    protected void onWaitAbandoned() {
+        try{
+            fairProcessor.cancelTicket(getLockConfig());
+        }catch (ALockProcessException e){
+            //Ticket will expire
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package org.apache.alock;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.alock.domain.ALockConfig;
+import org.apache.alock.processor.ALockProcessor;
+import org.apache.alock.processor.ALockReleaseListener;
+import org.apache.alock.processor.ALockWatchListener;
+import org.apache.alock.processor.ALockWatchProcessor;
+import org.apache.alock.scheduler.LeaseRenewalListener;
+import org.apache.alock.scheduler.LeaseRenewer;
+
+/**
+ * 多key锁：一次脚本原子地获取全部key或全部不获取，不存在加锁顺序导致的死锁与部分持有；
+ * 续租合并为一次批量请求，释放时一起释放。
+ * 本地排队、异步、handoff等行为与DistributedReentrantLock一致，续租周期等参数取租期最短的key。
+ * @author wy
+ */
+public class MultiLock extends DistributedReentrantLock {
+
+    private final List<ALockConfig> lockConfigs;
+
+    private final ALockProcessor lockProcessor;
+
+    private final LeaseRenewer leaseRenewer;
+
+    public MultiLock(Collection<ALockConfig> lockConfigs, ALockProcessor lockProcessor){
+        this(distinct(lockConfigs), lockProcessor);
+    }
+
+    private MultiLock(List<ALockConfig> lockConfigs, ALockProcessor lockProcessor){
+        super(shortestLease(lockConfigs), lockProcessor);
+        lockProcessor.checkGrabTogether(lockConfigs);
+        this.lockConfigs = lockConfigs;
+        this.lockProcessor = lockProcessor;
+        this.leaseRenewer = LeaseRenewer.of(lockProcessor);
+    }
+
+    public List<ALockConfig> getLockConfigs() {
+        return lockConfigs;
+    }
+
+    @Override
+    protected long grabRemoteLock() {
+        return lockProcessor.tryGrabLocks(lockConfigs);
+    }
+
+    @Override
+    protected void tryReleaseRemoteLock() {
+        lockProcessor.tryReleaseLocks(lockConfigs);
+    }
+
+    @Override
+    protected void renewRemoteLock(LeaseRenewalListener listener) {
+        leaseRenewer.renew(lockConfigs, listener);
+    }
+
+    @Override
+    protected boolean isRemoteLockFree() {
+        for (ALockConfig config : lockConfigs){
+            if (!lockProcessor.isLockFree(config.getLockUniqueKey())){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    protected boolean subscribeRemoteRelease(ALockReleaseListener listener) {
+        boolean subscribed = true;
+        for (ALockConfig config : lockConfigs){
+            subscribed &= lockProcessor.subscribeRelease(config, listener);
+        }
+        return subscribed;
+    }
+
+    @Override
+    protected void unsubscribeRemoteRelease(ALockReleaseListener listener) {
+        for (ALockConfig config : lockConfigs){
+            lockProcessor.unsubscribeRelease(config, listener);
+        }
+    }
+
+    @Override
+    protected boolean watchRemoteLock(ALockWatchListener listener) {
+        if (!(lockProcessor instanceof ALockWatchProcessor)){
+            return false;
+        }
+        ALockWatchProcessor watchProcessor = (ALockWatchProcessor) lockProcessor;
+        for (ALockConfig config : lockConfigs){
+            if (!watchProcessor.watchLock(config, listener)){
+                unwatchRemoteLock(listener);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    protected void unwatchRemoteLock(ALockWatchListener listener) {
+        if (lockProcessor instanceof ALockWatchProcessor){
+            for (ALockConfig config : lockConfigs){
+                ((ALockWatchProcessor) lockProcessor).unwatchLock(config, listener);
+            }
+        }
+    }
+
+    /**
+     * 任一key不再由本节点持有即视为丢失
+     */
+    @Override
+    protected boolean isRemoteLockHeld() {
+        ALockWatchProcessor watchProcessor = (ALockWatchProcessor) lockProcessor;
+        for (ALockConfig config : lockConfigs){
+            if (!watchProcessor.isLockHeld(config)){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 按lockUniqueKey去重
+     */
+    private static List<ALockConfig> distinct(Collection<ALockConfig> lockConfigs){
+        if (lockConfigs == null || lockConfigs.isEmpty()){
+            throw new IllegalArgumentException("multi lock requires at least one lock config.");
+        }
+        Map<String, ALockConfig> configs = new LinkedHashMap<>();
+        for (ALockConfig config : lockConfigs){
+            if (!configs.containsKey(config.getLockUniqueKey())){
+                configs.put(config.getLockUniqueKey(), config);
+            }
+        }
+        return new ArrayList<>(configs.values());
+    }
+
+    private static ALockConfig shortestLease(List<ALockConfig> lockConfigs){
+        ALockConfig shortest = lockConfigs.get(0);
+        for (ALockConfig config : lockConfigs){
+            if (config.getMillisLease() < shortest.getMillisLease()){
+                shortest = config;
+            }
+        }
+        return shortest;
+    }
+}
@@ -1,9 +1,10 @@
 package org.apache.alock.domain;
 
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
-import org.apache.alock.utils.NetUtils;
 import org.apache.commons.lang.StringUtils;
 
 /**
@@ -17,48 +18,142 @@ public class ALockConfig implements Serializable {
 
     public static final String ALOCK_SEPRATOR = "_";
 
+    public static final String ALOCK_CHANNEL_PREFIX = "ALOCK_CHANNEL";
+
+    /**
+     * 等待者兜底轮询间隔的上限（毫秒）：即使已订阅释放通知或已知持有者剩余租期，也最迟在该间隔后重新检查，
+     * 避免通知丢失或持有者续租时长租期锁的等待者长时间无人唤醒
+     */
+    public static final long MAX_RETRY_POLL_MILLIS = 5000;
+
+    private static volatile LockOwnerIdStrategy defaultOwnerIdStrategy = new RandomOwnerIdStrategy();
+
     private String lockType = "DEFAULT";
 
     private String lockTarget;
 
     private String lockUniqueKey;
 
+    /**
+     * redis cluster哈希标签，相同标签的锁落在同一slot
+     */
+    private String hashTag;
+
     private int leaseTime;
 
     private TimeUnit leaseTimeUnit;
 
+    /**
+     * 持有者标识，创建配置时生成一次，而不是每次加锁生成：
+     * 同一配置多次加锁沿用同一锁值，远程锁按锁值可重入，公平锁的ticket频道、读锁的hash字段与信号量的许可id都以它为准
+     */
     private final String lockValue;
 
+    /**
+     * handoff模式：释放时远程租约转交给本地下一个等待者，或保留一段时间供本地再次获取
+     */
+    private boolean handoff;
+
+    private long handoffGraceMillis;
+
+    private long maxHandoffMillis;
+
+    private String lockChannel;
+
+    /**
+     * 公平模式：远程等待者按票据先后顺序获取锁，释放时只唤醒下一张票据的节点；
+     * redis cluster下需指定hashTag，锁key与票据队列key才能落在同一slot
+     */
+    private boolean fair;
+
+    /**
+     * 公平模式下本节点等待票据的唤醒频道
+     */
+    private String lockTicketChannel;
+
+    /**
+     * 持有期间监听锁key的keyspace通知，锁被删除、过期或覆盖时立即发现租约丢失
+     */
+    private boolean watchLease;
+
+    /**
+     * 租约丢失时中断同步持有锁的线程
+     */
+    private boolean interruptOnLeaseLost;
+
+    /**
+     * 完成异步加锁、解锁结果的执行器，调用方的后续操作在其中执行；为空时使用调度器的完成执行器
+     */
+    private transient Executor asyncExecutor;
+
+    /**
+     * 预编码的二进制参数，加锁、续租、解锁路径上不再拼接字符串
+     */
+    private byte[] lockUniqueKeyBytes;
+
+    private byte[] lockValueBytes;
+
+    private byte[] millisLeaseBytes;
+
+    private byte[] lockChannelBytes;
+
+    private byte[] lockQueueKeyBytes;
+
+    private byte[] lockTicketTimeoutKeyBytes;
+
     public ALockConfig(String lockType, String lockTarget, int leaseTime, TimeUnit leaseTimeUnit){
         this.lockType = lockType;
         this.lockTarget = lockTarget;
         this.leaseTime = leaseTime;
         this.leaseTimeUnit = leaseTimeUnit;
-        this.lockUniqueKey = ALOCK_PREFIX + ALOCK_SEPRATOR + lockType + ALOCK_SEPRATOR + StringUtils.trim(lockTarget);
-        this.lockValue = generateLockValue();
+        this.lockUniqueKey = buildUniqueKey(lockType, null, lockTarget);
+        this.lockValue = defaultOwnerIdStrategy.nextOwnerId();
+        encode();
     }
 
     public ALockConfig(String lockTarget, int leaseTime, TimeUnit leaseTimeUnit){
         this.lockTarget = lockTarget;
         this.leaseTime = leaseTime;
         this.leaseTimeUnit = leaseTimeUnit;
-        this.lockUniqueKey = ALOCK_PREFIX + ALOCK_SEPRATOR + lockType + ALOCK_SEPRATOR + StringUtils.trim(lockTarget);
-        this.lockValue = generateLockValue();
+        this.lockUniqueKey = buildUniqueKey(lockType, null, lockTarget);
+        this.lockValue = defaultOwnerIdStrategy.nextOwnerId();
+        encode();
     }
 
     public ALockConfig(Builder builder){
         this.lockType = builder.lockType;
         this.lockTarget = builder.lockTarget;
-        this.lockUniqueKey = ALOCK_PREFIX + ALOCK_SEPRATOR + lockType + ALOCK_SEPRATOR + StringUtils.trim(lockTarget);;
+        this.hashTag = builder.hashTag;
+        this.lockUniqueKey = buildUniqueKey(lockType, hashTag, lockTarget);
         this.leaseTime = builder.leaseTime;
         this.leaseTimeUnit = builder.leaseTimeUnit;
-        this.lockValue = generateLockValue();
+        this.handoff = builder.handoff;
+        this.handoffGraceMillis = builder.handoffGraceMillis;
+        this.maxHandoffMillis = builder.maxHandoffMillis;
+        this.fair = builder.fair;
+        this.watchLease = builder.watchLease;
+        this.interruptOnLeaseLost = builder.interruptOnLeaseLost;
+        this.asyncExecutor = builder.asyncExecutor;
+        this.lockValue = builder.ownerIdStrategy == null ? defaultOwnerIdStrategy.nextOwnerId()
+            : builder.ownerIdStrategy.nextOwnerId();
+        encode();
     }
 
     public static Builder builder(){
         return new Builder();
     }
 
+    /**
+     * 设置进程内默认的持有者标识生成策略，只影响之后创建的配置
+     * @param ownerIdStrategy
+     */
+    public static void setDefaultOwnerIdStrategy(LockOwnerIdStrategy ownerIdStrategy){
+        if (ownerIdStrategy == null){
+            throw new IllegalArgumentException("ownerIdStrategy must not be null.");
+        }
+        defaultOwnerIdStrategy = ownerIdStrategy;
+    }
+
     public String getLockType() {
         return lockType;
     }
@@ -71,6 +166,17 @@ public class ALockConfig implements Serializable {
         return lockUniqueKey;
     }
 
+    public String getHashTag() {
+        return hashTag;
+    }
+
+    /**
+     * 锁释放通知频道
+     */
+    public String getLockChannel() {
+        return lockChannel;
+    }
+
     public int getLeaseTime() {
         return leaseTime;
     }
@@ -90,15 +196,112 @@ public class ALockConfig implements Serializable {
         return lockValue;
     }
 
-    private String generateLockValue(){
-        return NetUtils.getLocalAddress() + "-" + Thread.currentThread().getId();
+    public boolean isHandoff() {
+        return handoff;
+    }
+
+    /**
+     * 最后一次释放后远程租约保留的时间
+     */
+    public long getHandoffGraceMillis() {
+        return handoffGraceMillis;
+    }
+
+    /**
+     * 本节点通过handoff连续持有远程租约的上限，未配置时取租期
+     */
+    public long getMaxHandoffMillis() {
+        return maxHandoffMillis > 0 ? maxHandoffMillis : getMillisLease();
+    }
+
+    public boolean isFair() {
+        return fair;
+    }
+
+    public boolean isWatchLease() {
+        return watchLease;
+    }
+
+    public boolean isInterruptOnLeaseLost() {
+        return interruptOnLeaseLost;
+    }
+
+    public Executor getAsyncExecutor() {
+        return asyncExecutor;
+    }
+
+    public String getLockTicketChannel() {
+        return lockTicketChannel;
+    }
+
+    public byte[] getLockUniqueKeyBytes() {
+        return lockUniqueKeyBytes;
+    }
+
+    public byte[] getLockValueBytes() {
+        return lockValueBytes;
+    }
+
+    public byte[] getMillisLeaseBytes() {
+        return millisLeaseBytes;
+    }
+
+    public byte[] getLockChannelBytes() {
+        return lockChannelBytes;
+    }
+
+    /**
+     * 公平模式票据队列，按入队时间排序
+     */
+    public byte[] getLockQueueKeyBytes() {
+        return lockQueueKeyBytes;
+    }
+
+    /**
+     * 公平模式票据到期时间，等待者停止刷新后票据自动失效
+     */
+    public byte[] getLockTicketTimeoutKeyBytes() {
+        return lockTicketTimeoutKeyBytes;
+    }
+
+    /**
+     * ALOCK_类型_目标，指定哈希标签时为 ALOCK_类型_{标签}_目标
+     */
+    private static String buildUniqueKey(String lockType, String hashTag, String lockTarget){
+        if (StringUtils.isBlank(hashTag)){
+            return ALOCK_PREFIX + ALOCK_SEPRATOR + lockType + ALOCK_SEPRATOR + StringUtils.trim(lockTarget);
+        }
+        return ALOCK_PREFIX + ALOCK_SEPRATOR + lockType + ALOCK_SEPRATOR + "{" + StringUtils.trim(hashTag) + "}"
+            + ALOCK_SEPRATOR + StringUtils.trim(lockTarget);
+    }
+
+    private void encode(){
+        this.lockChannel = ALOCK_CHANNEL_PREFIX + ALOCK_SEPRATOR + lockUniqueKey;
+        this.lockUniqueKeyBytes = lockUniqueKey.getBytes(StandardCharsets.UTF_8);
+        this.lockValueBytes = lockValue.getBytes(StandardCharsets.UTF_8);
+        this.millisLeaseBytes = String.valueOf(getMillisLease()).getBytes(StandardCharsets.UTF_8);
+        this.lockChannelBytes = lockChannel.getBytes(StandardCharsets.UTF_8);
+        if (fair){
+            this.lockTicketChannel = lockChannel + ALOCK_SEPRATOR + lockValue;
+            this.lockQueueKeyBytes = (lockUniqueKey + ALOCK_SEPRATOR + "QUEUE").getBytes(StandardCharsets.UTF_8);
+            this.lockTicketTimeoutKeyBytes = (lockUniqueKey + ALOCK_SEPRATOR + "TIMEOUT").getBytes(StandardCharsets.UTF_8);
+        }
     }
 
     public static class Builder{
         private String lockType = "DEFAULT";
         private String lockTarget;
+        private String hashTag;
         private int leaseTime;
         private TimeUnit leaseTimeUnit;
+        private boolean handoff;
+        private long handoffGraceMillis;
+        private long maxHandoffMillis;
+        private boolean fair;
+        private boolean watchLease;
+        private boolean interruptOnLeaseLost;
+        private LockOwnerIdStrategy ownerIdStrategy;
+        private Executor asyncExecutor;
 
         private Builder(){}
 
@@ -112,6 +315,11 @@ public class ALockConfig implements Serializable {
             return this;
         }
 
+        public Builder hashTag(String hashTag){
+            this.hashTag = hashTag;
+            return this;
+        }
+
         public Builder leaseTime(int leaseTime){
             this.leaseTime = leaseTime;
             return this;
@@ -122,6 +330,55 @@ public class ALockConfig implements Serializable {
             return this;
         }
 
+        public Builder handoff(boolean handoff){
+            this.handoff = handoff;
+            return this;
+        }
+
+        public Builder handoffGraceMillis(long handoffGraceMillis){
+            this.handoffGraceMillis = handoffGraceMillis;
+            return this;
+        }
+
+        public Builder maxHandoffMillis(long maxHandoffMillis){
+            this.maxHandoffMillis = maxHandoffMillis;
+            return this;
+        }
+
+        public Builder fair(boolean fair){
+            this.fair = fair;
+            return this;
+        }
+
+        /**
+         * 持有期间监听锁key变更，需锁处理器支持（redis开启keyspace通知），否则仍由续租发现丢失
+         */
+        public Builder watchLease(boolean watchLease){
+            this.watchLease = watchLease;
+            return this;
+        }
+
+        public Builder interruptOnLeaseLost(boolean interruptOnLeaseLost){
+            this.interruptOnLeaseLost = interruptOnLeaseLost;
+            return this;
+        }
+
+        /**
+         * 指定持有者标识生成策略，未指定时使用进程内默认策略
+         */
+        public Builder ownerIdStrategy(LockOwnerIdStrategy ownerIdStrategy){
+            this.ownerIdStrategy = ownerIdStrategy;
+            return this;
+        }
+
+        /**
+         * 指定完成异步加锁、解锁结果的执行器，调用方在后续操作中阻塞时不会占用锁的调度线程
+         */
+        public Builder asyncExecutor(Executor asyncExecutor){
+            this.asyncExecutor = asyncExecutor;
+            return this;
+        }
+
         public ALockConfig build(){
             return new ALockConfig(this);
         }
@@ -0,0 +1,16 @@
+package org.apache.alock.domain;
+
+import org.apache.alock.utils.NetUtils;
+
+/**
+ * 原有的持有者标识：本机ip-创建配置的线程id，便于从redis中直接看出持有者所在主机；
+ * 同一主机上的多个进程可能重复，仅为兼容保留
+ * @author wy
+ */
+public class HostThreadOwnerIdStrategy implements LockOwnerIdStrategy {
+
+    @Override
+    public String nextOwnerId() {
+        return NetUtils.getLocalAddress() + "-" + Thread.currentThread().getId();
+    }
+}
@@ -0,0 +1,14 @@
+package org.apache.alock.domain;
+
+/**
+ * 锁持有者标识（锁值）的生成策略，每个ALockConfig创建时生成一次，同一配置的每次加锁共用该标识
+ * @author wy
+ */
+public interface LockOwnerIdStrategy {
+
+    /**
+     * 生成新的持有者标识：需在所有进程间唯一，且只含可打印ASCII字符（会拼接进频道名与lua脚本参数）
+     * @return
+     */
+    String nextOwnerId();
+}
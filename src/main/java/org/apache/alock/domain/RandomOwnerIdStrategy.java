@@ -0,0 +1,54 @@
+package org.apache.alock.domain;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 默认的持有者标识：进程级64位随机数（首次使用时生成）加进程内递增序号，
+ * 均以base64url字符编码，通常不超过14字节。不依赖网卡与主机名，同一主机上的多个进程也不会重复
+ * @author wy
+ */
+public class RandomOwnerIdStrategy implements LockOwnerIdStrategy {
+
+    private static final char[] DIGITS =
+        "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".toCharArray();
+
+    /**
+     * 进程标识的编码长度（64位，每字符6位）
+     */
+    private static final int PROCESS_ID_LENGTH = 11;
+
+    /**
+     * 与进程标识同为进程级，多个策略实例共用，避免生成相同的标识
+     */
+    private static final AtomicLong SEQUENCE = new AtomicLong(0);
+
+    @Override
+    public String nextOwnerId() {
+        StringBuilder sb = new StringBuilder(PROCESS_ID_LENGTH + 4);
+        sb.append(ProcessIdHolder.PROCESS_ID);
+        //进程标识定长，序号变长追加即可保证唯一
+        long n = SEQUENCE.incrementAndGet();
+        do {
+            sb.append(DIGITS[(int) (n & 63)]);
+            n >>>= 6;
+        }while (n != 0);
+        return sb.toString();
+    }
+
+    /**
+     * 首次生成标识时才初始化随机源
+     */
+    private static class ProcessIdHolder{
+        static final String PROCESS_ID = encode(new SecureRandom().nextLong());
+
+        private static String encode(long id){
+            char[] chars = new char[PROCESS_ID_LENGTH];
+            for (int i = 0; i < PROCESS_ID_LENGTH; i++){
+                chars[i] = DIGITS[(int) (id & 63)];
+                id >>>= 6;
+            }
+            return new String(chars);
+        }
+    }
+}
@@ -32,4 +32,12 @@ public class OptimisticLockingException extends RuntimeException{
     public OptimisticLockingException(String message) {
         super(message);
     }
+
+    /**
+     * 竞争失败属于预期情况，不填充调用栈
+     */
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
 }
@@ -38,4 +38,12 @@ public class RedisProcessException extends ALockProcessException{
     public RedisProcessException(Throwable cause) {
         super(cause);
     }
+
+    /**
+     * 底层异常的调用栈由cause携带，自身不再填充
+     */
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
 }
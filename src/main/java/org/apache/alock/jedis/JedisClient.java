@@ -4,12 +4,15 @@ import java.util.List;
 
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.exceptions.JedisDataException;
 
 /**
  * redis
  * @author wy
  */
-public class JedisClient {
+public class JedisClient implements RedisClient {
+
+    private static final String NO_SCRIPT = "NOSCRIPT";
 
     private final JedisPool jedisPool;
 
@@ -23,6 +26,7 @@ public class JedisClient {
      * @param key
      * @return
      */
+    @Override
     public String get(String key) {
         try(Jedis jedis = jedisPool.getResource()) {
             return jedis.get(key);
@@ -39,12 +43,53 @@ public class JedisClient {
      * @param time
      * @return
      */
+    @Override
     public String set(String key, String value, String nxxx, String expx, long time) {
         try(Jedis jedis = jedisPool.getResource()){
             return jedis.set(key, value, nxxx, expx, time);
         }
     }
 
+    /**
+     * Binary string set command
+     *
+     * @param key
+     * @param value
+     * @param nxxx
+     * @param expx
+     * @param time
+     * @return
+     */
+    @Override
+    public String set(byte[] key, byte[] value, byte[] nxxx, byte[] expx, long time) {
+        try(Jedis jedis = jedisPool.getResource()){
+            return jedis.set(key, value, nxxx, expx, time);
+        }
+    }
+
+    /**
+     * Eval cached lua script by sha1, load it when redis answers NOSCRIPT
+     *
+     * @param script
+     * @param keys
+     * @param args
+     * @return
+     */
+    @Override
+    public Object evalsha(LuaScript script, List<byte[]> keys, List<byte[]> args) {
+        try(Jedis jedis = jedisPool.getResource()){
+            try{
+                return jedis.evalsha(script.getSha1(), keys, args);
+            }catch (JedisDataException e){
+                if (e.getMessage() == null || !e.getMessage().startsWith(NO_SCRIPT)){
+                    throw e;
+                }
+            }
+            jedis.scriptLoad(script.getScriptBytes());
+            return jedis.evalsha(script.getSha1(), keys, args);
+        }
+    }
+
     /**
      * Eval lua script command
      *
@@ -53,6 +98,7 @@ public class JedisClient {
      * @param args
      * @return
      */
+    @Override
     public Object eval(String script, List<String> keys, List<String> args) {
         try(Jedis jedis = jedisPool.getResource()){
             return jedis.eval(script, keys, args);
@@ -65,9 +111,59 @@ public class JedisClient {
      * @param key
      * @return
      */
+    @Override
     public Long del(String key) {
         try(Jedis jedis = jedisPool.getResource()){
             return jedis.del(key);
         }
     }
+
+    /**
+     * Subscribe channel on the shared subscriber connection of the pool
+     *
+     * @param channel
+     * @param listener
+     */
+    @Override
+    public void subscribe(String channel, JedisMessageListener listener) {
+        JedisSubscriber.of(jedisPool).subscribe(channel, listener);
+    }
+
+    /**
+     * Unsubscribe channel
+     *
+     * @param channel
+     * @param listener
+     */
+    @Override
+    public void unsubscribe(String channel, JedisMessageListener listener) {
+        JedisSubscriber.of(jedisPool).unsubscribe(channel, listener);
+    }
+
+    @Override
+    public boolean supportsKeyspaceNotifications() {
+        return true;
+    }
+
+    /**
+     * Subscribe keyspace notifications on the shared subscriber connection of the pool
+     *
+     * @param keyPattern
+     * @param listener
+     */
+    @Override
+    public void subscribeKeyspace(String keyPattern, JedisMessageListener listener) {
+        JedisSubscriber.of(jedisPool).subscribeKeyspace(keyPattern, listener);
+    }
+
+    /**
+     * Unsubscribe keyspace notifications
+     *
+     * @param keyPattern
+     * @param listener
+     */
+    @Override
+    public void unsubscribeKeyspace(String keyPattern, JedisMessageListener listener) {
+        JedisSubscriber.of(jedisPool).unsubscribeKeyspace(keyPattern, listener);
+    }
 }
@@ -0,0 +1,131 @@
+package org.apache.alock.jedis;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+/**
+ * redis cluster，命令按key所在slot路由，MOVED/ASK时由JedisCluster刷新slot映射并重定向
+ * @author wy
+ */
+public class JedisClusterClient implements RedisClient {
+
+    private static final String NO_SCRIPT = "NOSCRIPT";
+
+    private final JedisCluster jedisCluster;
+
+    private volatile JedisSubscriber subscriber;
+
+    public JedisClusterClient(JedisCluster jedisCluster){
+        this.jedisCluster = jedisCluster;
+    }
+
+    @Override
+    public String get(String key) {
+        return jedisCluster.get(key);
+    }
+
+    @Override
+    public String set(String key, String value, String nxxx, String expx, long time) {
+        return jedisCluster.set(key, value, nxxx, expx, time);
+    }
+
+    @Override
+    public String set(byte[] key, byte[] value, byte[] nxxx, byte[] expx, long time) {
+        return jedisCluster.set(key, value, nxxx, expx, time);
+    }
+
+    /**
+     * 脚本按第一个key所在节点加载，故障转移后新主节点没有脚本时同样按NOSCRIPT重新加载
+     */
+    @Override
+    public Object evalsha(LuaScript script, List<byte[]> keys, List<byte[]> args) {
+        try{
+            return jedisCluster.evalsha(script.getSha1(), keys, args);
+        }catch (JedisDataException e){
+            if (e.getMessage() == null || !e.getMessage().startsWith(NO_SCRIPT)){
+                throw e;
+            }
+        }
+        jedisCluster.scriptLoad(script.getScriptBytes(), keys.get(0));
+        return jedisCluster.evalsha(script.getSha1(), keys, args);
+    }
+
+    @Override
+    public Object eval(String script, List<String> keys, List<String> args) {
+        return jedisCluster.eval(script, keys, args);
+    }
+
+    @Override
+    public Long del(String key) {
+        return jedisCluster.del(key);
+    }
+
+    /**
+     * 集群中PUBLISH会广播到所有节点，订阅任意一个节点即可；订阅连接失败后换一个节点重连
+     */
+    @Override
+    public void subscribe(String channel, JedisMessageListener listener) {
+        subscriber().subscribe(channel, listener);
+    }
+
+    @Override
+    public void unsubscribe(String channel, JedisMessageListener listener) {
+        subscriber().unsubscribe(channel, listener);
+    }
+
+    /**
+     * keyspace通知只在key所在节点发出、不会广播，单个订阅连接收不全，集群模式下不支持
+     */
+    @Override
+    public boolean supportsKeyspaceNotifications() {
+        return false;
+    }
+
+    @Override
+    public void subscribeKeyspace(String keyPattern, JedisMessageListener listener) {
+        throw new UnsupportedOperationException("keyspace notifications are node local in redis cluster.");
+    }
+
+    @Override
+    public void unsubscribeKeyspace(String keyPattern, JedisMessageListener listener) {
+    }
+
+    private JedisSubscriber subscriber(){
+        JedisSubscriber sub = subscriber;
+        if (sub == null){
+            synchronized (this){
+                if (subscriber == null){
+                    subscriber = JedisSubscriber.of(new JedisSubscriber.NodeSelector() {
+                        @Override
+                        public JedisPool select(JedisPool failed) {
+                            return selectNode(jedisCluster.getClusterNodes().values(), failed);
+                        }
+                    });
+                }
+                sub = subscriber;
+            }
+        }
+        return sub;
+    }
+
+    /**
+     * 随机选择订阅节点，有其他节点时避开上次失败的节点
+     */
+    static JedisPool selectNode(Collection<JedisPool> nodes, JedisPool failed){
+        List<JedisPool> candidates = new ArrayList<>(nodes);
+        if (candidates.size() > 1){
+            candidates.remove(failed);
+        }
+        if (candidates.isEmpty()){
+            throw new JedisConnectionException("no reachable node in redis cluster.");
+        }
+        return candidates.get(ThreadLocalRandom.current().nextInt(candidates.size()));
+    }
+}
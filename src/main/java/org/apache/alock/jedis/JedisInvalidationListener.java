@@ -0,0 +1,25 @@
+package org.apache.alock.jedis;
+
+/**
+ * key失效通知回调
+ * @author wy
+ */
+public interface JedisInvalidationListener {
+
+    /**
+     * key已被修改或删除
+     * @param key
+     */
+    void onInvalidate(String key);
+
+    /**
+     * 全部key失效（如FLUSHALL）
+     */
+    void onInvalidateAll();
+
+    /**
+     * 跟踪状态变化，跟踪中断期间可能丢失失效通知
+     * @param tracking
+     */
+    void onTrackingChanged(boolean tracking);
+}
@@ -0,0 +1,202 @@
+package org.apache.alock.jedis;
+
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.alock.scheduler.ALockScheduler;
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Protocol;
+import redis.clients.util.SafeEncoder;
+
+/**
+ * 基于CLIENT TRACKING的key失效通知（需要redis 6.0+）。
+ * jedis只支持RESP2，因此使用重定向模式：一个连接订阅__redis__:invalidate，
+ * 另一个连接以BCAST模式开启对指定前缀的跟踪并把失效消息重定向到订阅连接。
+ * 任一连接断开都会通知跟踪中断并自动重连。
+ * @author wy
+ */
+public class JedisInvalidationTracker {
+    private static final Logger LOG = LoggerFactory.getLogger(JedisInvalidationTracker.class);
+
+    private static final String INVALIDATE_CHANNEL = "__redis__:invalidate";
+
+    private static final long RECONNECT_INTERVAL_MS = 1000L;
+
+    private static final long HEALTH_CHECK_INTERVAL_MS = 1000L;
+
+    private final String host;
+
+    private final int port;
+
+    private final String password;
+
+    private final String prefix;
+
+    private final JedisInvalidationListener listener;
+
+    private volatile JedisRawConnection subscriber;
+
+    private volatile JedisRawConnection tracker;
+
+    private volatile boolean tracking;
+
+    private volatile boolean closed;
+
+    //保护跟踪连接的收发与断开；健康检查运行在调度线程（Java 21+上为虚拟线程）中，
+    //持有期间会阻塞等待网络应答，使用ReentrantLock而不是synchronized，避免虚拟线程钉住载体线程
+    private final ReentrantLock connectionLock = new ReentrantLock();
+
+    private final Runnable healthCheckTask = new Runnable() {
+        @Override
+        public void run() {
+            healthCheck();
+        }
+    };
+
+    public JedisInvalidationTracker(String host, int port, String password, String prefix,
+                                    JedisInvalidationListener listener){
+        this.host = host;
+        this.port = port;
+        this.password = password;
+        this.prefix = prefix;
+        this.listener = listener;
+    }
+
+    public void start(){
+        Thread t = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                trackLoop();
+            }
+        });
+        t.setDaemon(true);
+        t.setName("ALockInvalidationTracker" + t.getId());
+        t.start();
+        ALockScheduler.getInstance().scheduleIo(healthCheckTask, HEALTH_CHECK_INTERVAL_MS);
+    }
+
+    public void close(){
+        closed = true;
+        disconnect();
+    }
+
+    public boolean isTracking() {
+        return tracking;
+    }
+
+    private void trackLoop(){
+        while (!closed){
+            try{
+                subscriber = connect();
+                subscriber.send(Protocol.Command.CLIENT, "ID");
+                long clientId = subscriber.getIntegerReply();
+                subscriber.send(Protocol.Command.SUBSCRIBE, INVALIDATE_CHANNEL);
+                subscriber.setTimeoutInfinite();
+                readLoop(clientId);
+            }catch (Exception e){
+                if (!closed){
+                    LOG.warn("invalidation tracking lost, reconnect after {}ms", RECONNECT_INTERVAL_MS, e);
+                }
+            }finally {
+                setTracking(false);
+                disconnect();
+            }
+            try{
+                Thread.sleep(RECONNECT_INTERVAL_MS);
+            }catch (InterruptedException e){
+                return;
+            }
+        }
+    }
+
+    private void readLoop(long clientId){
+        for (;;){
+            List<Object> reply = subscriber.getRawObjectMultiBulkReply();
+            String type = SafeEncoder.encode((byte[]) reply.get(0));
+            if ("subscribe".equals(type)){
+                //订阅生效后再开启跟踪，之后的修改都能收到失效消息
+                JedisRawConnection t = connect();
+                connectionLock.lock();
+                try{
+                    tracker = t;
+                    t.send(Protocol.Command.CLIENT, "TRACKING", "on", "REDIRECT", String.valueOf(clientId),
+                        "BCAST", "PREFIX", prefix);
+                    t.getStatusCodeReply();
+                }finally {
+                    connectionLock.unlock();
+                }
+                setTracking(true);
+            }else if ("message".equals(type)){
+                Object keys = reply.get(2);
+                if (keys instanceof List){
+                    for (Object key : (List<?>) keys){
+                        listener.onInvalidate(SafeEncoder.encode((byte[]) key));
+                    }
+                }else {
+                    listener.onInvalidateAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * 跟踪连接断开后redis不再发送失效消息，定期探测，失败时断开订阅连接触发重连
+     */
+    private void healthCheck(){
+        if (closed){
+            return;
+        }
+        if (tracking){
+            try{
+                connectionLock.lock();
+                try{
+                    tracker.send(Protocol.Command.PING);
+                    tracker.getStatusCodeReply();
+                }finally {
+                    connectionLock.unlock();
+                }
+            }catch (Exception e){
+                LOG.warn("invalidation tracking connection broken", e);
+                setTracking(false);
+                disconnect();
+            }
+        }
+        ALockScheduler.getInstance().scheduleIo(healthCheckTask, HEALTH_CHECK_INTERVAL_MS);
+    }
+
+    private JedisRawConnection connect(){
+        JedisRawConnection connection = new JedisRawConnection(host, port);
+        connection.connect();
+        if (StringUtils.isNotEmpty(password)){
+            connection.send(Protocol.Command.AUTH, password);
+            connection.getStatusCodeReply();
+        }
+        return connection;
+    }
+
+    private void setTracking(boolean tracking){
+        if (this.tracking != tracking){
+            this.tracking = tracking;
+            listener.onTrackingChanged(tracking);
+        }
+    }
+
+    private void disconnect(){
+        connectionLock.lock();
+        try{
+            JedisRawConnection s = subscriber;
+            if (s != null){
+                s.disconnect();
+            }
+            JedisRawConnection t = tracker;
+            if (t != null){
+                t.disconnect();
+                tracker = null;
+            }
+        }finally {
+            connectionLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package org.apache.alock.jedis;
+
+/**
+ * redis频道消息监听
+ * @author wy
+ */
+public interface JedisMessageListener {
+
+    /**
+     * 收到频道消息
+     * @param channel
+     * @param message
+     */
+    void onMessage(String channel, String message);
+}
@@ -0,0 +1,371 @@
+package org.apache.alock.jedis;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Client;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.util.SafeEncoder;
+
+/**
+ * 多路复用的redis客户端：所有线程、所有锁的命令进入同一队列，由少量专用连接批量写出（pipeline），
+ * 按顺序读取回复并唤醒各调用方。一次往返完成一批命令，吞吐不再受连接池大小与单命令往返时间限制。
+ * 首个命令入队后最多等待flushIntervalMicros再写出，为0时只合并已排队的命令。
+ * 等待回复超时只代表调用方放弃等待：已写出的命令仍可能在redis执行，写命令超时后的结果未知。
+ * @author wy
+ */
+public class JedisPipelinedClient implements RedisClient {
+    private static final Logger LOG = LoggerFactory.getLogger(JedisPipelinedClient.class);
+
+    private static final String NO_SCRIPT = "NOSCRIPT";
+
+    private final JedisPool jedisPool;
+
+    private final BlockingQueue<Command> commands = new LinkedBlockingQueue<>();
+
+    private final int maxBatchSize;
+
+    private final long flushIntervalNanos;
+
+    private final long timeoutMillis;
+
+    public JedisPipelinedClient(JedisPool jedisPool, int connections, int maxBatchSize, long flushIntervalMicros,
+                                long timeoutMillis){
+        this.jedisPool = jedisPool;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.flushIntervalNanos = TimeUnit.MICROSECONDS.toNanos(flushIntervalMicros);
+        this.timeoutMillis = timeoutMillis;
+        for (int i = 0; i < connections; i++){
+            Thread t = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    flushLoop();
+                }
+            });
+            t.setDaemon(true);
+            t.setName("ALockPipeline" + t.getId());
+            t.start();
+        }
+    }
+
+    @Override
+    public String get(final String key) {
+        return (String) execute(new Command() {
+            @Override
+            void send(Client client) {
+                client.get(key);
+            }
+
+            @Override
+            Object convert(Object reply) {
+                return reply == null ? null : SafeEncoder.encode((byte[]) reply);
+            }
+        });
+    }
+
+    @Override
+    public String set(final String key, final String value, final String nxxx, final String expx, final long time) {
+        return (String) execute(new Command() {
+            @Override
+            void send(Client client) {
+                client.set(key, value, nxxx, expx, time);
+            }
+
+            @Override
+            Object convert(Object reply) {
+                return reply == null ? null : SafeEncoder.encode((byte[]) reply);
+            }
+        });
+    }
+
+    @Override
+    public String set(final byte[] key, final byte[] value, final byte[] nxxx, final byte[] expx, final long time) {
+        return (String) execute(new Command() {
+            @Override
+            void send(Client client) {
+                client.set(key, value, nxxx, expx, time);
+            }
+
+            @Override
+            Object convert(Object reply) {
+                return reply == null ? null : SafeEncoder.encode((byte[]) reply);
+            }
+        });
+    }
+
+    /**
+     * 回复NOSCRIPT时在同一连接上加载脚本后重试
+     */
+    @Override
+    public Object evalsha(final LuaScript script, List<byte[]> keys, List<byte[]> args) {
+        final int keyCount = keys.size();
+        final byte[][] params = new byte[keyCount + args.size()][];
+        int i = 0;
+        for (byte[] key : keys){
+            params[i++] = key;
+        }
+        for (byte[] arg : args){
+            params[i++] = arg;
+        }
+        return execute(new Command() {
+            @Override
+            void send(Client client) {
+                client.evalsha(script.getSha1(), keyCount, params);
+            }
+
+            @Override
+            LuaScript script() {
+                return script;
+            }
+        });
+    }
+
+    @Override
+    public Object eval(final String script, List<String> keys, List<String> args) {
+        final int keyCount = keys.size();
+        final String[] params = new String[keyCount + args.size()];
+        int i = 0;
+        for (String key : keys){
+            params[i++] = key;
+        }
+        for (String arg : args){
+            params[i++] = arg;
+        }
+        return execute(new Command() {
+            @Override
+            void send(Client client) {
+                client.eval(script, keyCount, params);
+            }
+
+            @Override
+            Object convert(Object reply) {
+                return evalResult(reply);
+            }
+        });
+    }
+
+    @Override
+    public Long del(final String key) {
+        return (Long) execute(new Command() {
+            @Override
+            void send(Client client) {
+                client.del(key);
+            }
+        });
+    }
+
+    @Override
+    public void subscribe(String channel, JedisMessageListener listener) {
+        JedisSubscriber.of(jedisPool).subscribe(channel, listener);
+    }
+
+    @Override
+    public void unsubscribe(String channel, JedisMessageListener listener) {
+        JedisSubscriber.of(jedisPool).unsubscribe(channel, listener);
+    }
+
+    @Override
+    public boolean supportsKeyspaceNotifications() {
+        return true;
+    }
+
+    @Override
+    public void subscribeKeyspace(String keyPattern, JedisMessageListener listener) {
+        JedisSubscriber.of(jedisPool).subscribeKeyspace(keyPattern, listener);
+    }
+
+    @Override
+    public void unsubscribeKeyspace(String keyPattern, JedisMessageListener listener) {
+        JedisSubscriber.of(jedisPool).unsubscribeKeyspace(keyPattern, listener);
+    }
+
+    /**
+     * 当前排队等待写出的命令数
+     */
+    public int getQueueDepth(){
+        return commands.size();
+    }
+
+    /**
+     * 入队并等待回复。超时抛出JedisConnectionException，但命令可能已经写出并在redis执行（如加锁的EVALSHA），
+     * 调用方应把超时视为结果未知而非失败，例如对加锁按锁值补一次释放
+     */
+    private Object execute(Command command){
+        commands.add(command);
+        try{
+            return command.future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        }catch (ExecutionException e){
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException){
+                throw (RuntimeException) cause;
+            }
+            throw new JedisException(cause);
+        }catch (TimeoutException e){
+            command.future.cancel(false);
+            throw new JedisConnectionException("pipelined command timeout after " + timeoutMillis + "ms", e);
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new JedisException(e);
+        }
+    }
+
+    private void flushLoop(){
+        List<Command> batch = new ArrayList<>(maxBatchSize);
+        Jedis jedis = null;
+        for (;;){
+            try{
+                batch.add(commands.take());
+                collect(batch);
+            }catch (InterruptedException e){
+                return;
+            }
+            try{
+                if (jedis == null){
+                    jedis = jedisPool.getResource();
+                }
+                flush(jedis.getClient(), batch);
+            }catch (Exception e){
+                LOG.warn("pipeline flush error, batch size:" + batch.size(), e);
+                for (Command command : batch){
+                    command.future.completeExceptionally(e);
+                }
+                //连接上可能残留未读回复，断开后归还，下次重新获取
+                if (jedis != null){
+                    jedis.getClient().resetPipelinedCount();
+                    jedis.getClient().disconnect();
+                    jedis.close();
+                    jedis = null;
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    private void collect(List<Command> batch) throws InterruptedException {
+        if (flushIntervalNanos <= 0){
+            commands.drainTo(batch, maxBatchSize - batch.size());
+            return;
+        }
+        long deadline = System.nanoTime() + flushIntervalNanos;
+        while (batch.size() < maxBatchSize){
+            Command command = commands.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (command == null){
+                return;
+            }
+            batch.add(command);
+        }
+    }
+
+    private void flush(Client client, List<Command> batch){
+        List<Command> sent = new ArrayList<>(batch.size());
+        for (Command command : batch){
+            //调用方已超时放弃的命令不再发送
+            if (!command.future.isDone()){
+                command.send(client);
+                sent.add(command);
+            }
+        }
+        if (sent.isEmpty()){
+            return;
+        }
+        List<Object> replies = client.getAll();
+        List<Command> noScript = null;
+        for (int i = 0; i < sent.size(); i++){
+            Command command = sent.get(i);
+            Object reply = replies.get(i);
+            if (isNoScript(reply) && command.script() != null){
+                if (noScript == null){
+                    noScript = new ArrayList<>();
+                }
+                noScript.add(command);
+            }else {
+                command.complete(reply);
+            }
+        }
+        if (noScript != null){
+            retryNoScript(client, noScript);
+        }
+    }
+
+    private void retryNoScript(Client client, List<Command> noScript){
+        Map<LuaScript, Boolean> scripts = new IdentityHashMap<>();
+        for (Command command : noScript){
+            if (scripts.put(command.script(), Boolean.TRUE) == null){
+                client.scriptLoad(command.script().getScriptBytes());
+            }
+        }
+        for (Command command : noScript){
+            command.send(client);
+        }
+        List<Object> replies = client.getAll();
+        int i = scripts.size();
+        for (Command command : noScript){
+            command.complete(replies.get(i++));
+        }
+    }
+
+    private static boolean isNoScript(Object reply){
+        if (!(reply instanceof JedisDataException)){
+            return false;
+        }
+        String message = ((JedisDataException) reply).getMessage();
+        return message != null && message.startsWith(NO_SCRIPT);
+    }
+
+    private static Object evalResult(Object reply){
+        if (reply instanceof byte[]){
+            return SafeEncoder.encode((byte[]) reply);
+        }
+        if (reply instanceof List<?>){
+            List<?> list = (List<?>) reply;
+            List<Object> result = new ArrayList<>(list.size());
+            for (Object o : list){
+                result.add(evalResult(o));
+            }
+            return result;
+        }
+        return reply;
+    }
+
+    /**
+     * 排队中的命令
+     */
+    private abstract static class Command{
+        final CompletableFuture<Object> future = new CompletableFuture<>();
+
+        abstract void send(Client client);
+
+        Object convert(Object reply){
+            return reply;
+        }
+
+        /**
+         * EVALSHA命令对应的脚本，用于NOSCRIPT时重试
+         */
+        LuaScript script(){
+            return null;
+        }
+
+        void complete(Object reply){
+            if (reply instanceof JedisDataException){
+                future.completeExceptionally((JedisDataException) reply);
+            }else {
+                future.complete(convert(reply));
+            }
+        }
+    }
+}
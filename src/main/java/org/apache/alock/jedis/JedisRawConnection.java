@@ -0,0 +1,25 @@
+package org.apache.alock.jedis;
+
+import redis.clients.jedis.Connection;
+import redis.clients.jedis.Protocol;
+
+/**
+ * 可发送任意命令的独立连接，用于jedis未提供的命令（如CLIENT TRACKING），不经过连接池
+ * @author wy
+ */
+public class JedisRawConnection extends Connection {
+
+    public JedisRawConnection(String host, int port){
+        super(host, port);
+    }
+
+    /**
+     * 发送命令并立即写出，调用方随后读取对应回复
+     * @param command
+     * @param args
+     */
+    public void send(Protocol.Command command, String... args){
+        sendCommand(command, args);
+        flush();
+    }
+}
@@ -0,0 +1,297 @@
+package org.apache.alock.jedis;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPubSub;
+
+/**
+ * 每个JedisPool共享一个订阅连接，按频道（或频道模式）分发消息给本地监听者。
+ * 也可由NodeSelector选择订阅节点（如redis cluster），连接失败后重新选择
+ * @author wy
+ */
+public class JedisSubscriber {
+    private static final Logger LOG = LoggerFactory.getLogger(JedisSubscriber.class);
+
+    /**
+     * 订阅连接至少保持订阅一个频道，否则redis会退出订阅模式
+     */
+    private static final String KEEPALIVE_CHANNEL = "ALOCK_CHANNEL_KEEPALIVE";
+
+    private static final long RECONNECT_INTERVAL_MS = 1000L;
+
+    /**
+     * keyspace通知频道前缀，不区分db
+     */
+    private static final String KEYSPACE_PATTERN_PREFIX = "__keyspace@*__:";
+
+    private static final ConcurrentMap<JedisPool, JedisSubscriber> SUBSCRIBERS = new ConcurrentHashMap<>();
+
+    private volatile JedisPool jedisPool;
+
+    private final NodeSelector nodeSelector;
+
+    private final ConcurrentMap<String, Set<JedisMessageListener>> listeners = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Set<JedisMessageListener>> patternListeners = new ConcurrentHashMap<>();
+
+    private final PubSub pubSub = new PubSub();
+
+    //串行化订阅命令的写出；订阅常由重试任务发起，写socket时不持有监视器，避免在虚拟线程上pin住载体线程
+    private final ReentrantLock pubSubLock = new ReentrantLock();
+
+    private volatile Thread worker;
+
+    private JedisSubscriber(JedisPool jedisPool, NodeSelector nodeSelector){
+        this.jedisPool = jedisPool;
+        this.nodeSelector = nodeSelector;
+    }
+
+    /**
+     * 订阅节点的选择策略
+     */
+    public interface NodeSelector{
+        /**
+         * 选择订阅连接所在的节点
+         * @param failed 上次连接失败的节点，首次选择时为null
+         * @return
+         */
+        JedisPool select(JedisPool failed);
+    }
+
+    /**
+     * 获取JedisPool对应的订阅者
+     * @param jedisPool
+     * @return
+     */
+    public static JedisSubscriber of(JedisPool jedisPool){
+        JedisSubscriber subscriber = SUBSCRIBERS.get(jedisPool);
+        if (subscriber == null){
+            SUBSCRIBERS.putIfAbsent(jedisPool, new JedisSubscriber(jedisPool, null));
+            subscriber = SUBSCRIBERS.get(jedisPool);
+        }
+        return subscriber;
+    }
+
+    /**
+     * 创建由nodeSelector选择节点的订阅者，不在进程内共享，由调用方持有
+     * @param nodeSelector
+     * @return
+     */
+    public static JedisSubscriber of(NodeSelector nodeSelector){
+        return new JedisSubscriber(null, nodeSelector);
+    }
+
+    /**
+     * 订阅频道
+     * @param channel
+     * @param listener
+     */
+    public void subscribe(String channel, JedisMessageListener listener){
+        Set<JedisMessageListener> channelListeners = listeners.get(channel);
+        if (channelListeners == null){
+            listeners.putIfAbsent(channel, new CopyOnWriteArraySet<JedisMessageListener>());
+            channelListeners = listeners.get(channel);
+        }
+        channelListeners.add(listener);
+
+        ensureWorker();
+        pubSubLock.lock();
+        try{
+            if (pubSub.isSubscribed()){
+                pubSub.subscribe(channel);
+            }
+        }finally {
+            pubSubLock.unlock();
+        }
+    }
+
+    /**
+     * 取消订阅
+     * @param channel
+     * @param listener
+     */
+    public void unsubscribe(String channel, JedisMessageListener listener){
+        Set<JedisMessageListener> channelListeners = listeners.get(channel);
+        if (channelListeners == null){
+            return;
+        }
+        channelListeners.remove(listener);
+        if (channelListeners.isEmpty() && listeners.remove(channel, channelListeners)){
+            pubSubLock.lock();
+            try{
+                if (pubSub.isSubscribed()){
+                    pubSub.unsubscribe(channel);
+                }
+            }finally {
+                pubSubLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 订阅匹配keyPattern的key的keyspace通知，消息为事件名（如set、del、expired）；
+     * 需要redis开启notify-keyspace-events
+     * @param keyPattern
+     * @param listener
+     */
+    public void subscribeKeyspace(String keyPattern, JedisMessageListener listener){
+        String pattern = KEYSPACE_PATTERN_PREFIX + keyPattern;
+        Set<JedisMessageListener> listenersOfPattern = patternListeners.get(pattern);
+        if (listenersOfPattern == null){
+            patternListeners.putIfAbsent(pattern, new CopyOnWriteArraySet<JedisMessageListener>());
+            listenersOfPattern = patternListeners.get(pattern);
+        }
+        listenersOfPattern.add(listener);
+
+        ensureWorker();
+        pubSubLock.lock();
+        try{
+            if (pubSub.isSubscribed()){
+                pubSub.psubscribe(pattern);
+            }
+        }finally {
+            pubSubLock.unlock();
+        }
+    }
+
+    /**
+     * 取消keyspace通知订阅
+     * @param keyPattern
+     * @param listener
+     */
+    public void unsubscribeKeyspace(String keyPattern, JedisMessageListener listener){
+        String pattern = KEYSPACE_PATTERN_PREFIX + keyPattern;
+        Set<JedisMessageListener> listenersOfPattern = patternListeners.get(pattern);
+        if (listenersOfPattern == null){
+            return;
+        }
+        listenersOfPattern.remove(listener);
+        if (listenersOfPattern.isEmpty() && patternListeners.remove(pattern, listenersOfPattern)){
+            pubSubLock.lock();
+            try{
+                if (pubSub.isSubscribed()){
+                    pubSub.punsubscribe(pattern);
+                }
+            }finally {
+                pubSubLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * keyspace通知频道中的key
+     * @param channel
+     * @return
+     */
+    public static String keyspaceKey(String channel){
+        int idx = channel.indexOf("__:");
+        return idx < 0 ? channel : channel.substring(idx + 3);
+    }
+
+    private void ensureWorker(){
+        if (worker != null){
+            return;
+        }
+        synchronized (this){
+            if (worker == null){
+                Thread t = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        subscribeLoop();
+                    }
+                });
+                t.setDaemon(true);
+                t.setName("ALockSubscriber" + t.getId());
+                t.start();
+                worker = t;
+            }
+        }
+    }
+
+    private void subscribeLoop(){
+        JedisPool failed = null;
+        for (;;){
+            try{
+                JedisPool pool = jedisPool;
+                if (pool == null){
+                    pool = nodeSelector.select(failed);
+                    jedisPool = pool;
+                }
+                try(Jedis jedis = pool.getResource()){
+                    jedis.subscribe(pubSub, KEEPALIVE_CHANNEL);
+                }
+            }catch (Exception e){
+                LOG.warn("subscriber connection lost, reconnect after {}ms", RECONNECT_INTERVAL_MS, e);
+                if (nodeSelector != null){
+                    //重连时重新选择节点，避开失败的节点
+                    failed = jedisPool;
+                    jedisPool = null;
+                }
+            }
+            try{
+                Thread.sleep(RECONNECT_INTERVAL_MS);
+            }catch (InterruptedException e){
+                return;
+            }
+        }
+    }
+
+    private class PubSub extends JedisPubSub{
+
+        @Override
+        public void onSubscribe(String channel, int subscribedChannels) {
+            if (KEEPALIVE_CHANNEL.equals(channel)){
+                //连接建立（或重连）后补订阅所有频道
+                pubSubLock.lock();
+                try{
+                    for (String c : listeners.keySet()){
+                        subscribe(c);
+                    }
+                    if (!patternListeners.isEmpty()){
+                        psubscribe(patternListeners.keySet().toArray(new String[0]));
+                    }
+                }finally {
+                    pubSubLock.unlock();
+                }
+            }
+        }
+
+        @Override
+        public void onMessage(String channel, String message) {
+            Set<JedisMessageListener> channelListeners = listeners.get(channel);
+            if (channelListeners == null){
+                return;
+            }
+            for (JedisMessageListener listener : channelListeners){
+                try{
+                    listener.onMessage(channel, message);
+                }catch (Exception e){
+                    LOG.error("message listener error, channel:" + channel, e);
+                }
+            }
+        }
+
+        @Override
+        public void onPMessage(String pattern, String channel, String message) {
+            Set<JedisMessageListener> listenersOfPattern = patternListeners.get(pattern);
+            if (listenersOfPattern == null){
+                return;
+            }
+            for (JedisMessageListener listener : listenersOfPattern){
+                try{
+                    listener.onMessage(channel, message);
+                }catch (Exception e){
+                    LOG.error("message listener error, channel:" + channel, e);
+                }
+            }
+        }
+    }
+}
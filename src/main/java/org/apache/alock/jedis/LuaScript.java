@@ -0,0 +1,53 @@
+package org.apache.alock.jedis;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * lua脚本，预先计算sha1以便通过EVALSHA调用
+ * @author wy
+ */
+public class LuaScript {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final String script;
+
+    private final byte[] scriptBytes;
+
+    private final byte[] sha1;
+
+    public LuaScript(String script){
+        this.script = script;
+        this.scriptBytes = script.getBytes(StandardCharsets.UTF_8);
+        this.sha1 = sha1Hex(scriptBytes);
+    }
+
+    public String getScript() {
+        return script;
+    }
+
+    public byte[] getScriptBytes() {
+        return scriptBytes;
+    }
+
+    public byte[] getSha1() {
+        return sha1;
+    }
+
+    private static byte[] sha1Hex(byte[] bytes){
+        byte[] digest;
+        try{
+            digest = MessageDigest.getInstance("SHA-1").digest(bytes);
+        }catch (NoSuchAlgorithmException e){
+            throw new IllegalStateException("SHA-1 not supported", e);
+        }
+        byte[] hex = new byte[digest.length * 2];
+        for (int i = 0; i < digest.length; i++){
+            hex[2 * i] = (byte) HEX[(digest[i] >> 4) & 0x0f];
+            hex[2 * i + 1] = (byte) HEX[digest[i] & 0x0f];
+        }
+        return hex;
+    }
+}
@@ -0,0 +1,111 @@
+package org.apache.alock.jedis;
+
+import java.util.List;
+
+/**
+ * 锁处理器使用的redis命令集合，单机与集群分别实现
+ * @author wy
+ */
+public interface RedisClient {
+
+    /**
+     * String get command
+     *
+     * @param key
+     * @return
+     */
+    String get(String key);
+
+    /**
+     * String set command
+     *
+     * @param key
+     * @param value
+     * @param nxxx
+     * @param expx
+     * @param time
+     * @return
+     */
+    String set(String key, String value, String nxxx, String expx, long time);
+
+    /**
+     * Binary string set command
+     *
+     * @param key
+     * @param value
+     * @param nxxx
+     * @param expx
+     * @param time
+     * @return
+     */
+    String set(byte[] key, byte[] value, byte[] nxxx, byte[] expx, long time);
+
+    /**
+     * Eval cached lua script by sha1, load it when redis answers NOSCRIPT
+     *
+     * @param script
+     * @param keys
+     * @param args
+     * @return
+     */
+    Object evalsha(LuaScript script, List<byte[]> keys, List<byte[]> args);
+
+    /**
+     * Eval lua script command
+     *
+     * @param script
+     * @param keys
+     * @param args
+     * @return
+     */
+    Object eval(String script, List<String> keys, List<String> args);
+
+    /**
+     * String delete command
+     *
+     * @param key
+     * @return
+     */
+    Long del(String key);
+
+    /**
+     * Subscribe channel on a shared subscriber connection
+     *
+     * @param channel
+     * @param listener
+     */
+    void subscribe(String channel, JedisMessageListener listener);
+
+    /**
+     * Unsubscribe channel
+     *
+     * @param channel
+     * @param listener
+     */
+    void unsubscribe(String channel, JedisMessageListener listener);
+
+    /**
+     * Whether keyspace notifications can be subscribed through this client,
+     * subscribeKeyspace must not be called when false
+     *
+     * @return
+     */
+    boolean supportsKeyspaceNotifications();
+
+    /**
+     * Subscribe keyspace notifications (message is the event name) of keys matching the pattern,
+     * requires notify-keyspace-events enabled on redis
+     *
+     * @param keyPattern
+     * @param listener
+     */
+    void subscribeKeyspace(String keyPattern, JedisMessageListener listener);
+
+    /**
+     * Unsubscribe keyspace notifications
+     *
+     * @param keyPattern
+     * @param listener
+     */
+    void unsubscribeKeyspace(String keyPattern, JedisMessageListener listener);
+}
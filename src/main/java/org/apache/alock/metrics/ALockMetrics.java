@@ -0,0 +1,100 @@
+package org.apache.alock.metrics;
+
+/**
+ * 锁操作的埋点接口，耗时单位均为纳秒。
+ * 实现需线程安全且不阻塞，调用发生在获取、释放锁与续租的路径上；
+ * isEnabled为false时调用方跳过计时，不产生额外开销
+ * @author wy
+ */
+public interface ALockMetrics {
+
+    /**
+     * 不做任何记录的默认实现
+     */
+    ALockMetrics NOOP = new ALockMetrics() {
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+
+        @Override
+        public void acquired(long acquireNanos) {
+        }
+
+        @Override
+        public void queueWaited(String lockKey, int queueDepth, long waitNanos) {
+        }
+
+        @Override
+        public void grabFailed(String lockKey, int queueDepth) {
+        }
+
+        @Override
+        public void released(long holdNanos) {
+        }
+
+        @Override
+        public void renewSucceeded() {
+        }
+
+        @Override
+        public void renewFailed() {
+        }
+
+        @Override
+        public void leaseLost() {
+        }
+
+        @Override
+        public void commandCompleted(String command, long rttNanos) {
+        }
+    };
+
+    boolean isEnabled();
+
+    /**
+     * 获取锁成功，耗时从调用获取锁开始计算（含本地排队与远程抢占）
+     * @param acquireNanos
+     */
+    void acquired(long acquireNanos);
+
+    /**
+     * 在本地等待队列中等待后获取到锁
+     * @param lockKey
+     * @param queueDepth 获取到锁时本地仍在排队的等待者数量
+     * @param waitNanos 排队时长
+     */
+    void queueWaited(String lockKey, int queueDepth, long waitNanos);
+
+    /**
+     * 远程锁由其他节点持有，抢占失败
+     * @param lockKey
+     * @param queueDepth 当时本地排队的等待者数量
+     */
+    void grabFailed(String lockKey, int queueDepth);
+
+    /**
+     * 锁被完全释放（重入计数归零），记录持有时长
+     * @param holdNanos
+     */
+    void released(long holdNanos);
+
+    void renewSucceeded();
+
+    /**
+     * 续租请求失败（与远程存储交互出错），下个周期重试
+     */
+    void renewFailed();
+
+    /**
+     * 持有中的锁租约丢失（过期或被他人抢占）
+     */
+    void leaseLost();
+
+    /**
+     * 一次远程命令完成（含失败），记录往返时间
+     * @param command 命令名，取值为有限的常量
+     * @param rttNanos
+     */
+    void commandCompleted(String command, long rttNanos);
+}
@@ -0,0 +1,75 @@
+package org.apache.alock.metrics;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * 进程内生效的锁埋点实现，默认为NOOP
+ * @author wy
+ */
+public final class ALockMetricsRegistry {
+
+    /**
+     * 内置直方图实现注册到JMX的名称
+     */
+    public static final String OBJECT_NAME = "org.apache.alock:type=ALockMetrics";
+
+    private static volatile ALockMetrics metrics = ALockMetrics.NOOP;
+
+    private ALockMetricsRegistry(){
+    }
+
+    public static ALockMetrics get(){
+        return metrics;
+    }
+
+    /**
+     * 替换为自定义实现，传入null恢复为NOOP
+     * @param alockMetrics
+     */
+    public static void register(ALockMetrics alockMetrics){
+        metrics = alockMetrics == null ? ALockMetrics.NOOP : alockMetrics;
+    }
+
+    /**
+     * 启用内置的直方图实现并注册到平台MBeanServer，重复调用返回同一实例
+     * @return
+     */
+    public static synchronized HistogramALockMetrics enableHistogramMetrics(){
+        ALockMetrics current = metrics;
+        if (current instanceof HistogramALockMetrics){
+            return (HistogramALockMetrics) current;
+        }
+        HistogramALockMetrics histogramMetrics = new HistogramALockMetrics();
+        try{
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)){
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(histogramMetrics, name);
+        }catch (JMException e){
+            throw new IllegalStateException("register metrics mbean error", e);
+        }
+        metrics = histogramMetrics;
+        return histogramMetrics;
+    }
+
+    /**
+     * 恢复为NOOP并注销内置实现的MBean
+     */
+    public static synchronized void disable(){
+        ALockMetrics current = metrics;
+        metrics = ALockMetrics.NOOP;
+        if (current instanceof HistogramALockMetrics){
+            try{
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(OBJECT_NAME));
+            }catch (JMException e){
+                //already unregistered
+            }
+        }
+    }
+}
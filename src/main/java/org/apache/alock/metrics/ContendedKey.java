@@ -0,0 +1,59 @@
+package org.apache.alock.metrics;
+
+/**
+ * 热点锁统计结果
+ * @author wy
+ */
+public class ContendedKey {
+
+    private final String key;
+    private final long count;
+    private final long error;
+    private final int maxQueueDepth;
+    private final HistogramSnapshot wait;
+
+    ContendedKey(String key, long count, long error, int maxQueueDepth, HistogramSnapshot wait){
+        this.key = key;
+        this.count = count;
+        this.error = error;
+        this.maxQueueDepth = maxQueueDepth;
+        this.wait = wait;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * 竞争次数（抢占失败与本地排队），可能偏大，真实值不小于count-error
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * 计数的误差上界
+     */
+    public long getError() {
+        return error;
+    }
+
+    /**
+     * 被跟踪以来观察到的最大本地排队长度
+     */
+    public int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    /**
+     * 被跟踪以来本地排队等待时长
+     */
+    public HistogramSnapshot getWait() {
+        return wait;
+    }
+
+    @Override
+    public String toString() {
+        return key + ": count=" + count + ", error=" + error + ", maxQueueDepth=" + maxQueueDepth + ", wait=[" + wait + "]";
+    }
+}
@@ -0,0 +1,250 @@
+package org.apache.alock.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 基于Space-Saving算法的热点锁统计：只保留capacity个计数器，
+ * 未被跟踪的key出现时替换计数最小的计数器并继承其计数（记为误差上界），
+ * 真实出现次数超过总次数/capacity的key一定会被保留。计数器按计数组成最小堆，每次更新O(log capacity)。
+ * 每个被跟踪的key额外记录等待时长直方图与观察到的最大本地排队长度，内存与锁key总数无关。
+ * 记录在加锁路径上，不能让竞争线程互相阻塞：拿不到锁的记录放入待处理队列，由下一个拿到锁的线程合并，
+ * 队列超过上限时丢弃并计数
+ * @author wy
+ */
+public class ContentionTracker {
+
+    private static final int MAX_PENDING = 4096;
+
+    private final int capacity;
+
+    private final Map<String, Counter> counters;
+
+    private final Counter[] heap;
+
+    private int size;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Queue<Event> pending = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger pendingCnt = new AtomicInteger(0);
+
+    private final AtomicLong dropped = new AtomicLong(0);
+
+    public ContentionTracker(int capacity){
+        if (capacity <= 0){
+            throw new IllegalArgumentException("capacity must be positive.");
+        }
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+        this.heap = new Counter[capacity];
+    }
+
+    /**
+     * 记录一次竞争，不阻塞：统计正被其他线程更新时放入待处理队列
+     * @param lockKey
+     * @param queueDepth 当时的本地排队长度
+     * @param waitNanos 等待时长，小于0表示不记录
+     */
+    public void record(String lockKey, int queueDepth, long waitNanos){
+        if (lock.tryLock()){
+            try{
+                apply(lockKey, queueDepth, waitNanos);
+                drainPending();
+            }finally {
+                lock.unlock();
+            }
+            return;
+        }
+        if (pendingCnt.incrementAndGet() > MAX_PENDING){
+            pendingCnt.decrementAndGet();
+            dropped.incrementAndGet();
+            return;
+        }
+        pending.add(new Event(lockKey, queueDepth, waitNanos));
+        //持有者可能已在入队前完成合并
+        if (lock.tryLock()){
+            try{
+                drainPending();
+            }finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 待处理队列已满而丢弃的记录数
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    private void drainPending(){
+        Event e;
+        while ((e = pending.poll()) != null){
+            pendingCnt.decrementAndGet();
+            apply(e.lockKey, e.queueDepth, e.waitNanos);
+        }
+    }
+
+    private void apply(String lockKey, int queueDepth, long waitNanos){
+        Counter c = counters.get(lockKey);
+        boolean inserted = false;
+        if (c == null){
+            if (size < capacity){
+                c = new Counter(size);
+                heap[size++] = c;
+                inserted = true;
+            }else {
+                //替换计数最小的key，新key继承其计数
+                c = heap[0];
+                counters.remove(c.key);
+                c.error = c.count;
+                c.maxQueueDepth = 0;
+                c.waits.reset();
+            }
+            c.key = lockKey;
+            counters.put(lockKey, c);
+        }
+        c.count++;
+        if (queueDepth > c.maxQueueDepth){
+            c.maxQueueDepth = queueDepth;
+        }
+        if (waitNanos >= 0){
+            c.waits.record(waitNanos);
+        }
+        //新加入的计数器在堆尾，计数可能小于父节点；已有计数器计数只增不减
+        if (inserted){
+            siftUp(c.index);
+        }else {
+            siftDown(c.index);
+        }
+    }
+
+    /**
+     * 竞争次数最多的k个key，按计数降序
+     * @param k
+     * @return
+     */
+    public List<ContendedKey> topKeys(int k){
+        List<Counter> sorted = new ArrayList<>(size);
+        List<ContendedKey> top;
+        lock.lock();
+        try{
+            drainPending();
+            for (int i = 0; i < size; i++){
+                sorted.add(heap[i]);
+            }
+            top = snapshot(sorted, k);
+        }finally {
+            lock.unlock();
+        }
+        return top;
+    }
+
+    private static List<ContendedKey> snapshot(List<Counter> sorted, int k){
+        Collections.sort(sorted, new Comparator<Counter>() {
+            @Override
+            public int compare(Counter o1, Counter o2) {
+                return Long.compare(o2.count, o1.count);
+            }
+        });
+        List<ContendedKey> top = new ArrayList<>(Math.min(k, sorted.size()));
+        for (int i = 0; i < sorted.size() && i < k; i++){
+            Counter c = sorted.get(i);
+            top.add(new ContendedKey(c.key, c.count, c.error, c.maxQueueDepth, new HistogramSnapshot(c.waits)));
+        }
+        return top;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void reset(){
+        lock.lock();
+        try{
+            while (pending.poll() != null){
+                pendingCnt.decrementAndGet();
+            }
+            counters.clear();
+            for (int i = 0; i < size; i++){
+                heap[i] = null;
+            }
+            size = 0;
+        }finally {
+            lock.unlock();
+        }
+    }
+
+    private void siftUp(int i){
+        Counter c = heap[i];
+        while (i > 0){
+            int parent = (i - 1) >>> 1;
+            if (heap[parent].count <= c.count){
+                break;
+            }
+            heap[i] = heap[parent];
+            heap[i].index = i;
+            i = parent;
+        }
+        heap[i] = c;
+        c.index = i;
+    }
+
+    private void siftDown(int i){
+        Counter c = heap[i];
+        for (;;){
+            int child = 2 * i + 1;
+            if (child >= size){
+                break;
+            }
+            if (child + 1 < size && heap[child + 1].count < heap[child].count){
+                child++;
+            }
+            if (heap[child].count >= c.count){
+                break;
+            }
+            heap[i] = heap[child];
+            heap[i].index = i;
+            i = child;
+        }
+        heap[i] = c;
+        c.index = i;
+    }
+
+    private static class Event{
+        final String lockKey;
+        final int queueDepth;
+        final long waitNanos;
+
+        Event(String lockKey, int queueDepth, long waitNanos){
+            this.lockKey = lockKey;
+            this.queueDepth = queueDepth;
+            this.waitNanos = waitNanos;
+        }
+    }
+
+    private static class Counter{
+        String key;
+        long count;
+        long error;
+        int maxQueueDepth;
+        int index;
+        final LatencyHistogram waits = new LatencyHistogram();
+
+        Counter(int index){
+            this.index = index;
+        }
+    }
+}
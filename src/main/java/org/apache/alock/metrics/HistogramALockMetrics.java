@@ -0,0 +1,156 @@
+package org.apache.alock.metrics;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 内置的锁埋点实现：耗时记入固定桶数的直方图，计数使用LongAdder，记录路径不分配对象
+ * （命令直方图在命令名首次出现时创建）；抢占失败与排队等待按key记入热点统计
+ * @author wy
+ */
+public class HistogramALockMetrics implements ALockMetrics, HistogramALockMetricsMXBean {
+
+    public static final int DEFAULT_CONTENTION_CAPACITY = 128;
+
+    private static final int DEFAULT_TOP_KEYS = 20;
+
+    private final LatencyHistogram acquire = new LatencyHistogram();
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+    private final LatencyHistogram hold = new LatencyHistogram();
+    private final ConcurrentMap<String, LatencyHistogram> commands = new ConcurrentHashMap<>();
+
+    private final LongAdder renewSuccess = new LongAdder();
+    private final LongAdder renewFailure = new LongAdder();
+    private final LongAdder leaseLost = new LongAdder();
+
+    private final ContentionTracker contentionTracker;
+
+    public HistogramALockMetrics(){
+        this(DEFAULT_CONTENTION_CAPACITY);
+    }
+
+    /**
+     * @param contentionCapacity 热点统计最多跟踪的key数
+     */
+    public HistogramALockMetrics(int contentionCapacity){
+        this.contentionTracker = new ContentionTracker(contentionCapacity);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void acquired(long acquireNanos) {
+        acquire.record(acquireNanos);
+    }
+
+    @Override
+    public void queueWaited(String lockKey, int queueDepth, long waitNanos) {
+        queueWait.record(waitNanos);
+        contentionTracker.record(lockKey, queueDepth, waitNanos);
+    }
+
+    @Override
+    public void grabFailed(String lockKey, int queueDepth) {
+        contentionTracker.record(lockKey, queueDepth, -1);
+    }
+
+    @Override
+    public void released(long holdNanos) {
+        hold.record(holdNanos);
+    }
+
+    @Override
+    public void renewSucceeded() {
+        renewSuccess.increment();
+    }
+
+    @Override
+    public void renewFailed() {
+        renewFailure.increment();
+    }
+
+    @Override
+    public void leaseLost() {
+        leaseLost.increment();
+    }
+
+    @Override
+    public void commandCompleted(String command, long rttNanos) {
+        LatencyHistogram histogram = commands.get(command);
+        if (histogram == null){
+            commands.putIfAbsent(command, new LatencyHistogram());
+            histogram = commands.get(command);
+        }
+        histogram.record(rttNanos);
+    }
+
+    @Override
+    public HistogramSnapshot getAcquire() {
+        return new HistogramSnapshot(acquire);
+    }
+
+    @Override
+    public HistogramSnapshot getQueueWait() {
+        return new HistogramSnapshot(queueWait);
+    }
+
+    @Override
+    public HistogramSnapshot getHold() {
+        return new HistogramSnapshot(hold);
+    }
+
+    @Override
+    public Map<String, HistogramSnapshot> getCommands() {
+        Map<String, HistogramSnapshot> snapshots = new TreeMap<>();
+        for (Map.Entry<String, LatencyHistogram> e : commands.entrySet()){
+            snapshots.put(e.getKey(), new HistogramSnapshot(e.getValue()));
+        }
+        return snapshots;
+    }
+
+    @Override
+    public List<ContendedKey> getTopContendedKeys() {
+        return contentionTracker.topKeys(DEFAULT_TOP_KEYS);
+    }
+
+    @Override
+    public List<ContendedKey> topContendedKeys(int k) {
+        return contentionTracker.topKeys(k);
+    }
+
+    @Override
+    public long getRenewSuccessCount() {
+        return renewSuccess.sum();
+    }
+
+    @Override
+    public long getRenewFailureCount() {
+        return renewFailure.sum();
+    }
+
+    @Override
+    public long getLeaseLostCount() {
+        return leaseLost.sum();
+    }
+
+    @Override
+    public void reset() {
+        acquire.reset();
+        queueWait.reset();
+        hold.reset();
+        for (LatencyHistogram histogram : commands.values()){
+            histogram.reset();
+        }
+        renewSuccess.reset();
+        renewFailure.reset();
+        leaseLost.reset();
+        contentionTracker.reset();
+    }
+}
@@ -0,0 +1,50 @@
+package org.apache.alock.metrics;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 内置锁埋点的JMX视图
+ * @author wy
+ */
+public interface HistogramALockMetricsMXBean {
+
+    /**
+     * 获取锁耗时（含本地排队与远程抢占）
+     */
+    HistogramSnapshot getAcquire();
+
+    /**
+     * 本地等待队列中的等待时长
+     */
+    HistogramSnapshot getQueueWait();
+
+    /**
+     * 持有时长
+     */
+    HistogramSnapshot getHold();
+
+    /**
+     * 各远程命令的往返时间
+     */
+    Map<String, HistogramSnapshot> getCommands();
+
+    /**
+     * 竞争最激烈的20个key及其等待时长分布
+     */
+    List<ContendedKey> getTopContendedKeys();
+
+    /**
+     * 竞争最激烈的k个key，k不超过跟踪容量
+     * @param k
+     */
+    List<ContendedKey> topContendedKeys(int k);
+
+    long getRenewSuccessCount();
+
+    long getRenewFailureCount();
+
+    long getLeaseLostCount();
+
+    void reset();
+}
@@ -0,0 +1,66 @@
+package org.apache.alock.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 直方图的快照，时间单位为微秒，以CompositeData形式通过JMX暴露
+ * @author wy
+ */
+public class HistogramSnapshot {
+
+    private final long count;
+    private final double meanMicros;
+    private final long p50Micros;
+    private final long p90Micros;
+    private final long p99Micros;
+    private final long p999Micros;
+    private final long maxMicros;
+
+    HistogramSnapshot(LatencyHistogram histogram){
+        this.count = histogram.getCount();
+        this.meanMicros = histogram.getMean() / 1000;
+        this.p50Micros = micros(histogram.getPercentile(50));
+        this.p90Micros = micros(histogram.getPercentile(90));
+        this.p99Micros = micros(histogram.getPercentile(99));
+        this.p999Micros = micros(histogram.getPercentile(99.9));
+        this.maxMicros = micros(histogram.getMax());
+    }
+
+    private static long micros(long nanos){
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMeanMicros() {
+        return meanMicros;
+    }
+
+    public long getP50Micros() {
+        return p50Micros;
+    }
+
+    public long getP90Micros() {
+        return p90Micros;
+    }
+
+    public long getP99Micros() {
+        return p99Micros;
+    }
+
+    public long getP999Micros() {
+        return p999Micros;
+    }
+
+    public long getMaxMicros() {
+        return maxMicros;
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + count + ", mean=" + meanMicros + "us, p50=" + p50Micros + "us, p90=" + p90Micros
+            + "us, p99=" + p99Micros + "us, p99.9=" + p999Micros + "us, max=" + maxMicros + "us";
+    }
+}
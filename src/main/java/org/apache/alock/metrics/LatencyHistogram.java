@@ -0,0 +1,104 @@
+package org.apache.alock.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 对数-线性分桶的并发直方图：每个2的幂区间再均分为8个桶，相对误差不超过12.5%。
+ * 桶数固定，记录时为所在桶与总和各做一次原子累加，最大值只在被刷新时才CAS，不分配对象；
+ * 记录次数由各桶计数求和得到，不单独维护
+ * @author wy
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong(0);
+    private final AtomicLong max = new AtomicLong(0);
+
+    public void record(long value){
+        if (value < 0){
+            value = 0;
+        }
+        counts.incrementAndGet(bucketIndex(value));
+        total.addAndGet(value);
+        long m = max.get();
+        while (value > m && !max.compareAndSet(m, value)){
+            m = max.get();
+        }
+    }
+
+    public long getCount(){
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++){
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    public long getMax(){
+        return max.get();
+    }
+
+    public double getMean(){
+        long count = getCount();
+        return count == 0 ? 0 : (double) total.get() / count;
+    }
+
+    /**
+     * 百分位值，返回所在桶的上界（不超过记录到的最大值）
+     * @param percentile 0~100
+     * @return
+     */
+    public long getPercentile(double percentile){
+        long[] snapshot = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++){
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        if (count == 0){
+            return 0;
+        }
+        long rank = (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * count);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++){
+            seen += snapshot[i];
+            if (seen >= Math.max(1, rank)){
+                return Math.min(bucketUpperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    public void reset(){
+        for (int i = 0; i < BUCKETS; i++){
+            counts.set(i, 0);
+        }
+        total.set(0);
+        max.set(0);
+    }
+
+    static int bucketIndex(long value){
+        if (value < SUB_BUCKETS){
+            return (int) value;
+        }
+        int exp = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exp - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exp - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    static long bucketUpperBound(int index){
+        if (index < SUB_BUCKETS){
+            return index;
+        }
+        int exp = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long sub = index % SUB_BUCKETS;
+        long width = 1L << (exp - SUB_BUCKET_BITS);
+        long upper = ((SUB_BUCKETS + sub) << (exp - SUB_BUCKET_BITS)) + width - 1;
+        return upper < 0 ? Long.MAX_VALUE : upper;
+    }
+}
@@ -0,0 +1,48 @@
+package org.apache.alock.processor;
+
+import org.apache.alock.domain.ALockConfig;
+
+/**
+ * 公平锁与远程存储交互逻辑：等待的节点在队列中登记票据，只有队首票据可以抢占，
+ * 释放时只通知下一张票据所在的节点
+ * @author wy
+ */
+public interface ALockFairProcessor {
+
+    /**
+     * 校验公平锁配置能否在当前存储上使用，不能时抛出IllegalArgumentException；构造公平锁时调用
+     * @param config
+     */
+    void checkFairLock(ALockConfig config);
+
+    /**
+     * 抢占公平锁，队列中有更早的票据时失败
+     * @param config
+     * @param enqueue 失败时是否登记（或刷新）票据
+     * @return ALockProcessor.GRABBED表示成功，否则为持有者剩余租期（毫秒，0表示未知或即将释放）
+     */
+    long tryGrabFairLock(ALockConfig config, boolean enqueue);
+
+    /**
+     * 释放公平锁并唤醒下一张票据所在的节点
+     * @param config
+     * @return
+     */
+    boolean tryReleaseFairLock(ALockConfig config);
+
+    /**
+     * 撤销本节点的票据，本节点为队首且锁空闲时唤醒下一张票据
+     * @param config
+     */
+    void cancelTicket(ALockConfig config);
+
+    /**
+     * 订阅本节点票据的唤醒通知
+     * @param config
+     * @param listener
+     * @return 是否支持唤醒通知，不支持时调用方需轮询
+     */
+    boolean subscribeTicket(ALockConfig config, ALockReleaseListener listener);
+
+    void unsubscribeTicket(ALockConfig config, ALockReleaseListener listener);
+}
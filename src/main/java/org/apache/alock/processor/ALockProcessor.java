@@ -1,5 +1,9 @@
 package org.apache.alock.processor;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
 import org.apache.alock.domain.ALockConfig;
 
 /**
@@ -8,6 +12,11 @@ import org.apache.alock.domain.ALockConfig;
  */
 public interface ALockProcessor {
 
+    /**
+     * tryGrabLock返回值：抢占成功
+     */
+    long GRABBED = -1L;
+
     /**
      * 查询当前uniqueKey对应的锁
      * @param lockKey
@@ -21,22 +30,94 @@ public interface ALockProcessor {
      */
     void grabLock(ALockConfig config);
 
+    /**
+     * 抢占锁，竞争失败不抛异常，仅在与远程存储交互失败时抛出ALockProcessException
+     * @param config
+     * @return GRABBED表示抢占成功，否则为当前持有者剩余租期（毫秒，0表示未知或即将释放）
+     */
+    long tryGrabLock(ALockConfig config);
+
+    /**
+     * 原子地抢占一组锁：全部抢占成功或全部不抢占
+     * @param configs
+     * @return GRABBED表示全部抢占成功，否则为阻塞的持有者中最长的剩余租期
+     */
+    long tryGrabLocks(Collection<ALockConfig> configs);
+
+    /**
+     * 校验一组锁能否由tryGrabLocks原子地抢占，不能时抛出IllegalArgumentException；构造多key锁时调用，
+     * 使配置错误在创建时而不是首次加锁时暴露
+     * @param configs
+     */
+    void checkGrabTogether(Collection<ALockConfig> configs);
+
+    /**
+     * 在一次交互中按顺序尝试抢占候选锁，最多抢占limit个
+     * @param candidates
+     * @param limit
+     * @return 抢占成功的锁
+     */
+    List<ALockConfig> claimLocks(List<ALockConfig> candidates, int limit);
+
     /**
      * 延长锁失效时间
      * @param config
      */
     void expandLockExpire(ALockConfig config);
 
+    /**
+     * 延长锁失效时间，锁已不再由当前持有者持有时返回false而不抛异常
+     * @param config
+     * @return
+     */
+    boolean tryExpandLockExpire(ALockConfig config);
+
+    /**
+     * 批量延长锁失效时间，一次交互完成
+     * @param configs
+     * @return 每个锁的续租结果，false表示锁已不再由当前持有者持有
+     */
+    Map<ALockConfig, Boolean> expandLockExpire(Collection<ALockConfig> configs);
+
     /**
      * 释放锁
      * @param config
      */
     void releaseLock(ALockConfig config);
 
+    /**
+     * 释放锁，锁已不再由当前持有者持有时返回false而不抛异常
+     * @param config
+     * @return
+     */
+    boolean tryReleaseLock(ALockConfig config);
+
+    /**
+     * 一次交互释放一组锁，仅释放仍由当前持有者持有的部分
+     * @param configs
+     * @return 是否全部由当前持有者释放
+     */
+    boolean tryReleaseLocks(Collection<ALockConfig> configs);
+
     /**
      * 是否 锁被释放或超时
      * @param lockKey
      * @return
      */
     boolean isLockFree(String lockKey);
+
+    /**
+     * 订阅锁释放通知
+     * @param config
+     * @param listener
+     * @return 是否支持释放通知，不支持时调用方需轮询
+     */
+    boolean subscribeRelease(ALockConfig config, ALockReleaseListener listener);
+
+    /**
+     * 取消订阅锁释放通知
+     * @param config
+     * @param listener
+     */
+    void unsubscribeRelease(ALockConfig config, ALockReleaseListener listener);
 }
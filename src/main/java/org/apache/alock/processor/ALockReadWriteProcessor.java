@@ -0,0 +1,68 @@
+package org.apache.alock.processor;
+
+import org.apache.alock.domain.ALockConfig;
+
+/**
+ * 读写锁与远程存储交互逻辑：读持有者与写持有者记录在同一个key中，
+ * 同一节点的读持有以config的lockValue标识
+ * @author wy
+ */
+public interface ALockReadWriteProcessor {
+
+    /**
+     * tryExpandReadLock返回值：续租失败
+     */
+    int RENEW_LOST = 0;
+
+    /**
+     * tryExpandReadLock返回值：续租成功
+     */
+    int RENEW_OK = 1;
+
+    /**
+     * tryExpandReadLock返回值：续租成功，但有写者在等待
+     */
+    int RENEW_WRITER_WAITING = 2;
+
+    /**
+     * 抢占读锁，有写持有者或有写者在等待时失败
+     * @param config
+     * @return ALockProcessor.GRABBED表示成功，否则为预计等待时间（毫秒，0表示未知）
+     */
+    long tryGrabReadLock(ALockConfig config);
+
+    /**
+     * 抢占写锁，存在读持有者时登记写等待，阻止新的读者加入
+     * @param config
+     * @return ALockProcessor.GRABBED表示成功，否则为预计等待时间（毫秒，0表示未知）
+     */
+    long tryGrabWriteLock(ALockConfig config);
+
+    /**
+     * 延长读锁租期
+     * @param config
+     * @return RENEW_LOST、RENEW_OK或RENEW_WRITER_WAITING
+     */
+    int tryExpandReadLock(ALockConfig config);
+
+    /**
+     * 延长写锁租期
+     * @param config
+     * @return 写锁已不再由当前持有者持有时返回false
+     */
+    boolean tryExpandWriteLock(ALockConfig config);
+
+    /**
+     * 释放读锁，最后一个读者释放时发布释放通知
+     * @param config
+     * @return
+     */
+    boolean tryReleaseReadLock(ALockConfig config);
+
+    /**
+     * 释放写锁并发布释放通知
+     * @param config
+     * @return
+     */
+    boolean tryReleaseWriteLock(ALockConfig config);
+}
@@ -0,0 +1,14 @@
+package org.apache.alock.processor;
+
+/**
+ * 锁释放通知监听
+ * @author wy
+ */
+public interface ALockReleaseListener {
+
+    /**
+     * 锁被释放
+     * @param lockKey
+     */
+    void onRelease(String lockKey);
+}
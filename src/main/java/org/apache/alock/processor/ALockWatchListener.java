@@ -0,0 +1,15 @@
+package org.apache.alock.processor;
+
+/**
+ * 锁key变更通知监听
+ * @author wy
+ */
+public interface ALockWatchListener {
+
+    /**
+     * 锁key被删除、过期或被覆盖；通知可能来自本节点自身的操作，收到后需核实是否仍持有
+     * @param lockKey
+     * @param event
+     */
+    void onLockChanged(String lockKey, String event);
+}
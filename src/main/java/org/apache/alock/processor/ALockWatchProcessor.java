@@ -0,0 +1,32 @@
+package org.apache.alock.processor;
+
+import org.apache.alock.domain.ALockConfig;
+
+/**
+ * 支持监听锁key变更的锁处理器：持有期间锁被删除、过期或被他人覆盖时立即通知，不必等到下次续租才发现
+ * @author wy
+ */
+public interface ALockWatchProcessor {
+
+    /**
+     * 开始监听锁key的变更
+     * @param config
+     * @param listener
+     * @return 是否支持，不支持时租约丢失只能由续租发现
+     */
+    boolean watchLock(ALockConfig config, ALockWatchListener listener);
+
+    /**
+     * 停止监听锁key的变更
+     * @param config
+     * @param listener
+     */
+    void unwatchLock(ALockConfig config, ALockWatchListener listener);
+
+    /**
+     * 直接读取远程存储（不经近缓存）核实锁是否仍由config的持有者持有
+     * @param config
+     * @return
+     */
+    boolean isLockHeld(ALockConfig config);
+}
@@ -0,0 +1,39 @@
+package org.apache.alock.processor;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.alock.domain.ALockConfig;
+
+/**
+ * 分布式信号量与远程存储交互逻辑：每个许可是有序集合中的一个成员，分值为租约到期时间，
+ * 持有者宕机后许可随租约到期自动回收
+ * @author wy
+ */
+public interface ASemaphoreProcessor {
+
+    /**
+     * 原子地获取一组许可：全部获取或全部不获取
+     * @param config
+     * @param totalPermits 许可总数
+     * @param permitIds 本次获取的许可标识
+     * @return ALockProcessor.GRABBED表示成功，否则为最早到期许可的剩余租期（毫秒，0表示未知）
+     */
+    long tryAcquirePermits(ALockConfig config, int totalPermits, Collection<String> permitIds);
+
+    /**
+     * 一次交互为本节点持有的全部许可续租
+     * @param config
+     * @param permitIds
+     * @return 已丢失（过期被回收）的许可
+     */
+    List<String> expandPermits(ALockConfig config, Collection<String> permitIds);
+
+    /**
+     * 归还许可并发布释放通知
+     * @param config
+     * @param permitIds
+     * @return 实际归还的许可数
+     */
+    int releasePermits(ALockConfig config, Collection<String> permitIds);
+}
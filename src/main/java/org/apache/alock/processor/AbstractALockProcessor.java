@@ -0,0 +1,47 @@
+package org.apache.alock.processor;
+
+import java.util.Collection;
+
+import org.apache.alock.domain.ALockConfig;
+import org.apache.alock.exception.OptimisticLockingException;
+
+/**
+ * 以返回结果的方法为基础实现抛异常的方法，子类只需实现try系列方法
+ * @author wy
+ */
+public abstract class AbstractALockProcessor implements ALockProcessor {
+
+    @Override
+    public void grabLock(ALockConfig config) {
+        if (tryGrabLock(config) != GRABBED){
+            throw new OptimisticLockingException("grabLock failed, key:" + config.getLockUniqueKey());
+        }
+    }
+
+    @Override
+    public void expandLockExpire(ALockConfig config) {
+        if (!tryExpandLockExpire(config)){
+            throw new OptimisticLockingException("failed to expand lock expire time, key:" + config.getLockUniqueKey());
+        }
+    }
+
+    @Override
+    public void releaseLock(ALockConfig config) {
+        if (!tryReleaseLock(config)){
+            throw new OptimisticLockingException(String.format("releaseLock failed, maybe obtained by other process, key:%s, value:%s",
+                config.getLockUniqueKey(), config.getLockValue()));
+        }
+    }
+
+    /**
+     * 默认任意一组锁都可以原子抢占
+     */
+    @Override
+    public void checkGrabTogether(Collection<ALockConfig> configs) {
+    }
+
+    @Override
+    public boolean isLockFree(String lockKey) {
+        return null == lockValue(lockKey);
+    }
+}
@@ -0,0 +1,111 @@
+package org.apache.alock.processor;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.apache.alock.jedis.JedisInvalidationListener;
+
+/**
+ * 锁持有者的本地近缓存：由远程存储的失效通知保持一致，仅在跟踪正常时提供服务。
+ * 加载前先放入占位，加载期间收到失效通知时不缓存加载结果，避免缓存旧值。
+ * 达到容量上限时随机淘汰一项，其余热点项不受影响
+ * @author wy
+ */
+public class LockNearCache implements JedisInvalidationListener {
+
+    private static final Object NULL_VALUE = new Object();
+
+    /**
+     * 淘汰时从迭代起点随机跳过的最大项数
+     */
+    private static final int EVICTION_SAMPLE = 8;
+
+    private final ConcurrentMap<String, Object> entries = new ConcurrentHashMap<>();
+
+    private final int maxEntries;
+
+    private volatile boolean enabled;
+
+    public LockNearCache(int maxEntries){
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * 远程加载
+     */
+    public interface Loader{
+        String load(String key);
+    }
+
+    public String get(String key, Loader loader){
+        if (!enabled){
+            return loader.load(key);
+        }
+        Object cached = entries.get(key);
+        if (cached != null && !(cached instanceof Pending)){
+            return cached == NULL_VALUE ? null : (String) cached;
+        }
+        Pending pending = null;
+        if (cached == null){
+            while (entries.size() >= maxEntries && !entries.isEmpty()){
+                evictOne();
+            }
+            Pending p = new Pending();
+            if (entries.putIfAbsent(key, p) == null){
+                pending = p;
+            }
+        }
+        String value = loader.load(key);
+        if (pending != null){
+            entries.replace(key, pending, value == null ? NULL_VALUE : value);
+        }
+        return value;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int size(){
+        return entries.size();
+    }
+
+    @Override
+    public void onInvalidate(String key) {
+        entries.remove(key);
+    }
+
+    @Override
+    public void onInvalidateAll() {
+        entries.clear();
+    }
+
+    @Override
+    public void onTrackingChanged(boolean tracking) {
+        entries.clear();
+        enabled = tracking;
+    }
+
+    /**
+     * 跳过随机个数的项后淘汰一项；被淘汰的占位项只会让对应加载结果不被缓存
+     */
+    private void evictOne(){
+        int skip = ThreadLocalRandom.current().nextInt(EVICTION_SAMPLE);
+        Iterator<String> it = entries.keySet().iterator();
+        String victim = null;
+        for (int i = 0; i <= skip && it.hasNext(); i++){
+            victim = it.next();
+        }
+        if (victim != null){
+            entries.remove(victim);
+        }
+    }
+
+    /**
+     * 加载中的占位
+     */
+    private static class Pending{
+    }
+}
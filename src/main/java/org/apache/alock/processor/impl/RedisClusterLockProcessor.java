@@ -0,0 +1,126 @@
+package org.apache.alock.processor.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.alock.domain.ALockConfig;
+import org.apache.alock.jedis.JedisClusterClient;
+import org.apache.commons.lang.StringUtils;
+import redis.clients.util.JedisClusterCRC16;
+
+/**
+ * 基于redis cluster的锁处理器，lockUniqueKey按slot分散到各分片；
+ * 多key脚本只能作用于同一slot，批量操作按slot分组执行
+ * @author wy
+ */
+public class RedisClusterLockProcessor extends RedisLockProcessor {
+
+    public RedisClusterLockProcessor(JedisClusterClient jedisClusterClient){
+        super(jedisClusterClient);
+    }
+
+    @Override
+    public Map<ALockConfig, Boolean> expandLockExpire(Collection<ALockConfig> configs) {
+        Map<Integer, List<ALockConfig>> slots = groupBySlot(configs);
+        if (slots.size() <= 1){
+            return super.expandLockExpire(configs);
+        }
+        Map<ALockConfig, Boolean> results = new IdentityHashMap<>(configs.size());
+        for (List<ALockConfig> slotConfigs : slots.values()){
+            results.putAll(super.expandLockExpire(slotConfigs));
+        }
+        return results;
+    }
+
+    /**
+     * 原子抢占要求所有key在同一slot，可通过ALockConfig的hashTag保证
+     */
+    @Override
+    public void checkGrabTogether(Collection<ALockConfig> configs) {
+        if (groupBySlot(configs).size() > 1){
+            throw new IllegalArgumentException("locks grabbed together must share one slot, use the same hashTag.");
+        }
+    }
+
+    /**
+     * 锁key与票据队列key需通过hashTag落在同一slot
+     */
+    @Override
+    public void checkFairLock(ALockConfig config) {
+        if (StringUtils.isBlank(config.getHashTag())){
+            throw new IllegalArgumentException("fair lock on redis cluster requires a hashTag, key:"
+                + config.getLockUniqueKey());
+        }
+    }
+
+    /**
+     * MultiLock构造时已校验，直接调用处理器时仍在此拦截
+     */
+    @Override
+    public long tryGrabLocks(Collection<ALockConfig> configs) {
+        checkGrabTogether(configs);
+        return super.tryGrabLocks(configs);
+    }
+
+    /**
+     * FairLock构造时已校验，直接调用处理器时仍在此拦截
+     */
+    @Override
+    public long tryGrabFairLock(ALockConfig config, boolean enqueue) {
+        checkFairLock(config);
+        return super.tryGrabFairLock(config, enqueue);
+    }
+
+    /**
+     * 按slot分组依次认领，达到上限即停止
+     */
+    @Override
+    public List<ALockConfig> claimLocks(List<ALockConfig> candidates, int limit) {
+        Map<Integer, List<ALockConfig>> slots = groupBySlot(candidates);
+        if (slots.size() <= 1){
+            return super.claimLocks(candidates, limit);
+        }
+        List<ALockConfig> claimed = new ArrayList<>();
+        for (List<ALockConfig> slotConfigs : slots.values()){
+            if (claimed.size() >= limit){
+                break;
+            }
+            claimed.addAll(super.claimLocks(slotConfigs, limit - claimed.size()));
+        }
+        return claimed;
+    }
+
+    @Override
+    public boolean tryReleaseLocks(Collection<ALockConfig> configs) {
+        Map<Integer, List<ALockConfig>> slots = groupBySlot(configs);
+        if (slots.size() <= 1){
+            return super.tryReleaseLocks(configs);
+        }
+        boolean released = true;
+        for (List<ALockConfig> slotConfigs : slots.values()){
+            released &= super.tryReleaseLocks(slotConfigs);
+        }
+        return released;
+    }
+
+    /**
+     * 按key所在slot分组
+     */
+    protected static Map<Integer, List<ALockConfig>> groupBySlot(Collection<ALockConfig> configs){
+        Map<Integer, List<ALockConfig>> slots = new LinkedHashMap<>();
+        for (ALockConfig config : configs){
+            int slot = JedisClusterCRC16.getSlot(config.getLockUniqueKeyBytes());
+            List<ALockConfig> slotConfigs = slots.get(slot);
+            if (slotConfigs == null){
+                slotConfigs = new ArrayList<>();
+                slots.put(slot, slotConfigs);
+            }
+            slotConfigs.add(config);
+        }
+        return slots;
+    }
+}
@@ -1,12 +1,36 @@
 package org.apache.alock.processor.impl;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.alock.domain.ALockConfig;
-import org.apache.alock.exception.OptimisticLockingException;
 import org.apache.alock.exception.RedisProcessException;
-import org.apache.alock.jedis.JedisClient;
-import org.apache.alock.processor.ALockProcessor;
+import org.apache.alock.jedis.JedisMessageListener;
+import org.apache.alock.jedis.JedisSubscriber;
+import org.apache.alock.jedis.LuaScript;
+import org.apache.alock.jedis.RedisClient;
+import org.apache.alock.metrics.ALockMetrics;
+import org.apache.alock.metrics.ALockMetricsRegistry;
+import org.apache.alock.processor.AbstractALockProcessor;
+import org.apache.alock.processor.ALockFairProcessor;
+import org.apache.alock.processor.ALockReadWriteProcessor;
+import org.apache.alock.processor.ALockReleaseListener;
+import org.apache.alock.processor.ALockWatchListener;
+import org.apache.alock.processor.ALockWatchProcessor;
+import org.apache.alock.processor.LockNearCache;
+import org.apache.alock.processor.ASemaphoreProcessor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -14,97 +38,880 @@ import org.slf4j.LoggerFactory;
  * 基于redis的锁处理器
  * @author wy
  */
-public class RedisLockProcessor implements ALockProcessor {
+public class RedisLockProcessor extends AbstractALockProcessor implements ALockReadWriteProcessor,
+    ASemaphoreProcessor, ALockFairProcessor, ALockWatchProcessor {
     private static final Logger LOG = LoggerFactory.getLogger(RedisLockProcessor.class);
 
     /**
-     * Redis command & result code constant
+     * 抢占成功返回-1，否则返回持有者剩余租期（key无过期时间或恰好过期时返回0）
      */
-    private static final String SET_ARG_NOT_EXIST = "NX";
-    private static final String SET_ARG_EXPIRE = "PX";
-    private static final String RES_OK = "OK";
+    private static final LuaScript grabScript = new LuaScript("if (redis.call('set', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2])) then "
+        + "    return -1; "
+        + "end; "
+        + "local ttl = redis.call('pttl', KEYS[1]); "
+        + "if (ttl < 0) then "
+        + "    return 0; "
+        + "end; "
+        + "return ttl; ");
 
-    private static final String expandScript = "if (redis.call('get', KEYS[1]) == ARGV[1]) then "
+    /**
+     * 任一key已存在时返回已存在key中最长的剩余租期（全部释放后才可能抢占成功）且不做任何修改，否则全部设置
+     */
+    private static final LuaScript multiGrabScript = new LuaScript("local blocked = -1; "
+        + "for i = 1, #KEYS do "
+        + "    local ttl = redis.call('pttl', KEYS[i]); "
+        + "    if (ttl ~= -2) then "
+        + "        if (ttl < 0) then "
+        + "            ttl = 0; "
+        + "        end; "
+        + "        if (ttl > blocked) then "
+        + "            blocked = ttl; "
+        + "        end; "
+        + "    end; "
+        + "end; "
+        + "if (blocked >= 0) then "
+        + "    return blocked; "
+        + "end; "
+        + "for i = 1, #KEYS do "
+        + "    redis.call('set', KEYS[i], ARGV[2 * i - 1], 'PX', ARGV[2 * i]); "
+        + "end; "
+        + "return -1; ");
+
+    /**
+     * 按顺序SET NX候选key，达到上限即停止，返回抢占成功的key下标（从1开始）
+     */
+    private static final LuaScript claimScript = new LuaScript("local claimed = {}; "
+        + "local limit = tonumber(ARGV[1]); "
+        + "for i = 1, #KEYS do "
+        + "    if (#claimed >= limit) then "
+        + "        break; "
+        + "    end; "
+        + "    if (redis.call('set', KEYS[i], ARGV[2 * i], 'NX', 'PX', ARGV[2 * i + 1])) then "
+        + "        claimed[#claimed + 1] = i; "
+        + "    end; "
+        + "end; "
+        + "return claimed; ");
+
+    private static final LuaScript expandScript = new LuaScript("if (redis.call('get', KEYS[1]) == ARGV[1]) then "
         + "    return redis.call('pexpire', KEYS[1], ARGV[2]); "
         + "else"
         + "    return nil; "
+        + "end; ");
+
+    private static final LuaScript batchExpandScript = new LuaScript("local res = {}; "
+        + "for i = 1, #KEYS do "
+        + "    if (redis.call('get', KEYS[i]) == ARGV[2 * i - 1]) then "
+        + "        redis.call('pexpire', KEYS[i], ARGV[2 * i]); "
+        + "        res[i] = 1; "
+        + "    else "
+        + "        res[i] = 0; "
+        + "    end; "
+        + "end; "
+        + "return res; ");
+
+    private static final LuaScript unlockScript = new LuaScript("if (redis.call('get', KEYS[1]) == ARGV[1]) then "
+        + "    redis.call('del', KEYS[1]); "
+        + "    redis.call('publish', ARGV[2], ARGV[1]); "
+        + "    return 1; "
+        + "else "
+        + "    return nil; "
+        + "end;");
+
+    private static final LuaScript multiUnlockScript = new LuaScript("local released = 0; "
+        + "for i = 1, #KEYS do "
+        + "    if (redis.call('get', KEYS[i]) == ARGV[2 * i - 1]) then "
+        + "        redis.call('del', KEYS[i]); "
+        + "        redis.call('publish', ARGV[2 * i], ARGV[2 * i - 1]); "
+        + "        released = released + 1; "
+        + "    end; "
+        + "end; "
+        + "return released; ");
+
+    /**
+     * 读写锁hash：mode为read/write，writer为写持有者，r:<lockValue>为各节点读租约的到期时间，
+     * wi/wie为等待中的写者及其到期时间。以redis服务端时间判断读租约与写等待是否过期，
+     * 先清理过期的读者与写等待
+     */
+    private static final String rwPrelude = "redis.replicate_commands(); "
+        + "local t = redis.call('time'); "
+        + "local now = tonumber(t[1]) * 1000 + math.floor(tonumber(t[2]) / 1000); "
+        + "local readers = 0; "
+        + "local minExpire = nil; "
+        + "local fields = redis.call('hgetall', KEYS[1]); "
+        + "for i = 1, #fields, 2 do "
+        + "    if (string.sub(fields[i], 1, 2) == 'r:') then "
+        + "        local e = tonumber(fields[i + 1]); "
+        + "        if (e <= now) then "
+        + "            redis.call('hdel', KEYS[1], fields[i]); "
+        + "        else "
+        + "            readers = readers + 1; "
+        + "            if (minExpire == nil or e < minExpire) then "
+        + "                minExpire = e; "
+        + "            end; "
+        + "        end; "
+        + "    end; "
+        + "end; "
+        + "local intent = redis.call('hget', KEYS[1], 'wi'); "
+        + "if (intent and tonumber(redis.call('hget', KEYS[1], 'wie')) <= now) then "
+        + "    redis.call('hdel', KEYS[1], 'wi', 'wie'); "
+        + "    intent = false; "
+        + "end; "
+        + "local mode = redis.call('hget', KEYS[1], 'mode'); "
+        + "if (mode == 'read' and readers == 0) then "
+        + "    redis.call('hdel', KEYS[1], 'mode'); "
+        + "    mode = false; "
+        + "end; "
+        + "local function extend(lease) "
+        + "    if (redis.call('pttl', KEYS[1]) < lease) then "
+        + "        redis.call('pexpire', KEYS[1], lease); "
+        + "    end; "
+        + "end; "
+        + "local function wait() "
+        + "    if (mode == 'write') then "
+        + "        local ttl = redis.call('pttl', KEYS[1]); "
+        + "        if (ttl < 0) then "
+        + "            return 0; "
+        + "        end; "
+        + "        return ttl; "
+        + "    end; "
+        + "    if (minExpire == nil) then "
+        + "        return 0; "
+        + "    end; "
+        + "    return minExpire - now; "
         + "end; ";
 
-    private static final String unlockScript = "if (redis.call('get', KEYS[1]) == ARGV[1]) then "
-        + "    return redis.call('del', KEYS[1]); "
+    /**
+     * 无写持有者且无他人写等待（或本节点已持有读锁）时登记读租约
+     */
+    private static final LuaScript readGrabScript = new LuaScript(rwPrelude
+        + "local field = 'r:' .. ARGV[1]; "
+        + "if (mode == 'write' or (intent and redis.call('hexists', KEYS[1], field) == 0)) then "
+        + "    return wait(); "
+        + "end; "
+        + "redis.call('hset', KEYS[1], 'mode', 'read'); "
+        + "redis.call('hset', KEYS[1], field, now + tonumber(ARGV[2])); "
+        + "extend(tonumber(ARGV[2])); "
+        + "return -1; ");
+
+    /**
+     * 存在读者时登记写等待（先到的写者优先），否则设置写持有者。写者按读租约剩余时间安排重试，间隔最长约为租期的1.1倍，
+     * 写等待有效期取两倍租期，两次重试之间不会过期而让新读者插队
+     */
+    private static final LuaScript writeGrabScript = new LuaScript(rwPrelude
+        + "if (mode == 'write') then "
+        + "    return wait(); "
+        + "end; "
+        + "if (intent and intent ~= ARGV[1]) then "
+        + "    return 0; "
+        + "end; "
+        + "if (readers > 0) then "
+        + "    redis.call('hset', KEYS[1], 'wi', ARGV[1]); "
+        + "    redis.call('hset', KEYS[1], 'wie', now + 2 * tonumber(ARGV[2])); "
+        + "    extend(tonumber(ARGV[2])); "
+        + "    return wait(); "
+        + "end; "
+        + "redis.call('hdel', KEYS[1], 'wi', 'wie'); "
+        + "redis.call('hmset', KEYS[1], 'mode', 'write', 'writer', ARGV[1]); "
+        + "redis.call('pexpire', KEYS[1], ARGV[2]); "
+        + "return -1; ");
+
+    /**
+     * 续租读锁，有写者等待时返回2
+     */
+    private static final LuaScript readExpandScript = new LuaScript(rwPrelude
+        + "local field = 'r:' .. ARGV[1]; "
+        + "if (redis.call('hexists', KEYS[1], field) == 0) then "
+        + "    return 0; "
+        + "end; "
+        + "redis.call('hset', KEYS[1], field, now + tonumber(ARGV[2])); "
+        + "extend(tonumber(ARGV[2])); "
+        + "if (intent) then "
+        + "    return 2; "
+        + "end; "
+        + "return 1; ");
+
+    private static final LuaScript writeExpandScript = new LuaScript("if (redis.call('hget', KEYS[1], 'mode') == 'write' "
+        + "    and redis.call('hget', KEYS[1], 'writer') == ARGV[1]) then "
+        + "    return redis.call('pexpire', KEYS[1], ARGV[2]); "
+        + "else "
+        + "    return nil; "
+        + "end; ");
+
+    /**
+     * 删除本节点读租约，最后一个读者离开时发布释放通知
+     */
+    private static final LuaScript readUnlockScript = new LuaScript(rwPrelude
+        + "if (redis.call('hdel', KEYS[1], 'r:' .. ARGV[1]) == 0) then "
+        + "    return nil; "
+        + "end; "
+        + "if (readers <= 1) then "
+        + "    if (intent) then "
+        + "        redis.call('hdel', KEYS[1], 'mode'); "
+        + "    else "
+        + "        redis.call('del', KEYS[1]); "
+        + "    end; "
+        + "    redis.call('publish', ARGV[2], ARGV[1]); "
+        + "end; "
+        + "return 1; ");
+
+    /**
+     * 释放写锁，保留其他写者的写等待
+     */
+    private static final LuaScript writeUnlockScript = new LuaScript("if (redis.call('hget', KEYS[1], 'mode') == 'write' "
+        + "    and redis.call('hget', KEYS[1], 'writer') == ARGV[1]) then "
+        + "    if (redis.call('hexists', KEYS[1], 'wi') == 1) then "
+        + "        redis.call('hdel', KEYS[1], 'mode', 'writer'); "
+        + "    else "
+        + "        redis.call('del', KEYS[1]); "
+        + "    end; "
+        + "    redis.call('publish', ARGV[2], ARGV[1]); "
+        + "    return 1; "
         + "else "
         + "    return nil; "
-        + "end;";
+        + "end; ");
 
-    private final JedisClient jedisClient;
+    /**
+     * 信号量有序集合：成员为许可标识，分值为租约到期时间（redis服务端时间），先回收过期许可
+     */
+    private static final String semaphorePrelude = "redis.replicate_commands(); "
+        + "local t = redis.call('time'); "
+        + "local now = tonumber(t[1]) * 1000 + math.floor(tonumber(t[2]) / 1000); "
+        + "redis.call('zremrangebyscore', KEYS[1], '-inf', now); ";
+
+    /**
+     * ARGV[1]为许可总数，ARGV[2]为租期，其后为许可标识；余量不足时返回最早到期许可的剩余租期
+     */
+    private static final LuaScript acquirePermitsScript = new LuaScript(semaphorePrelude
+        + "local lease = tonumber(ARGV[2]); "
+        + "if (redis.call('zcard', KEYS[1]) + #ARGV - 2 > tonumber(ARGV[1])) then "
+        + "    local first = redis.call('zrange', KEYS[1], 0, 0, 'WITHSCORES'); "
+        + "    if (#first == 0) then "
+        + "        return 0; "
+        + "    end; "
+        + "    return math.max(tonumber(first[2]) - now, 0); "
+        + "end; "
+        + "for i = 3, #ARGV do "
+        + "    redis.call('zadd', KEYS[1], now + lease, ARGV[i]); "
+        + "end; "
+        + "if (redis.call('pttl', KEYS[1]) < lease) then "
+        + "    redis.call('pexpire', KEYS[1], lease); "
+        + "end; "
+        + "return -1; ");
+
+    /**
+     * ARGV[1]为租期，其后为许可标识，返回已丢失的许可
+     */
+    private static final LuaScript expandPermitsScript = new LuaScript(semaphorePrelude
+        + "local lease = tonumber(ARGV[1]); "
+        + "local lost = {}; "
+        + "for i = 2, #ARGV do "
+        + "    if (redis.call('zscore', KEYS[1], ARGV[i])) then "
+        + "        redis.call('zadd', KEYS[1], now + lease, ARGV[i]); "
+        + "    else "
+        + "        lost[#lost + 1] = ARGV[i]; "
+        + "    end; "
+        + "end; "
+        + "if (redis.call('pttl', KEYS[1]) < lease) then "
+        + "    redis.call('pexpire', KEYS[1], lease); "
+        + "end; "
+        + "return lost; ");
+
+    /**
+     * ARGV[1]为释放通知频道，其后为许可标识
+     */
+    private static final LuaScript releasePermitsScript = new LuaScript("local released = 0; "
+        + "for i = 2, #ARGV do "
+        + "    released = released + redis.call('zrem', KEYS[1], ARGV[i]); "
+        + "end; "
+        + "if (released > 0) then "
+        + "    redis.call('publish', ARGV[1], released); "
+        + "end; "
+        + "return released; ");
+
+    /**
+     * 公平锁：KEYS[1]为锁，KEYS[2]为按入队时间排序的票据队列，KEYS[3]为票据到期时间；
+     * 先清理过期票据，只有无更早票据时才能抢占。等待者按持有者剩余租期安排重试，间隔最长约为租期的1.1倍，
+     * 票据有效期取两倍租期，正常等待的票据不会在两次刷新之间过期
+     */
+    private static final LuaScript fairGrabScript = new LuaScript("redis.replicate_commands(); "
+        + "local t = redis.call('time'); "
+        + "local now = tonumber(t[1]) * 1000 + math.floor(tonumber(t[2]) / 1000); "
+        + "local expired = redis.call('zrangebyscore', KEYS[3], '-inf', now); "
+        + "for i = 1, #expired do "
+        + "    redis.call('zrem', KEYS[2], expired[i]); "
+        + "    redis.call('zrem', KEYS[3], expired[i]); "
+        + "end; "
+        + "local head = redis.call('zrange', KEYS[2], 0, 0); "
+        + "if ((#head == 0 or head[1] == ARGV[1]) "
+        + "    and redis.call('set', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2])) then "
+        + "    redis.call('zrem', KEYS[2], ARGV[1]); "
+        + "    redis.call('zrem', KEYS[3], ARGV[1]); "
+        + "    return -1; "
+        + "end; "
+        + "if (ARGV[3] == '1') then "
+        + "    if (not redis.call('zscore', KEYS[2], ARGV[1])) then "
+        + "        redis.call('zadd', KEYS[2], now, ARGV[1]); "
+        + "    end; "
+        + "    redis.call('zadd', KEYS[3], now + 2 * tonumber(ARGV[2]), ARGV[1]); "
+        + "end; "
+        + "local ttl = redis.call('pttl', KEYS[1]); "
+        + "if (ttl < 0) then "
+        + "    return 0; "
+        + "end; "
+        + "return ttl; ");
+
+    /**
+     * 释放公平锁，只向队首票据的频道（ARGV[2]_票据）发布通知
+     */
+    private static final LuaScript fairUnlockScript = new LuaScript("if (redis.call('get', KEYS[1]) == ARGV[1]) then "
+        + "    redis.call('del', KEYS[1]); "
+        + "    local head = redis.call('zrange', KEYS[2], 0, 0); "
+        + "    if (#head > 0) then "
+        + "        redis.call('publish', ARGV[2] .. '_' .. head[1], ARGV[1]); "
+        + "    end; "
+        + "    return 1; "
+        + "else "
+        + "    return nil; "
+        + "end; ");
+
+    private static final LuaScript cancelTicketScript = new LuaScript("local head = redis.call('zrange', KEYS[2], 0, 0); "
+        + "redis.call('zrem', KEYS[2], ARGV[1]); "
+        + "redis.call('zrem', KEYS[3], ARGV[1]); "
+        + "if (#head > 0 and head[1] == ARGV[1] and redis.call('exists', KEYS[1]) == 0) then "
+        + "    local nextHead = redis.call('zrange', KEYS[2], 0, 0); "
+        + "    if (#nextHead > 0) then "
+        + "        redis.call('publish', ARGV[2] .. '_' .. nextHead[1], ARGV[1]); "
+        + "    end; "
+        + "end; "
+        + "return 1; ");
+
+    private static final byte[] ENQUEUE = "1".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] NOT_ENQUEUE = "0".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * 可能意味着锁丢失的keyspace事件，续租的pexpire等事件忽略
+     */
+    private static final Set<String> WATCH_EVENTS = new HashSet<>(Arrays.asList("set", "del", "expired", "evicted"));
+
+    private final RedisClient jedisClient;
+
+    /**
+     * 持有中并监听变更的锁，按lockUniqueKey分发keyspace事件
+     */
+    private final ConcurrentMap<String, Set<ALockWatchListener>> lockWatchers = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean keyspaceSubscribing = new AtomicBoolean(false);
+
+    private volatile boolean keyspaceSubscribed;
+
+    private final JedisMessageListener keyspaceListener = new JedisMessageListener() {
+        @Override
+        public void onMessage(String channel, String message) {
+            onKeyspaceEvent(JedisSubscriber.keyspaceKey(channel), message);
+        }
+    };
 
-    public RedisLockProcessor(JedisClient jedisClient){
+    /**
+     * 可选的锁持有者近缓存，lockValue与isLockFree优先从本地读取
+     */
+    private volatile LockNearCache nearCache;
+
+    private final LockNearCache.Loader remoteLoader = new LockNearCache.Loader() {
+        @Override
+        public String load(String key) {
+            return get(key);
+        }
+    };
+
+    public RedisLockProcessor(RedisClient jedisClient){
         this.jedisClient = jedisClient;
     }
 
+    public void setNearCache(LockNearCache nearCache) {
+        this.nearCache = nearCache;
+    }
+
+    public LockNearCache getNearCache() {
+        return nearCache;
+    }
+
     @Override
     public String lockValue(String lockKey) {
         try{
-            return jedisClient.get(lockKey);
+            LockNearCache cache = nearCache;
+            return cache == null ? get(lockKey) : cache.get(lockKey, remoteLoader);
         }catch (Exception e){
             LOG.error("lockValue error, lockKey:" + lockKey, e);
             throw new RedisProcessException("lockValue error, lockKey:" + lockKey, e);
         }
     }
 
+    /**
+     * Grab lock with lua script, return remaining ttl of the holder on failure.
+     */
     @Override
-    public void grabLock(ALockConfig config) {
-        String grabResult = null;
+    public long tryGrabLock(ALockConfig config) {
+        Object grabRes = null;
         try{
-            grabResult = jedisClient.set(config.getLockUniqueKey(), config.getLockValue(), SET_ARG_NOT_EXIST,
-                SET_ARG_EXPIRE, config.getMillisLease());
+            grabRes = evalsha("grabLock", grabScript, Collections.singletonList(config.getLockUniqueKeyBytes()),
+                Arrays.asList(config.getLockValueBytes(), config.getMillisLeaseBytes()));
         }catch (Exception e){
             LOG.error("grabLock error, key:" + config.getLockUniqueKey(), e);
             throw new RedisProcessException("grabLock error, key:" + config.getLockUniqueKey(), e);
         }
-        if (!RES_OK.equals(grabResult)){
-            LOG.warn("grabLock failed, key:" + config.getLockUniqueKey());
-            throw new OptimisticLockingException("grabLock failed, key:" + config.getLockUniqueKey());
+        return ((Long) grabRes).longValue();
+    }
+
+    /**
+     * Grab all locks or none with one lua script.
+     */
+    @Override
+    public long tryGrabLocks(Collection<ALockConfig> configs) {
+        List<byte[]> keys = new ArrayList<>(configs.size());
+        List<byte[]> args = new ArrayList<>(configs.size() * 2);
+        for (ALockConfig config : configs){
+            keys.add(config.getLockUniqueKeyBytes());
+            args.add(config.getLockValueBytes());
+            args.add(config.getMillisLeaseBytes());
+        }
+        Object grabRes = null;
+        try{
+            grabRes = evalsha("grabLocks", multiGrabScript, keys, args);
+        }catch (Exception e){
+            LOG.error("grabLocks error, size:" + configs.size(), e);
+            throw new RedisProcessException("grabLocks error, size:" + configs.size(), e);
+        }
+        return ((Long) grabRes).longValue();
+    }
+
+    /**
+     * Claim up to limit candidates with one lua script.
+     */
+    @Override
+    public List<ALockConfig> claimLocks(List<ALockConfig> candidates, int limit) {
+        if (candidates.isEmpty() || limit <= 0){
+            return new ArrayList<>();
+        }
+        List<byte[]> keys = new ArrayList<>(candidates.size());
+        List<byte[]> args = new ArrayList<>(candidates.size() * 2 + 1);
+        args.add(String.valueOf(limit).getBytes(StandardCharsets.UTF_8));
+        for (ALockConfig config : candidates){
+            keys.add(config.getLockUniqueKeyBytes());
+            args.add(config.getLockValueBytes());
+            args.add(config.getMillisLeaseBytes());
+        }
+        Object claimRes = null;
+        try{
+            claimRes = evalsha("claimLocks", claimScript, keys, args);
+        }catch (Exception e){
+            LOG.error("claimLocks error, candidates:" + candidates.size(), e);
+            throw new RedisProcessException("claimLocks error, candidates:" + candidates.size(), e);
+        }
+        List<?> claimedIdx = (List<?>) claimRes;
+        List<ALockConfig> claimed = new ArrayList<>(claimedIdx.size());
+        for (Object idx : claimedIdx){
+            claimed.add(candidates.get(((Long) idx).intValue() - 1));
         }
+        return claimed;
     }
 
     /**
-     * Extend lease for lock with lua script.
+     * Extend lease for lock with cached lua script.
      */
     @Override
-    public void expandLockExpire(ALockConfig config) {
+    public boolean tryExpandLockExpire(ALockConfig config) {
         Object expandRes = null;
         try{
-            expandRes = jedisClient.eval(expandScript, Arrays.asList(config.getLockUniqueKey()),
-                Arrays.asList(config.getLockValue(), config.getMillisLease() + ""));
+            expandRes = evalsha("expandLockExpire", expandScript, Collections.singletonList(config.getLockUniqueKeyBytes()),
+                Arrays.asList(config.getLockValueBytes(), config.getMillisLeaseBytes()));
         }catch (Exception e){
             LOG.error("expandLockExpire error, key:" + config.getLockUniqueKey(), e);
             throw new RedisProcessException("expandLockExpire error, key:" + config.getLockUniqueKey(), e);
         }
-        if (null == expandRes){
-            throw new OptimisticLockingException("failed to expand redis lock expire time, key:" + config.getLockUniqueKey());
+        return null != expandRes;
+    }
+
+    /**
+     * Extend lease for a batch of locks with one lua script.
+     */
+    @Override
+    public Map<ALockConfig, Boolean> expandLockExpire(Collection<ALockConfig> configs) {
+        Map<ALockConfig, Boolean> results = new IdentityHashMap<>(configs.size());
+        if (configs.isEmpty()){
+            return results;
+        }
+        List<byte[]> keys = new ArrayList<>(configs.size());
+        List<byte[]> args = new ArrayList<>(configs.size() * 2);
+        for (ALockConfig config : configs){
+            keys.add(config.getLockUniqueKeyBytes());
+            args.add(config.getLockValueBytes());
+            args.add(config.getMillisLeaseBytes());
+        }
+        Object expandRes = null;
+        try{
+            expandRes = evalsha("expandLockExpires", batchExpandScript, keys, args);
+        }catch (Exception e){
+            LOG.error("expandLockExpire error, batch size:" + configs.size(), e);
+            throw new RedisProcessException("expandLockExpire error, batch size:" + configs.size(), e);
+        }
+        List<?> expandList = (List<?>) expandRes;
+        int i = 0;
+        for (ALockConfig config : configs){
+            results.put(config, Long.valueOf(1L).equals(expandList.get(i++)));
         }
+        return results;
     }
 
     @Override
-    public void releaseLock(ALockConfig config) {
+    public boolean tryReleaseLock(ALockConfig config) {
         Object unlockRes = null;
         try{
-            unlockRes = jedisClient.eval(unlockScript, Arrays.asList(config.getLockUniqueKey()),
-                Arrays.asList(config.getLockValue()));
+            unlockRes = evalsha("releaseLock", unlockScript, Collections.singletonList(config.getLockUniqueKeyBytes()),
+                Arrays.asList(config.getLockValueBytes(), config.getLockChannelBytes()));
         }catch (Exception e){
             LOG.error("releaseLock error, key:{}, value:{}", config.getLockUniqueKey(), config.getLockValue());
             throw new RedisProcessException("releaseLock error, key:" + config.getLockUniqueKey()
                 +", value:" + config.getLockValue(), e);
         }
-        if (null == unlockRes){
-            throw new OptimisticLockingException(String.format("releaseLock failed, maybe obtained by other process, key:{}, value:{}",
-                config.getLockUniqueKey(), config.getLockValue()));
+        return null != unlockRes;
+    }
+
+    @Override
+    public boolean tryReleaseLocks(Collection<ALockConfig> configs) {
+        List<byte[]> keys = new ArrayList<>(configs.size());
+        List<byte[]> args = new ArrayList<>(configs.size() * 2);
+        for (ALockConfig config : configs){
+            keys.add(config.getLockUniqueKeyBytes());
+            args.add(config.getLockValueBytes());
+            args.add(config.getLockChannelBytes());
+        }
+        Object unlockRes = null;
+        try{
+            unlockRes = evalsha("releaseLocks", multiUnlockScript, keys, args);
+        }catch (Exception e){
+            LOG.error("releaseLocks error, size:" + configs.size(), e);
+            throw new RedisProcessException("releaseLocks error, size:" + configs.size(), e);
         }
+        return ((Long) unlockRes).intValue() == configs.size();
     }
 
     @Override
-    public boolean isLockFree(String lockKey) {
-        return null == lockValue(lockKey);
+    public long tryGrabReadLock(ALockConfig config) {
+        return ((Long) evalReadWrite(readGrabScript, config, config.getMillisLeaseBytes(), "grabReadLock")).longValue();
+    }
+
+    @Override
+    public long tryGrabWriteLock(ALockConfig config) {
+        return ((Long) evalReadWrite(writeGrabScript, config, config.getMillisLeaseBytes(), "grabWriteLock")).longValue();
+    }
+
+    @Override
+    public int tryExpandReadLock(ALockConfig config) {
+        return ((Long) evalReadWrite(readExpandScript, config, config.getMillisLeaseBytes(), "expandReadLock")).intValue();
+    }
+
+    @Override
+    public boolean tryExpandWriteLock(ALockConfig config) {
+        return null != evalReadWrite(writeExpandScript, config, config.getMillisLeaseBytes(), "expandWriteLock");
+    }
+
+    @Override
+    public boolean tryReleaseReadLock(ALockConfig config) {
+        return null != evalReadWrite(readUnlockScript, config, config.getLockChannelBytes(), "releaseReadLock");
+    }
+
+    @Override
+    public boolean tryReleaseWriteLock(ALockConfig config) {
+        return null != evalReadWrite(writeUnlockScript, config, config.getLockChannelBytes(), "releaseWriteLock");
+    }
+
+    private Object evalReadWrite(LuaScript script, ALockConfig config, byte[] arg, String op){
+        try{
+            return evalsha(op, script, Collections.singletonList(config.getLockUniqueKeyBytes()),
+                Arrays.asList(config.getLockValueBytes(), arg));
+        }catch (Exception e){
+            LOG.error(op + " error, key:" + config.getLockUniqueKey(), e);
+            throw new RedisProcessException(op + " error, key:" + config.getLockUniqueKey(), e);
+        }
+    }
+
+    @Override
+    public long tryAcquirePermits(ALockConfig config, int totalPermits, Collection<String> permitIds) {
+        List<byte[]> args = new ArrayList<>(permitIds.size() + 2);
+        args.add(String.valueOf(totalPermits).getBytes(StandardCharsets.UTF_8));
+        args.add(config.getMillisLeaseBytes());
+        addPermitIds(args, permitIds);
+        Object acquireRes = null;
+        try{
+            acquireRes = evalsha("acquirePermits", acquirePermitsScript, Collections.singletonList(config.getLockUniqueKeyBytes()),
+                args);
+        }catch (Exception e){
+            LOG.error("acquirePermits error, key:" + config.getLockUniqueKey(), e);
+            throw new RedisProcessException("acquirePermits error, key:" + config.getLockUniqueKey(), e);
+        }
+        return ((Long) acquireRes).longValue();
+    }
+
+    @Override
+    public List<String> expandPermits(ALockConfig config, Collection<String> permitIds) {
+        List<byte[]> args = new ArrayList<>(permitIds.size() + 1);
+        args.add(config.getMillisLeaseBytes());
+        addPermitIds(args, permitIds);
+        Object expandRes = null;
+        try{
+            expandRes = evalsha("expandPermits", expandPermitsScript, Collections.singletonList(config.getLockUniqueKeyBytes()),
+                args);
+        }catch (Exception e){
+            LOG.error("expandPermits error, key:" + config.getLockUniqueKey(), e);
+            throw new RedisProcessException("expandPermits error, key:" + config.getLockUniqueKey(), e);
+        }
+        List<?> lostRes = (List<?>) expandRes;
+        List<String> lost = new ArrayList<>(lostRes.size());
+        for (Object permitId : lostRes){
+            lost.add(new String((byte[]) permitId, StandardCharsets.UTF_8));
+        }
+        return lost;
+    }
+
+    @Override
+    public int releasePermits(ALockConfig config, Collection<String> permitIds) {
+        List<byte[]> args = new ArrayList<>(permitIds.size() + 1);
+        args.add(config.getLockChannelBytes());
+        addPermitIds(args, permitIds);
+        Object releaseRes = null;
+        try{
+            releaseRes = evalsha("releasePermits", releasePermitsScript, Collections.singletonList(config.getLockUniqueKeyBytes()),
+                args);
+        }catch (Exception e){
+            LOG.error("releasePermits error, key:" + config.getLockUniqueKey(), e);
+            throw new RedisProcessException("releasePermits error, key:" + config.getLockUniqueKey(), e);
+        }
+        return ((Long) releaseRes).intValue();
+    }
+
+    private static void addPermitIds(List<byte[]> args, Collection<String> permitIds){
+        for (String permitId : permitIds){
+            args.add(permitId.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Override
+    public long tryGrabFairLock(ALockConfig config, boolean enqueue) {
+        Object grabRes = null;
+        try{
+            grabRes = evalsha("grabFairLock", fairGrabScript, fairKeys(config),
+                Arrays.asList(config.getLockValueBytes(), config.getMillisLeaseBytes(), enqueue ? ENQUEUE : NOT_ENQUEUE));
+        }catch (Exception e){
+            LOG.error("grabFairLock error, key:" + config.getLockUniqueKey(), e);
+            throw new RedisProcessException("grabFairLock error, key:" + config.getLockUniqueKey(), e);
+        }
+        return ((Long) grabRes).longValue();
+    }
+
+    @Override
+    public boolean tryReleaseFairLock(ALockConfig config) {
+        Object unlockRes = null;
+        try{
+            unlockRes = evalsha("releaseFairLock", fairUnlockScript, fairKeys(config),
+                Arrays.asList(config.getLockValueBytes(), config.getLockChannelBytes()));
+        }catch (Exception e){
+            LOG.error("releaseFairLock error, key:{}, value:{}", config.getLockUniqueKey(), config.getLockValue());
+            throw new RedisProcessException("releaseFairLock error, key:" + config.getLockUniqueKey()
+                +", value:" + config.getLockValue(), e);
+        }
+        return null != unlockRes;
+    }
+
+    /**
+     * 单机redis上锁key与票据队列key总能在同一脚本中访问
+     */
+    @Override
+    public void checkFairLock(ALockConfig config) {
+    }
+
+    @Override
+    public void cancelTicket(ALockConfig config) {
+        try{
+            evalsha("cancelTicket", cancelTicketScript, fairKeys(config),
+                Arrays.asList(config.getLockValueBytes(), config.getLockChannelBytes()));
+        }catch (Exception e){
+            LOG.error("cancelTicket error, key:" + config.getLockUniqueKey(), e);
+            throw new RedisProcessException("cancelTicket error, key:" + config.getLockUniqueKey(), e);
+        }
+    }
+
+    @Override
+    public boolean subscribeTicket(ALockConfig config, ALockReleaseListener listener) {
+        try{
+            jedisClient.subscribe(config.getLockTicketChannel(), new ReleaseMessageListener(config, listener));
+            return true;
+        }catch (Exception e){
+            LOG.error("subscribeTicket error, key:" + config.getLockUniqueKey(), e);
+            return false;
+        }
+    }
+
+    @Override
+    public void unsubscribeTicket(ALockConfig config, ALockReleaseListener listener) {
+        try{
+            jedisClient.unsubscribe(config.getLockTicketChannel(), new ReleaseMessageListener(config, listener));
+        }catch (Exception e){
+            LOG.error("unsubscribeTicket error, key:" + config.getLockUniqueKey(), e);
+        }
+    }
+
+    private static List<byte[]> fairKeys(ALockConfig config){
+        if (!config.isFair()){
+            throw new IllegalArgumentException("lock config is not fair, key:" + config.getLockUniqueKey());
+        }
+        return Arrays.asList(config.getLockUniqueKeyBytes(), config.getLockQueueKeyBytes(),
+            config.getLockTicketTimeoutKeyBytes());
+    }
+
+    @Override
+    public boolean subscribeRelease(ALockConfig config, ALockReleaseListener listener) {
+        try{
+            jedisClient.subscribe(config.getLockChannel(), new ReleaseMessageListener(config, listener));
+            return true;
+        }catch (Exception e){
+            LOG.error("subscribeRelease error, key:" + config.getLockUniqueKey(), e);
+            return false;
+        }
+    }
+
+    @Override
+    public void unsubscribeRelease(ALockConfig config, ALockReleaseListener listener) {
+        try{
+            jedisClient.unsubscribe(config.getLockChannel(), new ReleaseMessageListener(config, listener));
+        }catch (Exception e){
+            LOG.error("unsubscribeRelease error, key:" + config.getLockUniqueKey(), e);
+        }
+    }
+
+    /**
+     * 首次监听时以锁前缀订阅一次keyspace通知（需redis配置notify-keyspace-events包含Kg$x），
+     * 之后只在本地登记；客户端不支持keyspace通知（如集群模式）时直接返回false，订阅失败则下次监听时重试
+     */
+    @Override
+    public boolean watchLock(ALockConfig config, ALockWatchListener listener) {
+        if (!jedisClient.supportsKeyspaceNotifications()){
+            return false;
+        }
+        if (!keyspaceSubscribed && keyspaceSubscribing.compareAndSet(false, true)){
+            try{
+                jedisClient.subscribeKeyspace(ALockConfig.ALOCK_PREFIX + ALockConfig.ALOCK_SEPRATOR + "*", keyspaceListener);
+                keyspaceSubscribed = true;
+            }catch (Exception e){
+                //订阅失败可能是暂时的，下次监听时重试
+                LOG.warn("keyspace subscription failed, lease loss is detected by renewal only until it succeeds: {}",
+                    e.toString());
+            }finally {
+                keyspaceSubscribing.set(false);
+            }
+        }
+        if (!keyspaceSubscribed){
+            return false;
+        }
+        String key = config.getLockUniqueKey();
+        Set<ALockWatchListener> listeners = lockWatchers.get(key);
+        if (listeners == null){
+            lockWatchers.putIfAbsent(key, new CopyOnWriteArraySet<ALockWatchListener>());
+            listeners = lockWatchers.get(key);
+        }
+        listeners.add(listener);
+        return true;
+    }
+
+    @Override
+    public void unwatchLock(ALockConfig config, ALockWatchListener listener) {
+        String key = config.getLockUniqueKey();
+        Set<ALockWatchListener> listeners = lockWatchers.get(key);
+        if (listeners == null){
+            return;
+        }
+        listeners.remove(listener);
+        if (listeners.isEmpty()){
+            lockWatchers.remove(key, listeners);
+        }
+    }
+
+    @Override
+    public boolean isLockHeld(ALockConfig config) {
+        try{
+            return config.getLockValue().equals(get(config.getLockUniqueKey()));
+        }catch (Exception e){
+            LOG.error("isLockHeld error, key:" + config.getLockUniqueKey(), e);
+            throw new RedisProcessException("isLockHeld error, key:" + config.getLockUniqueKey(), e);
+        }
+    }
+
+    private void onKeyspaceEvent(String key, String event){
+        if (!WATCH_EVENTS.contains(event)){
+            return;
+        }
+        Set<ALockWatchListener> listeners = lockWatchers.get(key);
+        if (listeners == null){
+            return;
+        }
+        for (ALockWatchListener listener : listeners){
+            listener.onLockChanged(key, event);
+        }
+    }
+
+    /**
+     * 执行脚本，开启埋点时记录命令往返时间
+     */
+    private Object evalsha(String command, LuaScript script, List<byte[]> keys, List<byte[]> args){
+        ALockMetrics metrics = ALockMetricsRegistry.get();
+        if (!metrics.isEnabled()){
+            return jedisClient.evalsha(script, keys, args);
+        }
+        long start = System.nanoTime();
+        try{
+            return jedisClient.evalsha(script, keys, args);
+        }finally {
+            metrics.commandCompleted(command, System.nanoTime() - start);
+        }
+    }
+
+    private String get(String key){
+        ALockMetrics metrics = ALockMetricsRegistry.get();
+        if (!metrics.isEnabled()){
+            return jedisClient.get(key);
+        }
+        long start = System.nanoTime();
+        try{
+            return jedisClient.get(key);
+        }finally {
+            metrics.commandCompleted("lockValue", System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 频道消息转换为锁释放通知，按listener判等以便取消订阅
+     */
+    private static class ReleaseMessageListener implements JedisMessageListener{
+        private final ALockConfig config;
+        private final ALockReleaseListener listener;
+
+        ReleaseMessageListener(ALockConfig config, ALockReleaseListener listener){
+            this.config = config;
+            this.listener = listener;
+        }
+
+        @Override
+        public void onMessage(String channel, String message) {
+            listener.onRelease(config.getLockUniqueKey());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ReleaseMessageListener && ((ReleaseMessageListener) o).listener == listener;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(listener);
+        }
     }
 }
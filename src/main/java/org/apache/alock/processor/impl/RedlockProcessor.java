@@ -0,0 +1,356 @@
+package org.apache.alock.processor.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.alock.domain.ALockConfig;
+import org.apache.alock.exception.ALockProcessException;
+import org.apache.alock.processor.ALockProcessor;
+import org.apache.alock.processor.ALockReleaseListener;
+import org.apache.alock.processor.AbstractALockProcessor;
+import org.apache.alock.scheduler.ALockThreads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Redlock：在N个相互独立的节点上并行加锁，多数节点成功且扣除耗时与时钟漂移后租约仍有效才算成功，
+ * 续租、释放同样并行执行；一旦多数已不可能达成或超出延迟预算即提前返回。
+ * 节点以ALockProcessor表示，测试时可替换为本地实现。
+ * @author wy
+ */
+public class RedlockProcessor extends AbstractALockProcessor {
+    private static final Logger LOG = LoggerFactory.getLogger(RedlockProcessor.class);
+
+    /**
+     * 时钟漂移系数及固定补偿
+     */
+    private static final double CLOCK_DRIFT_FACTOR = 0.01;
+    private static final long CLOCK_DRIFT_MIN_MS = 2L;
+
+    /**
+     * 默认的单次请求等待预算（毫秒），超过后不再等待未应答的节点
+     */
+    public static final long DEFAULT_LATENCY_BUDGET_MS = 50L;
+
+    private static final ExecutorService DEFAULT_EXECUTOR = ALockThreads.newCachedExecutor("RedlockWorker");
+
+    private final List<ALockProcessor> nodes;
+
+    private final int quorum;
+
+    private final long latencyBudgetMillis;
+
+    private final ExecutorService executor;
+
+    public RedlockProcessor(List<ALockProcessor> nodes){
+        this(nodes, DEFAULT_LATENCY_BUDGET_MS, DEFAULT_EXECUTOR);
+    }
+
+    public RedlockProcessor(List<ALockProcessor> nodes, long latencyBudgetMillis){
+        this(nodes, latencyBudgetMillis, DEFAULT_EXECUTOR);
+    }
+
+    public RedlockProcessor(List<ALockProcessor> nodes, long latencyBudgetMillis, ExecutorService executor){
+        if (nodes == null || nodes.isEmpty()){
+            throw new IllegalArgumentException("redlock requires at least one node.");
+        }
+        if (latencyBudgetMillis <= 0){
+            throw new IllegalArgumentException("redlock latency budget must be positive.");
+        }
+        this.nodes = new ArrayList<>(nodes);
+        this.quorum = nodes.size() / 2 + 1;
+        this.latencyBudgetMillis = latencyBudgetMillis;
+        this.executor = executor;
+    }
+
+    @Override
+    public String lockValue(String lockKey) {
+        Quorum<String> q = call(node -> node.lockValue(lockKey), null);
+        Map<String, Integer> counts = new HashMap<>();
+        for (Object v : q.results){
+            if (v != null){
+                Integer c = counts.get(v);
+                counts.put((String) v, c == null ? 1 : c + 1);
+            }
+        }
+        for (Map.Entry<String, Integer> e : counts.entrySet()){
+            if (e.getValue() >= quorum){
+                return e.getKey();
+            }
+        }
+        if (q.failures > nodes.size() - quorum){
+            throw new ALockProcessException("lockValue failed on majority, key:" + lockKey);
+        }
+        return null;
+    }
+
+    @Override
+    public long tryGrabLock(ALockConfig config) {
+        return quorumGrab(node -> node.tryGrabLock(config), config.getMillisLease(),
+            node -> node.tryReleaseLock(config), config.getLockUniqueKey());
+    }
+
+    @Override
+    public long tryGrabLocks(Collection<ALockConfig> configs) {
+        long minLease = Long.MAX_VALUE;
+        for (ALockConfig config : configs){
+            minLease = Math.min(minLease, config.getMillisLease());
+        }
+        return quorumGrab(node -> node.tryGrabLocks(configs), minLease,
+            node -> node.tryReleaseLocks(configs), "batch size:" + configs.size());
+    }
+
+    @Override
+    public void checkGrabTogether(Collection<ALockConfig> configs) {
+        for (ALockProcessor node : nodes){
+            node.checkGrabTogether(configs);
+        }
+    }
+
+    /**
+     * 各节点并行认领，保留在多数节点上认领成功且租约仍有效的锁（不超过limit），其余在认领成功的节点上回滚
+     */
+    @Override
+    public List<ALockConfig> claimLocks(List<ALockConfig> candidates, int limit) {
+        long start = System.nanoTime();
+        Quorum<List<ALockConfig>> q = call(node -> node.claimLocks(candidates, limit), null);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        List<ALockConfig> claimed = new ArrayList<>();
+        for (ALockConfig config : candidates){
+            int cnt = 0;
+            for (Object r : q.results){
+                if (r != null && ((List<?>) r).contains(config)){
+                    cnt++;
+                }
+            }
+            long drift = (long) (config.getMillisLease() * CLOCK_DRIFT_FACTOR) + CLOCK_DRIFT_MIN_MS;
+            if (cnt >= quorum && claimed.size() < limit && config.getMillisLease() - elapsedMs - drift > 0){
+                claimed.add(config);
+            }
+        }
+        //只回滚各节点自己认领到、最终未保留的锁，包括超出预算后才返回的节点
+        rollback(q, (node, r) -> {
+            if (r == null){
+                return;
+            }
+            List<ALockConfig> rollback = new ArrayList<>(r);
+            rollback.removeAll(claimed);
+            if (!rollback.isEmpty()){
+                node.tryReleaseLocks(rollback);
+            }
+        }, "claim candidates:" + candidates.size());
+        if (q.errors > nodes.size() - quorum){
+            throw new ALockProcessException("claimLocks failed on majority, candidates:" + candidates.size());
+        }
+        return claimed;
+    }
+
+    /**
+     * 多数节点抢占成功且扣除耗时与时钟漂移后租约仍有效才算成功，否则在本次抢占成功的节点上回滚
+     */
+    private long quorumGrab(NodeCall<Long> grab, long leaseMillis, NodeCall<?> release, String desc){
+        long start = System.nanoTime();
+        Quorum<Long> q = call(grab, result -> result == GRABBED);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        long drift = (long) (leaseMillis * CLOCK_DRIFT_FACTOR) + CLOCK_DRIFT_MIN_MS;
+        long validity = leaseMillis - elapsedMs - drift;
+        if (q.successes >= quorum && validity > 0){
+            return GRABBED;
+        }
+        rollback(q, (node, r) -> {
+            if (r != null && r == GRABBED){
+                release.call(node);
+            }
+        }, desc);
+        if (q.errors > nodes.size() - quorum){
+            throw new ALockProcessException("grabLock failed on majority, " + desc);
+        }
+        long ttl = 0;
+        for (Object r : q.results){
+            if (r != null && (Long) r > ttl){
+                ttl = (Long) r;
+            }
+        }
+        return ttl;
+    }
+
+    @Override
+    public boolean tryExpandLockExpire(ALockConfig config) {
+        Quorum<Boolean> q = call(node -> node.tryExpandLockExpire(config), Check.TRUE);
+        if (q.successes < quorum && q.errors > nodes.size() - quorum){
+            throw new ALockProcessException("expandLockExpire failed on majority, key:" + config.getLockUniqueKey());
+        }
+        return q.successes >= quorum;
+    }
+
+    @Override
+    public Map<ALockConfig, Boolean> expandLockExpire(Collection<ALockConfig> configs) {
+        Quorum<Map<ALockConfig, Boolean>> q = call(node -> node.expandLockExpire(configs), null);
+        if (q.errors > nodes.size() - quorum){
+            throw new ALockProcessException("expandLockExpire failed on majority, batch size:" + configs.size());
+        }
+        Map<ALockConfig, Boolean> results = new IdentityHashMap<>(configs.size());
+        for (ALockConfig config : configs){
+            int renewed = 0;
+            for (Object r : q.results){
+                if (r != null && Boolean.TRUE.equals(((Map<?, ?>) r).get(config))){
+                    renewed++;
+                }
+            }
+            results.put(config, renewed >= quorum);
+        }
+        return results;
+    }
+
+    @Override
+    public boolean tryReleaseLock(ALockConfig config) {
+        Quorum<Boolean> q = call(node -> node.tryReleaseLock(config), Check.TRUE);
+        return q.successes >= quorum;
+    }
+
+    @Override
+    public boolean tryReleaseLocks(Collection<ALockConfig> configs) {
+        Quorum<Boolean> q = call(node -> node.tryReleaseLocks(configs), Check.TRUE);
+        return q.successes >= quorum;
+    }
+
+    @Override
+    public boolean subscribeRelease(ALockConfig config, ALockReleaseListener listener) {
+        boolean subscribed = false;
+        for (ALockProcessor node : nodes){
+            subscribed |= node.subscribeRelease(config, listener);
+        }
+        return subscribed;
+    }
+
+    @Override
+    public void unsubscribeRelease(ALockConfig config, ALockReleaseListener listener) {
+        for (ALockProcessor node : nodes){
+            node.unsubscribeRelease(config, listener);
+        }
+    }
+
+    /**
+     * 按各节点自己的结果回滚：已返回的节点在返回前同步回滚，尚未返回的节点在其返回后单独回滚。
+     * 锁值在各次尝试间相同，若延迟到全部节点返回后统一按锁值释放，可能删除之后一次成功抢占在其他节点上的持有；
+     * 而某节点上本次抢占成功说明该key由本次写入，之后的尝试在该节点上不可能成功，单独回滚该节点是安全的
+     */
+    private <T> void rollback(Quorum<T> q, NodeRollback<T> rollback, String desc){
+        for (int i = 0; i < nodes.size(); i++){
+            ALockProcessor node = nodes.get(i);
+            if (q.answered[i]){
+                @SuppressWarnings("unchecked")
+                T r = (T) q.results[i];
+                rollbackOnNode(node, r, rollback, desc);
+            }else {
+                q.futures[i].thenAccept(r -> rollbackOnNode(node, r, rollback, desc));
+            }
+        }
+    }
+
+    private <T> void rollbackOnNode(ALockProcessor node, T result, NodeRollback<T> rollback, String desc){
+        try{
+            rollback.rollback(node, result);
+        }catch (Exception e){
+            LOG.warn("redlock rollback failed on node, {}", desc);
+        }
+    }
+
+    /**
+     * 并行调用所有节点；check不为空时，多数成功或多数已不可能成功即返回，否则等待全部返回；
+     * 最长等待延迟预算。抛出异常或超出预算仍未返回的节点计为错误，提前返回时尚未返回的节点不计入任何一方
+     */
+    private <T> Quorum<T> call(NodeCall<T> call, Check<T> check){
+        int n = nodes.size();
+        BlockingQueue<Object[]> done = new LinkedBlockingQueue<>();
+        Quorum<T> q = new Quorum<>(n);
+        for (int i = 0; i < n; i++){
+            int idx = i;
+            ALockProcessor node = nodes.get(i);
+            q.futures[i] = CompletableFuture.supplyAsync(() -> call.call(node), executor)
+                .handle((r, e) -> {
+                    done.add(new Object[]{idx, r, e});
+                    return r;
+                });
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(latencyBudgetMillis);
+        int completed = 0;
+        boolean timedOut = false;
+        while (completed < n){
+            Object[] d;
+            try{
+                d = done.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            }catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (d == null){
+                timedOut = true;
+                break;
+            }
+            completed++;
+            q.answered[(Integer) d[0]] = true;
+            @SuppressWarnings("unchecked")
+            T r = (T) d[1];
+            if (d[2] != null){
+                q.errors++;
+                q.failures++;
+            }else {
+                q.results[(Integer) d[0]] = r;
+                if (check == null || check.success(r)){
+                    q.successes++;
+                }else {
+                    q.failures++;
+                }
+            }
+            if (check != null && (q.successes >= quorum || q.failures > n - quorum)){
+                break;
+            }
+        }
+        if (timedOut){
+            //超出预算仍未返回的节点按失败计
+            q.failures += n - completed;
+            q.errors += n - completed;
+        }
+        return q;
+    }
+
+    private interface NodeCall<T>{
+        T call(ALockProcessor node);
+    }
+
+    private interface NodeRollback<T>{
+        void rollback(ALockProcessor node, T result);
+    }
+
+    private interface Check<T>{
+        Check<Boolean> TRUE = result -> Boolean.TRUE.equals(result);
+
+        boolean success(T result);
+    }
+
+    private static class Quorum<T>{
+        final Object[] results;
+        final boolean[] answered;
+        final CompletableFuture<T>[] futures;
+        int successes;
+        int failures;
+        int errors;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Quorum(int n){
+            this.results = new Object[n];
+            this.answered = new boolean[n];
+            this.futures = new CompletableFuture[n];
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package org.apache.alock.scheduler;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 进程内共享的锁任务调度器（哈希时间轮），续租与重试任务都在这里调度，
+ * 单个时间轮线程推进时间，到期任务交给少量工作线程执行（Java 21+上为虚拟线程，见ALockThreads）。
+ * 访问redis等会阻塞的任务通过scheduleIo/executeIo交给按需扩展的IO执行器，避免慢请求占满工作线程、拖延其他任务
+ * @author wy
+ */
+public class ALockScheduler implements Executor {
+    private static final Logger LOG = LoggerFactory.getLogger(ALockScheduler.class);
+
+    private static final long DEFAULT_TICK_MS = 10L;
+    private static final int DEFAULT_WHEEL_SIZE = 512;
+
+    private static final ALockScheduler INSTANCE = new ALockScheduler(DEFAULT_TICK_MS, DEFAULT_WHEEL_SIZE,
+        Math.max(2, Runtime.getRuntime().availableProcessors()));
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Queue<ALockTimeout> pendingTimeouts = new ConcurrentLinkedQueue<>();
+    private final Queue<ALockTimeout> cancelledTimeouts = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCnt = new AtomicInteger(0);
+    private final ExecutorService executor;
+    //完成异步加锁结果的执行器：调用方的后续操作可能阻塞，不能占用执行续租与重试的工作线程
+    private final ExecutorService completionExecutor;
+    //执行阻塞IO（访问redis）任务的执行器，按需创建线程
+    private final ExecutorService ioExecutor;
+    private final Thread ticker;
+    private volatile boolean shutdown;
+    //已交给执行器但尚未开始执行的任务数
+    private final AtomicInteger queuedCnt = new AtomicInteger(0);
+    private final long startTime;
+
+    private final AtomicLong lastLagMillis = new AtomicLong(0);
+    private final AtomicLong maxLagMillis = new AtomicLong(0);
+
+    public ALockScheduler(long tickInMs, int wheelSize, int workerThreads){
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickInMs);
+        int size = 1;
+        while (size < wheelSize){
+            size <<= 1;
+        }
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++){
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.executor = ALockThreads.newFixedExecutor("ALockSchedulerWorker", workerThreads);
+        this.completionExecutor = ALockThreads.newCachedExecutor("ALockAsyncCompletion");
+        this.ioExecutor = ALockThreads.newCachedExecutor("ALockSchedulerIo");
+        this.startTime = System.nanoTime();
+
+        this.ticker = ALockThreads.daemonThreadFactory("ALockSchedulerTicker").newThread(new Runnable() {
+            @Override
+            public void run() {
+                tickLoop();
+            }
+        });
+        ticker.start();
+    }
+
+    /**
+     * 进程内共享实例
+     */
+    public static ALockScheduler getInstance(){
+        return INSTANCE;
+    }
+
+    /**
+     * 延迟执行任务
+     * @param task
+     * @param delayInMs
+     * @return
+     */
+    public ALockTimeout schedule(Runnable task, long delayInMs){
+        return schedule(task, delayInMs, false);
+    }
+
+    /**
+     * 延迟执行会阻塞在IO上的任务，到期后交给IO执行器
+     * @param task
+     * @param delayInMs
+     * @return
+     */
+    public ALockTimeout scheduleIo(Runnable task, long delayInMs){
+        return schedule(task, delayInMs, true);
+    }
+
+    /**
+     * 立即交给工作线程执行
+     * @param task
+     */
+    @Override
+    public void execute(final Runnable task){
+        submit(executor, task);
+    }
+
+    /**
+     * 立即交给IO执行器执行会阻塞的任务
+     * @param task
+     */
+    public void executeIo(final Runnable task){
+        submit(ioExecutor, task);
+    }
+
+    /**
+     * 停止时间轮与各执行器：未到期的任务不再执行，已开始的任务继续完成，之后提交的任务被拒绝。
+     * 共享实例关闭后进程内的锁将无法续租与重试，只应在进程退出或容器卸载时调用
+     */
+    public void shutdown(){
+        if (shutdown){
+            return;
+        }
+        shutdown = true;
+        ticker.interrupt();
+        executor.shutdown();
+        ioExecutor.shutdown();
+        completionExecutor.shutdown();
+        pendingTimeouts.clear();
+        pendingCnt.set(0);
+    }
+
+    public boolean isShutdown(){
+        return shutdown;
+    }
+
+    /**
+     * 完成异步加锁、解锁结果的执行器，与工作线程相互独立
+     */
+    public Executor getCompletionExecutor(){
+        return completionExecutor;
+    }
+
+    /**
+     * 待执行任务数（时间轮中的任务加上已到期排队等待工作线程的任务）
+     */
+    public int getQueueDepth(){
+        return pendingCnt.get() + queuedCnt.get();
+    }
+
+    /**
+     * 最近一次任务实际执行时间相对计划时间的延迟
+     */
+    public long getLastLagMillis(){
+        return lastLagMillis.get();
+    }
+
+    /**
+     * 任务执行延迟的最大值
+     */
+    public long getMaxLagMillis(){
+        return maxLagMillis.get();
+    }
+
+    private ALockTimeout schedule(Runnable task, long delayInMs, boolean io){
+        checkShutdown();
+        long deadline = System.nanoTime() - startTime + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayInMs));
+        ALockTimeout timeout = new ALockTimeout(this, task, deadline, io);
+        pendingCnt.incrementAndGet();
+        pendingTimeouts.add(timeout);
+        return timeout;
+    }
+
+    private void submit(ExecutorService target, final Runnable task){
+        checkShutdown();
+        queuedCnt.incrementAndGet();
+        target.execute(new Runnable() {
+            @Override
+            public void run() {
+                queuedCnt.decrementAndGet();
+                task.run();
+            }
+        });
+    }
+
+    private void checkShutdown(){
+        if (shutdown){
+            throw new RejectedExecutionException("lock scheduler has been shut down.");
+        }
+    }
+
+    void cancelled(ALockTimeout timeout){
+        cancelledTimeouts.add(timeout);
+    }
+
+    private void tickLoop(){
+        long tick = 0;
+        while (!shutdown){
+            long deadline = tickNanos * (tick + 1);
+            long sleepNanos = deadline - (System.nanoTime() - startTime);
+            if (sleepNanos > 0){
+                try{
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                }catch (InterruptedException e){
+                    return;
+                }
+            }
+            try{
+                processCancelled();
+                transferPending(tick);
+                wheel[(int) (tick & mask)].expire(deadline);
+            }catch (Throwable t){
+                LOG.error("scheduler tick error", t);
+            }
+            tick++;
+        }
+    }
+
+    private void transferPending(long currentTick){
+        //每个tick最多转移有限数量，避免大量注册时阻塞时间推进
+        for (int i = 0; i < 100000; i++){
+            ALockTimeout timeout = pendingTimeouts.poll();
+            if (timeout == null){
+                break;
+            }
+            if (timeout.isCancelled()){
+                pendingCnt.decrementAndGet();
+                continue;
+            }
+            long calculated = timeout.deadline / tickNanos;
+            timeout.remainingRounds = (calculated - currentTick) / wheel.length;
+            long ticks = Math.max(calculated, currentTick);
+            wheel[(int) (ticks & mask)].add(timeout);
+        }
+    }
+
+    private void processCancelled(){
+        for (;;){
+            ALockTimeout timeout = cancelledTimeouts.poll();
+            if (timeout == null){
+                break;
+            }
+            if (timeout.bucket != null){
+                timeout.bucket.remove(timeout);
+                pendingCnt.decrementAndGet();
+            }
+        }
+    }
+
+    private void execute(final ALockTimeout timeout){
+        pendingCnt.decrementAndGet();
+        if (shutdown || !timeout.state.compareAndSet(ALockTimeout.ST_INIT, ALockTimeout.ST_EXPIRED)){
+            return;
+        }
+        queuedCnt.incrementAndGet();
+        ExecutorService target = timeout.io ? ioExecutor : executor;
+        target.execute(new Runnable() {
+            @Override
+            public void run() {
+                queuedCnt.decrementAndGet();
+                long lag = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime - timeout.deadline);
+                lastLagMillis.set(lag);
+                long max = maxLagMillis.get();
+                while (lag > max && !maxLagMillis.compareAndSet(max, lag)){
+                    max = maxLagMillis.get();
+                }
+                try{
+                    timeout.task.run();
+                }catch (Throwable t){
+                    LOG.error("scheduled task error", t);
+                }
+            }
+        });
+    }
+
+    /**
+     * 时间轮槽位，仅由时间轮线程访问
+     */
+    final class Bucket{
+        private ALockTimeout head;
+        private ALockTimeout tail;
+
+        void add(ALockTimeout timeout){
+            timeout.bucket = this;
+            if (head == null){
+                head = tail = timeout;
+            }else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void expire(long deadline){
+            ALockTimeout timeout = head;
+            while (timeout != null){
+                ALockTimeout next = timeout.next;
+                if (timeout.remainingRounds <= 0 && timeout.deadline <= deadline){
+                    remove(timeout);
+                    execute(timeout);
+                }else if (timeout.isCancelled()){
+                    remove(timeout);
+                    pendingCnt.decrementAndGet();
+                }else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        void remove(ALockTimeout timeout){
+            if (timeout.bucket != this){
+                return;
+            }
+            ALockTimeout next = timeout.next;
+            if (timeout.prev != null){
+                timeout.prev.next = next;
+            }
+            if (next != null){
+                next.prev = timeout.prev;
+            }
+            if (timeout == head){
+                head = next;
+            }
+            if (timeout == tail){
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+}
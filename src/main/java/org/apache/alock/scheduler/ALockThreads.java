@@ -0,0 +1,64 @@
+package org.apache.alock.scheduler;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 锁内部任务（重试、续租、异步获取、Redlock并发请求）使用的线程。
+ * 此为Java 8版本，使用守护平台线程；jar为多版本jar，在Java 21+上加载META-INF/versions/21中的同名类，
+ * 改为每个任务一个虚拟线程
+ * @author wy
+ */
+public final class ALockThreads {
+
+    private ALockThreads(){
+    }
+
+    /**
+     * 任务是否运行在虚拟线程上
+     */
+    public static boolean isVirtual(){
+        return false;
+    }
+
+    /**
+     * 固定线程数的执行器，虚拟线程版本不限制并发数
+     * @param namePrefix
+     * @param threads
+     * @return
+     */
+    public static ExecutorService newFixedExecutor(String namePrefix, int threads){
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<Runnable>(), daemonThreadFactory(namePrefix));
+    }
+
+    /**
+     * 按需创建线程的执行器
+     * @param namePrefix
+     * @return
+     */
+    public static ExecutorService newCachedExecutor(String namePrefix){
+        return Executors.newCachedThreadPool(daemonThreadFactory(namePrefix));
+    }
+
+    /**
+     * 守护平台线程，用于时间轮等需要独占线程的循环，两个版本一致
+     * @param namePrefix
+     * @return
+     */
+    public static ThreadFactory daemonThreadFactory(final String namePrefix){
+        return new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r);
+                t.setDaemon(true);
+                t.setName(namePrefix + t.getId());
+                return t;
+            }
+        };
+    }
+}
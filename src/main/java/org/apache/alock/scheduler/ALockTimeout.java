@@ -0,0 +1,53 @@
+package org.apache.alock.scheduler;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 调度任务句柄，挂在时间轮的某个槽位上
+ * @author wy
+ */
+public class ALockTimeout {
+    static final int ST_INIT = 0;
+    static final int ST_CANCELLED = 1;
+    static final int ST_EXPIRED = 2;
+
+    final ALockScheduler scheduler;
+    final Runnable task;
+    final long deadline;
+    //到期后是否交给IO执行器
+    final boolean io;
+    final AtomicInteger state = new AtomicInteger(ST_INIT);
+
+    //以下字段仅由时间轮线程访问
+    long remainingRounds;
+    ALockTimeout next;
+    ALockTimeout prev;
+    ALockScheduler.Bucket bucket;
+
+    ALockTimeout(ALockScheduler scheduler, Runnable task, long deadline, boolean io){
+        this.scheduler = scheduler;
+        this.task = task;
+        this.deadline = deadline;
+        this.io = io;
+    }
+
+    /**
+     * 取消任务，已开始执行的任务不受影响
+     * @return 是否取消成功
+     */
+    public boolean cancel(){
+        if (!state.compareAndSet(ST_INIT, ST_CANCELLED)){
+            return false;
+        }
+        scheduler.cancelled(this);
+        return true;
+    }
+
+    public boolean isCancelled(){
+        return state.get() == ST_CANCELLED;
+    }
+
+    public boolean isExpired(){
+        return state.get() == ST_EXPIRED;
+    }
+}
@@ -0,0 +1,26 @@
+package org.apache.alock.scheduler;
+
+import org.apache.alock.exception.ALockProcessException;
+
+/**
+ * 续租结果回调
+ * @author wy
+ */
+public interface LeaseRenewalListener {
+
+    /**
+     * 续租成功
+     */
+    void renewed();
+
+    /**
+     * 锁已不再由当前持有者持有（过期或被他人抢占）
+     */
+    void lost();
+
+    /**
+     * 续租请求失败，下个周期重试
+     * @param e
+     */
+    void failed(ALockProcessException e);
+}
@@ -0,0 +1,156 @@
+package org.apache.alock.scheduler;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.alock.domain.ALockConfig;
+import org.apache.alock.exception.ALockProcessException;
+import org.apache.alock.processor.ALockProcessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 合并同一处理器上同一tick内到期的续租请求，一次批量续租
+ * @author wy
+ */
+public class LeaseRenewer {
+    private static final Logger LOG = LoggerFactory.getLogger(LeaseRenewer.class);
+
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    private static final Map<ALockProcessor, LeaseRenewer> RENEWERS = new WeakHashMap<>();
+
+    /**
+     * 弱引用处理器：RENEWERS以处理器为弱键，值若强引用处理器则条目永远不会被回收
+     */
+    private final WeakReference<ALockProcessor> lockProcessorRef;
+
+    private final ALockScheduler scheduler;
+
+    private final Queue<Entry> pending = new ConcurrentLinkedQueue<>();
+
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    private LeaseRenewer(ALockProcessor lockProcessor, ALockScheduler scheduler){
+        this.lockProcessorRef = new WeakReference<>(lockProcessor);
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * 获取处理器对应的续租合并器
+     * @param lockProcessor
+     * @return
+     */
+    public static LeaseRenewer of(ALockProcessor lockProcessor){
+        synchronized (RENEWERS){
+            LeaseRenewer renewer = RENEWERS.get(lockProcessor);
+            if (renewer == null){
+                renewer = new LeaseRenewer(lockProcessor, ALockScheduler.getInstance());
+                RENEWERS.put(lockProcessor, renewer);
+            }
+            return renewer;
+        }
+    }
+
+    /**
+     * 提交续租请求，结果异步回调
+     * @param config
+     * @param listener
+     */
+    public void renew(ALockConfig config, LeaseRenewalListener listener){
+        renew(Collections.singletonList(config), listener);
+    }
+
+    /**
+     * 提交一组锁的续租请求，全部续租成功才算成功，任一锁丢失即回调lost
+     * @param configs
+     * @param listener
+     */
+    public void renew(Collection<ALockConfig> configs, LeaseRenewalListener listener){
+        pending.add(new Entry(configs, listener));
+        if (flushScheduled.compareAndSet(false, true)){
+            scheduler.scheduleIo(flushTask, 0);
+        }
+    }
+
+    private void flush(){
+        flushScheduled.set(false);
+        for (;;){
+            List<Entry> batch = new ArrayList<>();
+            int batchSize = 0;
+            Entry e;
+            while (batchSize < MAX_BATCH_SIZE && (e = pending.poll()) != null){
+                batch.add(e);
+                batchSize += e.configs.size();
+            }
+            if (batch.isEmpty()){
+                return;
+            }
+            renewBatch(batch);
+        }
+    }
+
+    private void renewBatch(List<Entry> batch){
+        List<ALockConfig> configs = new ArrayList<>(batch.size());
+        for (Entry e : batch){
+            configs.addAll(e.configs);
+        }
+        Map<ALockConfig, Boolean> results;
+        try{
+            ALockProcessor lockProcessor = lockProcessorRef.get();
+            if (lockProcessor == null){
+                throw new ALockProcessException("lock processor has been discarded");
+            }
+            results = lockProcessor.expandLockExpire(configs);
+        }catch (ALockProcessException ex){
+            for (Entry e : batch){
+                try{
+                    e.listener.failed(ex);
+                }catch (Exception lex){
+                    LOG.error("renewal listener error", lex);
+                }
+            }
+            return;
+        }
+        for (Entry e : batch){
+            boolean renewed = true;
+            for (ALockConfig config : e.configs){
+                renewed &= Boolean.TRUE.equals(results.get(config));
+            }
+            try{
+                if (renewed){
+                    e.listener.renewed();
+                }else {
+                    e.listener.lost();
+                }
+            }catch (Exception ex){
+                LOG.error("renewal listener error", ex);
+            }
+        }
+    }
+
+    private static class Entry{
+        final Collection<ALockConfig> configs;
+        final LeaseRenewalListener listener;
+
+        Entry(Collection<ALockConfig> configs, LeaseRenewalListener listener){
+            this.configs = configs;
+            this.listener = listener;
+        }
+    }
+}
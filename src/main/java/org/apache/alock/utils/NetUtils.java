@@ -5,17 +5,25 @@ import java.net.NetworkInterface;
 import java.net.SocketException;
 import java.util.Enumeration;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 public abstract class NetUtils {
+    private static final Logger LOG = LoggerFactory.getLogger(NetUtils.class);
+
     /**
-     * Pre-loaded local address
+     * Local address resolved on first use, loopback when no validated address exists
      */
-    public static InetAddress localAddress;
+    private static class LocalAddressHolder {
+        static final InetAddress LOCAL_ADDRESS = resolveLocalAddress();
 
-    static {
-        try {
-            localAddress = getLocalInetAddress();
-        } catch (SocketException e) {
-            throw new RuntimeException("fail to get local ip.");
+        private static InetAddress resolveLocalAddress() {
+            try {
+                return getLocalInetAddress();
+            } catch (Exception e) {
+                LOG.warn("fail to get local ip, use loopback address instead.", e);
+                return InetAddress.getLoopbackAddress();
+            }
         }
     }
 
@@ -29,7 +37,7 @@ public abstract class NetUtils {
         // enumerates all network interfaces
         Enumeration<NetworkInterface> enu = NetworkInterface.getNetworkInterfaces();
 
-        while (enu.hasMoreElements()) {
+        while (enu != null && enu.hasMoreElements()) {
             NetworkInterface ni = enu.nextElement();
             if (ni.isLoopback()) {
                 continue;
@@ -52,11 +60,22 @@ public abstract class NetUtils {
     }
 
     /**
-     * Retrieve local address
+     * Retrieve local address, resolved lazily on first call
      *
      * @return the string local address
      */
     public static String getLocalAddress() {
-        return localAddress.getHostAddress();
+        return LocalAddressHolder.LOCAL_ADDRESS.getHostAddress();
+    }
+
+    /**
+     * Replacement for the former public field {@code localAddress}, which was resolved eagerly in a static initializer
+     *
+     * @return the local address, resolved lazily on first call
+     * @deprecated use {@link #getLocalAddress()} or {@link #getLocalInetAddress()}
+     */
+    @Deprecated
+    public static InetAddress localAddress() {
+        return LocalAddressHolder.LOCAL_ADDRESS;
     }
 }
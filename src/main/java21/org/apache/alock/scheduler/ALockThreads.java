@@ -0,0 +1,43 @@
+package org.apache.alock.scheduler;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 锁内部任务使用的线程，Java 21+版本：每个任务一个虚拟线程，
+ * 大量并发的异步等待、重试与续租不再受工作线程数限制。公开方法须与Java 8版本保持一致
+ * @author wy
+ */
+public final class ALockThreads {
+
+    private ALockThreads(){
+    }
+
+    public static boolean isVirtual(){
+        return true;
+    }
+
+    /**
+     * 虚拟线程无需池化，忽略threads
+     */
+    public static ExecutorService newFixedExecutor(String namePrefix, int threads){
+        return newCachedExecutor(namePrefix);
+    }
+
+    public static ExecutorService newCachedExecutor(String namePrefix){
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(namePrefix, 0).factory());
+    }
+
+    public static ThreadFactory daemonThreadFactory(final String namePrefix){
+        return new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r);
+                t.setDaemon(true);
+                t.setName(namePrefix + t.threadId());
+                return t;
+            }
+        };
+    }
+}
@@ -0,0 +1,106 @@
+package org.apache.alock;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.alock.domain.ALockConfig;
+import org.junit.Test;
+
+/**
+ * ALockManager进程内锁注册表测试
+ * @author wy
+ */
+public class ALockManagerTest {
+
+    @Test
+    public void sameKeySharesOneLock(){
+        ALockManager manager = new ALockManager(new InMemoryLockProcessor());
+        DistributedReentrantLock lock = manager.getLock(config("manager-same"));
+        assertSame(lock, manager.getLock(config("manager-same")));
+        assertNotSame(lock, manager.getLock(config("manager-other")));
+    }
+
+    @Test
+    public void localWaitersDoNotTouchTheStore() throws Exception {
+        InMemoryLockProcessor processor = new InMemoryLockProcessor();
+        final ALockManager manager = new ALockManager(processor);
+        DistributedReentrantLock lock = manager.getLock(config("manager-local"));
+        lock.lock();
+        assertEquals(1, processor.getGrabCalls());
+
+        final CountDownLatch done = new CountDownLatch(3);
+        List<Thread> waiters = new ArrayList<>();
+        for (int i = 0; i < 3; i++){
+            Thread t = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    DistributedReentrantLock l = manager.getLock(config("manager-local"));
+                    l.lock();
+                    l.unlock();
+                    done.countDown();
+                }
+            });
+            waiters.add(t);
+            t.start();
+        }
+        Thread.sleep(200);
+        //等待者在本地排队，持有期间没有新的远程抢占
+        assertEquals(1, processor.getGrabCalls());
+
+        lock.unlock();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(processor.isLockFree(lock.getLockConfig().getLockUniqueKey()));
+    }
+
+    @Test
+    public void claimSkipsHeldCandidatesAndStopsAtLimit(){
+        InMemoryLockProcessor processor = new InMemoryLockProcessor();
+        ALockManager manager = new ALockManager(processor);
+        List<ALockConfig> candidates = Arrays.asList(config("claim-0"), config("claim-1"), config("claim-2"),
+            config("claim-3"));
+        processor.put(candidates.get(0).getLockUniqueKey(), "other-node", 30000);
+        DistributedReentrantLock local = manager.getLock(config("claim-1"));
+        local.lock();
+        int grabs = processor.getGrabCalls();
+
+        List<ALock> claimed = manager.claimLocks(candidates, 2);
+        assertEquals(2, claimed.size());
+        assertSame(manager.getLock(config("claim-2")), claimed.get(0));
+        assertSame(manager.getLock(config("claim-3")), claimed.get(1));
+        //认领是一次批量交互，不经过逐个抢占
+        assertEquals(grabs, processor.getGrabCalls());
+
+        for (ALock lock : claimed){
+            DistributedReentrantLock l = (DistributedReentrantLock) lock;
+            assertEquals(l.getLockConfig().getLockValue(), processor.lockValue(l.getLockConfig().getLockUniqueKey()));
+            lock.unlock();
+            assertTrue(processor.isLockFree(l.getLockConfig().getLockUniqueKey()));
+        }
+        local.unlock();
+    }
+
+    @Test
+    public void claimReturnsNothingWhenAllAreTaken(){
+        InMemoryLockProcessor processor = new InMemoryLockProcessor();
+        ALockManager manager = new ALockManager(processor);
+        List<ALockConfig> candidates = Arrays.asList(config("claim-none-0"), config("claim-none-1"));
+        for (ALockConfig candidate : candidates){
+            processor.put(candidate.getLockUniqueKey(), "other-node", 30000);
+        }
+        assertTrue(manager.claimLocks(candidates, 2).isEmpty());
+        assertFalse(manager.getLock(candidates.get(0)).isHeldByCurrentThread());
+    }
+
+    static ALockConfig config(String target){
+        return new ALockConfig(target, 30, TimeUnit.SECONDS);
+    }
+}
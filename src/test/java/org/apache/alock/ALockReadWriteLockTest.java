@@ -0,0 +1,180 @@
+package org.apache.alock;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.alock.domain.ALockConfig;
+import org.apache.alock.processor.ALockReadWriteProcessor;
+import org.junit.Test;
+
+/**
+ * ALockReadWriteLock测试，每个读写锁对象代表一个节点
+ * @author wy
+ */
+public class ALockReadWriteLockTest {
+
+    @Test
+    public void readersShareAndExcludeWriters(){
+        InMemoryReadWriteProcessor processor = new InMemoryReadWriteProcessor();
+        ALockReadWriteLock a = node("rw-share", processor);
+        ALockReadWriteLock b = node("rw-share", processor);
+        ALockReadWriteLock c = node("rw-share", processor);
+
+        assertTrue(a.readLock().tryLock());
+        assertTrue(b.readLock().tryLock());
+        assertFalse(c.writeLock().tryLock());
+
+        a.readLock().unlock();
+        b.readLock().unlock();
+        assertTrue(c.writeLock().tryLock());
+        assertFalse(a.readLock().tryLock());
+        c.writeLock().unlock();
+        assertTrue(a.readLock().tryLock());
+        a.readLock().unlock();
+    }
+
+    @Test
+    public void waitingWriterBlocksNewReaders(){
+        InMemoryReadWriteProcessor processor = new InMemoryReadWriteProcessor();
+        ALockReadWriteLock reader = node("rw-intent", processor);
+        ALockReadWriteLock writer = node("rw-intent", processor);
+        ALockReadWriteLock lateReader = node("rw-intent", processor);
+
+        assertTrue(reader.readLock().tryLock());
+        assertFalse(writer.writeLock().tryLock());
+        assertFalse(lateReader.readLock().tryLock());
+        //已持有读锁的持有者仍可重入
+        assertTrue(reader.readLock().tryLock());
+        reader.readLock().unlock();
+
+        reader.readLock().unlock();
+        assertTrue(writer.writeLock().tryLock());
+        writer.writeLock().unlock();
+    }
+
+    @Test
+    public void writersNeverOverlapReaders() throws Exception {
+        InMemoryReadWriteProcessor processor = new InMemoryReadWriteProcessor();
+        ALockReadWriteLock[] nodes = {node("rw-stress", processor), node("rw-stress", processor)};
+        AtomicInteger readers = new AtomicInteger();
+        AtomicInteger writers = new AtomicInteger();
+        AtomicInteger violations = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(6);
+        try{
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 6; i++){
+                int id = i;
+                futures.add(executor.submit(() -> {
+                    ALockReadWriteLock node = nodes[id % nodes.length];
+                    for (int j = 0; j < 100; j++){
+                        if (id % 3 == 0){
+                            ALock lock = node.writeLock();
+                            lock.lock();
+                            try{
+                                if (writers.incrementAndGet() != 1 || readers.get() != 0){
+                                    violations.incrementAndGet();
+                                }
+                                writers.decrementAndGet();
+                            }finally {
+                                lock.unlock();
+                            }
+                        }else {
+                            ALock lock = node.readLock();
+                            lock.lock();
+                            try{
+                                readers.incrementAndGet();
+                                if (writers.get() != 0){
+                                    violations.incrementAndGet();
+                                }
+                                readers.decrementAndGet();
+                            }finally {
+                                lock.unlock();
+                            }
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures){
+                f.get(60, TimeUnit.SECONDS);
+            }
+        }finally {
+            executor.shutdownNow();
+        }
+        assertEquals(0, violations.get());
+    }
+
+    private static ALockReadWriteLock node(String target, InMemoryReadWriteProcessor processor){
+        return new ALockReadWriteLock(new ALockConfig(target, 30, TimeUnit.SECONDS), processor);
+    }
+
+    /**
+     * 内存读写锁处理器，语义与读写锁脚本一致（不含租约到期）
+     */
+    static class InMemoryReadWriteProcessor extends InMemoryLockProcessor implements ALockReadWriteProcessor {
+        private final Set<String> readers = new HashSet<>();
+        private String writer;
+        private String intent;
+
+        @Override
+        public synchronized long tryGrabReadLock(ALockConfig config) {
+            if (writer != null || (intent != null && !readers.contains(config.getLockValue()))){
+                return 0;
+            }
+            readers.add(config.getLockValue());
+            return GRABBED;
+        }
+
+        @Override
+        public synchronized long tryGrabWriteLock(ALockConfig config) {
+            if (writer != null || (intent != null && !intent.equals(config.getLockValue()))){
+                return 0;
+            }
+            if (!readers.isEmpty()){
+                intent = config.getLockValue();
+                return 0;
+            }
+            intent = null;
+            writer = config.getLockValue();
+            return GRABBED;
+        }
+
+        @Override
+        public synchronized int tryExpandReadLock(ALockConfig config) {
+            if (!readers.contains(config.getLockValue())){
+                return RENEW_LOST;
+            }
+            return intent != null ? RENEW_WRITER_WAITING : RENEW_OK;
+        }
+
+        @Override
+        public synchronized boolean tryExpandWriteLock(ALockConfig config) {
+            return config.getLockValue().equals(writer);
+        }
+
+        @Override
+        public synchronized boolean tryReleaseReadLock(ALockConfig config) {
+            return readers.remove(config.getLockValue());
+        }
+
+        @Override
+        public synchronized boolean tryReleaseWriteLock(ALockConfig config) {
+            if (!config.getLockValue().equals(writer)){
+                return false;
+            }
+            writer = null;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package org.apache.alock;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.alock.domain.ALockConfig;
+import org.apache.alock.processor.ASemaphoreProcessor;
+import org.junit.Test;
+
+/**
+ * ASemaphore测试，两个信号量对象模拟两个节点
+ * @author wy
+ */
+public class ASemaphoreTest {
+
+    @Test
+    public void permitsAreBoundedAcrossNodes(){
+        InMemorySemaphoreProcessor processor = new InMemorySemaphoreProcessor();
+        ASemaphore first = new ASemaphore(config("semaphore-bound", 30000), 3, processor);
+        ASemaphore second = new ASemaphore(config("semaphore-bound", 30000), 3, processor);
+
+        assertTrue(first.tryAcquire(2));
+        assertFalse(second.tryAcquire(2));
+        assertTrue(second.tryAcquire(1));
+        assertEquals(2, first.heldPermits());
+        assertEquals(1, second.heldPermits());
+
+        first.release(2);
+        assertEquals(0, first.heldPermits());
+        assertTrue(second.tryAcquire(2));
+        second.release(3);
+    }
+
+    @Test
+    public void releaseWakesWaiterOnOtherNode() throws Exception {
+        InMemorySemaphoreProcessor processor = new InMemorySemaphoreProcessor();
+        ASemaphore first = new ASemaphore(config("semaphore-wake", 30000), 1, processor);
+        final ASemaphore second = new ASemaphore(config("semaphore-wake", 30000), 1, processor);
+        assertTrue(first.tryAcquire(1));
+
+        final long[] acquiredAt = {0};
+        Thread waiter = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try{
+                    if (second.tryAcquire(1, 10, TimeUnit.SECONDS)){
+                        acquiredAt[0] = System.nanoTime();
+                    }
+                }catch (InterruptedException e){
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        waiter.start();
+        Thread.sleep(100);
+        long releasedAt = System.nanoTime();
+        first.release(1);
+        waiter.join(5000);
+
+        assertTrue(acquiredAt[0] != 0);
+        //许可剩余租期30秒，1秒内拿到只能是释放通知唤醒的
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(acquiredAt[0] - releasedAt) < 1000);
+        second.release(1);
+    }
+
+    @Test
+    public void lostPermitsAreDroppedOnRenewal() throws Exception {
+        InMemorySemaphoreProcessor processor = new InMemorySemaphoreProcessor();
+        ASemaphore semaphore = new ASemaphore(config("semaphore-lost", 200), 2, processor);
+        assertTrue(semaphore.tryAcquire(2));
+
+        processor.dropPermits(semaphore.getLockConfig().getLockUniqueKey());
+        Thread.sleep(400);
+        assertEquals(0, semaphore.heldPermits());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsMorePermitsThanTotal(){
+        new ASemaphore(config("semaphore-range", 30000), 2, new InMemorySemaphoreProcessor()).tryAcquire(3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsProcessorWithoutSemaphoreSupport(){
+        new ASemaphore(config("semaphore-unsupported", 30000), 2, new InMemoryLockProcessor());
+    }
+
+    private static ALockConfig config(String target, int leaseMillis){
+        return new ALockConfig(target, leaseMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 内存中的许可集合，语义与redis有序集合脚本一致：成员为许可标识，值为到期时间
+     */
+    static class InMemorySemaphoreProcessor extends InMemoryLockProcessor implements ASemaphoreProcessor {
+        private final Map<String, Map<String, Long>> permits = new HashMap<>();
+
+        @Override
+        public synchronized long tryAcquirePermits(ALockConfig config, int totalPermits, Collection<String> permitIds) {
+            Map<String, Long> held = livePermits(config.getLockUniqueKey());
+            if (held.size() + permitIds.size() > totalPermits){
+                long earliest = Long.MAX_VALUE;
+                for (Long expireAt : held.values()){
+                    earliest = Math.min(earliest, expireAt);
+                }
+                return Math.max(0, earliest - System.currentTimeMillis());
+            }
+            long expireAt = System.currentTimeMillis() + config.getMillisLease();
+            for (String permitId : permitIds){
+                held.put(permitId, expireAt);
+            }
+            return GRABBED;
+        }
+
+        @Override
+        public synchronized List<String> expandPermits(ALockConfig config, Collection<String> permitIds) {
+            Map<String, Long> held = livePermits(config.getLockUniqueKey());
+            List<String> lost = new ArrayList<>();
+            long expireAt = System.currentTimeMillis() + config.getMillisLease();
+            for (String permitId : permitIds){
+                if (held.containsKey(permitId)){
+                    held.put(permitId, expireAt);
+                }else {
+                    lost.add(permitId);
+                }
+            }
+            return lost;
+        }
+
+        @Override
+        public int releasePermits(ALockConfig config, Collection<String> permitIds) {
+            int released = 0;
+            synchronized (this){
+                Map<String, Long> held = livePermits(config.getLockUniqueKey());
+                for (String permitId : permitIds){
+                    if (held.remove(permitId) != null){
+                        released++;
+                    }
+                }
+            }
+            notifyRelease(config.getLockUniqueKey());
+            return released;
+        }
+
+        /**
+         * 模拟许可全部过期被回收
+         */
+        synchronized void dropPermits(String key){
+            permits.remove(key);
+        }
+
+        private Map<String, Long> livePermits(String key){
+            Map<String, Long> held = permits.get(key);
+            if (held == null){
+                held = new HashMap<>();
+                permits.put(key, held);
+            }
+            long now = System.currentTimeMillis();
+            for (Iterator<Long> it = held.values().iterator(); it.hasNext(); ){
+                if (it.next() <= now){
+                    it.remove();
+                }
+            }
+            return held;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package org.apache.alock;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.alock.domain.ALockConfig;
+import org.junit.Test;
+
+/**
+ * DistributedReentrantLock异步API测试
+ * @author wy
+ */
+public class DistributedReentrantLockAsyncTest {
+
+    @Test
+    public void completesOffSchedulerWorkers() throws Exception {
+        DistributedReentrantLock lock = new DistributedReentrantLock(config("async-thread", null),
+            new InMemoryLockProcessor());
+        String thread = completionThread(lock);
+        assertFalse(thread.startsWith("ALockSchedulerWorker"));
+        assertTrue(thread.startsWith("ALockAsyncCompletion"));
+    }
+
+    @Test
+    public void completesOnCallerSuppliedExecutor() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "caller-executor"));
+        try{
+            DistributedReentrantLock lock = new DistributedReentrantLock(config("async-caller", executor),
+                new InMemoryLockProcessor());
+            assertEquals("caller-executor", completionThread(lock));
+        }finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 等待者的后续操作在获取前注册，由释放驱动完成，返回执行后续操作的线程
+     */
+    private static String completionThread(DistributedReentrantLock lock) throws Exception {
+        Object first = new Object();
+        Object second = new Object();
+        lock.lockAsync(first).get(5, TimeUnit.SECONDS);
+        AtomicReference<String> thread = new AtomicReference<>();
+        CompletableFuture<Void> acquired = lock.lockAsync(second)
+            .thenRun(() -> thread.set(Thread.currentThread().getName()));
+        Thread.sleep(50);
+        assertFalse(acquired.isDone());
+        lock.unlockAsync(first).get(5, TimeUnit.SECONDS);
+        acquired.get(5, TimeUnit.SECONDS);
+        lock.unlockAsync(second).get(5, TimeUnit.SECONDS);
+        return thread.get();
+    }
+
+    @Test
+    public void waiterIsWokenByAsyncUnlock() throws Exception {
+        DistributedReentrantLock lock = new DistributedReentrantLock(config("async-handover", null),
+            new InMemoryLockProcessor());
+        Object first = new Object();
+        Object second = new Object();
+        lock.lockAsync(first).get(5, TimeUnit.SECONDS);
+
+        CompletableFuture<Boolean> waiting = lock.tryLockAsync(second, 5, TimeUnit.SECONDS);
+        Thread.sleep(50);
+        assertFalse(waiting.isDone());
+
+        lock.unlockAsync(first).get(5, TimeUnit.SECONDS);
+        assertTrue(waiting.get(5, TimeUnit.SECONDS));
+        lock.unlockAsync(second).get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void cancelledWaiterDoesNotKeepTheLock() throws Exception {
+        InMemoryLockProcessor processor = new InMemoryLockProcessor();
+        DistributedReentrantLock lock = new DistributedReentrantLock(config("async-cancel", null), processor);
+        Object first = new Object();
+        lock.lockAsync(first).get(5, TimeUnit.SECONDS);
+
+        CompletableFuture<Boolean> waiting = lock.tryLockAsync(new Object(), 5, TimeUnit.SECONDS);
+        waiting.cancel(false);
+        lock.unlockAsync(first).get(5, TimeUnit.SECONDS);
+
+        Object third = new Object();
+        assertTrue(lock.tryLockAsync(third, 5, TimeUnit.SECONDS).get(5, TimeUnit.SECONDS));
+        lock.unlockAsync(third).get(5, TimeUnit.SECONDS);
+        assertNull(processor.lockValue(lock.getLockConfig().getLockUniqueKey()));
+    }
+
+    @Test
+    public void timedOutWaiterCompletesFalse() throws Exception {
+        DistributedReentrantLock lock = new DistributedReentrantLock(config("async-timeout", null),
+            new InMemoryLockProcessor());
+        Object first = new Object();
+        lock.lockAsync(first).get(5, TimeUnit.SECONDS);
+        assertFalse(lock.tryLockAsync(new Object(), 100, TimeUnit.MILLISECONDS).get(5, TimeUnit.SECONDS));
+        lock.unlockAsync(first).get(5, TimeUnit.SECONDS);
+    }
+
+    private static ALockConfig config(String target, ExecutorService executor){
+        return ALockConfig.builder().lockTarget(target).leaseTime(30).leaseTimeUnit(TimeUnit.SECONDS)
+            .asyncExecutor(executor).build();
+    }
+}
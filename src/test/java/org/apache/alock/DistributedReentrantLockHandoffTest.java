@@ -0,0 +1,87 @@
+package org.apache.alock;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.alock.domain.ALockConfig;
+import org.junit.Test;
+
+/**
+ * DistributedReentrantLock handoff模式测试：释放后远程租约在本地保留
+ * @author wy
+ */
+public class DistributedReentrantLockHandoffTest {
+
+    @Test
+    public void relockWithinGraceReusesRetainedLease() throws Exception {
+        InMemoryLockProcessor processor = new InMemoryLockProcessor();
+        DistributedReentrantLock lock = new DistributedReentrantLock(config("handoff-grace", 200, 10000), processor);
+        String key = lock.getLockConfig().getLockUniqueKey();
+
+        lock.lock();
+        lock.unlock();
+        assertEquals(lock.getLockConfig().getLockValue(), processor.lockValue(key));
+
+        lock.lock();
+        assertEquals(1, processor.getGrabCalls());
+        lock.unlock();
+
+        Thread.sleep(500);
+        assertTrue(processor.isLockFree(key));
+    }
+
+    @Test
+    public void retainedLeaseBlocksOtherNodesUntilGraceEnds() throws Exception {
+        InMemoryLockProcessor processor = new InMemoryLockProcessor();
+        DistributedReentrantLock first = new DistributedReentrantLock(config("handoff-nodes", 200, 10000), processor);
+        DistributedReentrantLock second = new DistributedReentrantLock(config("handoff-nodes", 200, 10000), processor);
+
+        first.lock();
+        first.unlock();
+        assertFalse(second.tryLock());
+        assertTrue(second.tryLock(5, TimeUnit.SECONDS));
+        second.unlock();
+    }
+
+    @Test
+    public void leaseIsReleasedOnceMaxHandoffIsExceeded() throws Exception {
+        InMemoryLockProcessor processor = new InMemoryLockProcessor();
+        DistributedReentrantLock lock = new DistributedReentrantLock(config("handoff-max", 5000, 100), processor);
+        String key = lock.getLockConfig().getLockUniqueKey();
+
+        lock.lock();
+        Thread.sleep(150);
+        lock.unlock();
+        assertTrue(processor.isLockFree(key));
+    }
+
+    @Test
+    public void queuedLocalThreadTakesOverWithoutRemoteGrab() throws Exception {
+        InMemoryLockProcessor processor = new InMemoryLockProcessor();
+        final DistributedReentrantLock lock = new DistributedReentrantLock(config("handoff-waiter", 0, 10000), processor);
+        lock.lock();
+        Thread waiter = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                lock.lock();
+                lock.unlock();
+            }
+        });
+        waiter.start();
+        while (waiter.getState() != Thread.State.WAITING){
+            Thread.sleep(1);
+        }
+        lock.unlock();
+        waiter.join(5000);
+        assertFalse(waiter.isAlive());
+        assertEquals(1, processor.getGrabCalls());
+    }
+
+    private static ALockConfig config(String target, long graceMillis, long maxHandoffMillis){
+        return ALockConfig.builder().lockTarget(target).leaseTime(30).leaseTimeUnit(TimeUnit.SECONDS)
+            .handoff(true).handoffGraceMillis(graceMillis).maxHandoffMillis(maxHandoffMillis).build();
+    }
+}
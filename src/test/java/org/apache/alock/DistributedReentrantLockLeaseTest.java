@@ -0,0 +1,166 @@
+package org.apache.alock;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.alock.domain.ALockConfig;
+import org.apache.alock.processor.ALockWatchListener;
+import org.apache.alock.processor.ALockWatchProcessor;
+import org.junit.Test;
+
+/**
+ * DistributedReentrantLock本地租约有效期测试：查询不访问远程存储，续租失败或锁丢失时租约失效
+ * @author wy
+ */
+public class DistributedReentrantLockLeaseTest {
+
+    @Test
+    public void holdIsAnsweredFromLocalLease(){
+        InMemoryLockProcessor processor = new InMemoryLockProcessor();
+        DistributedReentrantLock lock = new DistributedReentrantLock(config("lease-local", 30000), processor);
+        assertFalse(lock.isHeldByCurrentThread());
+        assertEquals(0, lock.remainingLeaseMillis());
+
+        lock.lock();
+        //远程存储不可用也不影响查询
+        processor.setFailure(InMemoryLockProcessor.outage());
+        assertTrue(lock.isHeldByCurrentThread());
+        assertTrue(lock.remainingLeaseMillis() > 29000);
+        assertTrue(lock.isLeaseValidFor(10, TimeUnit.SECONDS));
+        assertFalse(lock.isLeaseValidFor(31, TimeUnit.SECONDS));
+        processor.setFailure(null);
+
+        lock.unlock();
+        assertFalse(lock.isHeldByCurrentThread());
+        assertEquals(0, lock.remainingLeaseMillis());
+    }
+
+    @Test
+    public void failedRenewalsExpireTheLease() throws Exception {
+        InMemoryLockProcessor processor = new InMemoryLockProcessor();
+        DistributedReentrantLock lock = new DistributedReentrantLock(config("lease-outage", 300), processor);
+        final CountDownLatch expired = new CountDownLatch(1);
+        lock.addLeaseListener(new ALockLeaseListener() {
+            @Override
+            public void onLeaseExpired(String lockKey) {
+                expired.countDown();
+            }
+        });
+
+        lock.lock();
+        processor.setFailure(InMemoryLockProcessor.outage());
+        assertTrue(expired.await(5, TimeUnit.SECONDS));
+        assertFalse(lock.isHeldByCurrentThread());
+        assertEquals(0, lock.remainingLeaseMillis());
+        processor.setFailure(null);
+        lock.unlock();
+    }
+
+    @Test
+    public void lostLockExpiresLeaseAndInterruptsOwner() throws Exception {
+        InMemoryLockProcessor processor = new InMemoryLockProcessor();
+        ALockConfig config = ALockConfig.builder().lockTarget("lease-lost").leaseTime(300)
+            .leaseTimeUnit(TimeUnit.MILLISECONDS).interruptOnLeaseLost(true).build();
+        DistributedReentrantLock lock = new DistributedReentrantLock(config, processor);
+        final CountDownLatch expired = new CountDownLatch(1);
+        lock.addLeaseListener(new ALockLeaseListener() {
+            @Override
+            public void onLeaseExpired(String lockKey) {
+                expired.countDown();
+            }
+        });
+
+        lock.lock();
+        processor.put(config.getLockUniqueKey(), "other-node", 30000);
+        boolean interrupted = false;
+        try{
+            Thread.sleep(5000);
+        }catch (InterruptedException e){
+            //续租发现锁已被其他节点持有
+            interrupted = true;
+        }
+        assertTrue(interrupted);
+        assertTrue(expired.await(5, TimeUnit.SECONDS));
+        assertFalse(lock.isHeldByCurrentThread());
+        lock.unlock();
+    }
+
+    @Test
+    public void keyChangeNotificationDetectsLossBeforeRenewal() throws Exception {
+        InMemoryWatchProcessor processor = new InMemoryWatchProcessor();
+        ALockConfig config = ALockConfig.builder().lockTarget("lease-watch").leaseTime(30)
+            .leaseTimeUnit(TimeUnit.SECONDS).watchLease(true).build();
+        DistributedReentrantLock lock = new DistributedReentrantLock(config, processor);
+        final CountDownLatch expired = new CountDownLatch(1);
+        lock.addLeaseListener(new ALockLeaseListener() {
+            @Override
+            public void onLeaseExpired(String lockKey) {
+                expired.countDown();
+            }
+        });
+        lock.lock();
+
+        //本节点自身操作引起的通知经核实后忽略
+        processor.changed(config.getLockUniqueKey(), "set");
+        Thread.sleep(100);
+        assertTrue(lock.isHeldByCurrentThread());
+
+        processor.put(config.getLockUniqueKey(), "other-node", 30000);
+        processor.changed(config.getLockUniqueKey(), "set");
+        //续租要在15秒后才会发现
+        assertTrue(expired.await(1, TimeUnit.SECONDS));
+        assertFalse(lock.isHeldByCurrentThread());
+        lock.unlock();
+    }
+
+    private static ALockConfig config(String target, int leaseMillis){
+        return new ALockConfig(target, leaseMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 支持监听锁key变更的内存锁处理器，由测试调用changed模拟redis的keyspace通知
+     */
+    static class InMemoryWatchProcessor extends InMemoryLockProcessor implements ALockWatchProcessor {
+        private final ConcurrentHashMap<String, Set<ALockWatchListener>> watchers = new ConcurrentHashMap<>();
+
+        @Override
+        public boolean watchLock(ALockConfig config, ALockWatchListener listener) {
+            Set<ALockWatchListener> listeners = watchers.get(config.getLockUniqueKey());
+            if (listeners == null){
+                watchers.putIfAbsent(config.getLockUniqueKey(), new CopyOnWriteArraySet<ALockWatchListener>());
+                listeners = watchers.get(config.getLockUniqueKey());
+            }
+            listeners.add(listener);
+            return true;
+        }
+
+        @Override
+        public void unwatchLock(ALockConfig config, ALockWatchListener listener) {
+            Set<ALockWatchListener> listeners = watchers.get(config.getLockUniqueKey());
+            if (listeners != null){
+                listeners.remove(listener);
+            }
+        }
+
+        @Override
+        public boolean isLockHeld(ALockConfig config) {
+            return config.getLockValue().equals(lockValue(config.getLockUniqueKey()));
+        }
+
+        void changed(String key, String event){
+            Set<ALockWatchListener> listeners = watchers.get(key);
+            if (listeners != null){
+                for (ALockWatchListener listener : listeners){
+                    listener.onLockChanged(key, event);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package org.apache.alock;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+/**
+ * DistributedReentrantLock本地等待队列测试
+ * @author wy
+ */
+public class DistributedReentrantLockQueueTest {
+
+    @Test
+    public void localWaitersAcquireInArrivalOrder() throws Exception {
+        final DistributedReentrantLock lock = new DistributedReentrantLock(
+            DistributedReentrantLockTest.config("queue-order"), new InMemoryLockProcessor());
+        final List<Integer> order = Collections.synchronizedList(new ArrayList<Integer>());
+        lock.lock();
+
+        List<Thread> waiters = new ArrayList<>();
+        for (int i = 0; i < 4; i++){
+            final int n = i;
+            Thread t = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    lock.lock();
+                    order.add(n);
+                    lock.unlock();
+                }
+            });
+            t.start();
+            DistributedReentrantLockTest.awaitParked(t);
+            waiters.add(t);
+        }
+        //排队期间到来的tryLock不插队
+        assertFalse(lock.tryLock(new Object()));
+
+        lock.unlock();
+        for (Thread t : waiters){
+            t.join(5000);
+        }
+        assertEquals(Arrays.asList(0, 1, 2, 3), order);
+    }
+
+    @Test
+    public void timedOutWaiterDoesNotBlockSuccessors() throws Exception {
+        final DistributedReentrantLock lock = new DistributedReentrantLock(
+            DistributedReentrantLockTest.config("queue-cancel"), new InMemoryLockProcessor());
+        final AtomicBoolean timedOut = new AtomicBoolean(false);
+        final List<String> acquired = Collections.synchronizedList(new ArrayList<String>());
+        lock.lock();
+
+        Thread first = waiter(lock, acquired, "first");
+        Thread middle = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try{
+                    timedOut.set(!lock.tryLock(100, TimeUnit.MILLISECONDS));
+                }catch (InterruptedException e){
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        middle.start();
+        DistributedReentrantLockTest.awaitParked(middle);
+        Thread last = waiter(lock, acquired, "last");
+
+        middle.join(5000);
+        assertTrue(timedOut.get());
+        lock.unlock();
+        first.join(5000);
+        last.join(5000);
+        assertEquals(Arrays.asList("first", "last"), acquired);
+        assertTrue(lock.tryLock());
+        lock.unlock();
+    }
+
+    private static Thread waiter(final DistributedReentrantLock lock, final List<String> acquired, final String name)
+        throws InterruptedException {
+        Thread t = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                lock.lock();
+                acquired.add(name);
+                lock.unlock();
+            }
+        });
+        t.start();
+        DistributedReentrantLockTest.awaitParked(t);
+        return t;
+    }
+}
@@ -0,0 +1,291 @@
+package org.apache.alock;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.alock.domain.ALockConfig;
+import org.junit.Test;
+
+/**
+ * DistributedReentrantLock同步API测试
+ * @author wy
+ */
+public class DistributedReentrantLockTest {
+
+    @Test
+    public void reentersAndReleasesRemoteLockOnLastUnlock(){
+        InMemoryLockProcessor processor = new InMemoryLockProcessor();
+        DistributedReentrantLock lock = new DistributedReentrantLock(config("sync-reenter"), processor);
+        String key = lock.getLockConfig().getLockUniqueKey();
+
+        lock.lock();
+        lock.lock();
+        assertEquals(lock.getLockConfig().getLockValue(), processor.lockValue(key));
+        lock.unlock();
+        assertFalse(processor.isLockFree(key));
+        lock.unlock();
+        assertTrue(processor.isLockFree(key));
+    }
+
+    @Test
+    public void unexpectedGrabFailureDoesNotWedgeTheLock(){
+        AtomicBoolean fail = new AtomicBoolean(true);
+        DistributedReentrantLock lock = new DistributedReentrantLock(config("sync-grab-error"),
+            new InMemoryLockProcessor()) {
+            @Override
+            protected long grabRemoteLock() {
+                if (fail.getAndSet(false)){
+                    throw new IllegalStateException("unexpected");
+                }
+                return super.grabRemoteLock();
+            }
+        };
+        try{
+            lock.tryLock();
+            fail("expected IllegalStateException");
+        }catch (IllegalStateException e){
+            //expected
+        }
+        assertTrue(lock.tryLock());
+        lock.unlock();
+    }
+
+    @Test
+    public void otherNodeCannotAcquireWhileHeld() throws Exception {
+        InMemoryLockProcessor processor = new InMemoryLockProcessor();
+        DistributedReentrantLock first = new DistributedReentrantLock(config("sync-nodes"), processor);
+        DistributedReentrantLock second = new DistributedReentrantLock(config("sync-nodes"), processor);
+
+        first.lock();
+        assertFalse(second.tryLock(50, TimeUnit.MILLISECONDS));
+        first.unlock();
+        assertTrue(second.tryLock(5, TimeUnit.SECONDS));
+        second.unlock();
+    }
+
+    @Test
+    public void storeFailureFailsTryLockWithoutHoldingGrabFlag(){
+        InMemoryLockProcessor processor = new InMemoryLockProcessor();
+        DistributedReentrantLock lock = new DistributedReentrantLock(config("sync-outage"), processor);
+        processor.setFailure(InMemoryLockProcessor.outage());
+        assertFalse(lock.tryLock());
+        processor.setFailure(null);
+        assertTrue(lock.tryLock());
+        assertTrue(processor.getGrabCalls() > 0);
+        lock.unlock();
+    }
+
+    @Test
+    public void interruptedWaiterKeepsParkingAndRestoresInterruptAfterLock() throws Exception {
+        InMemoryLockProcessor processor = new InMemoryLockProcessor();
+        final DistributedReentrantLock lock = new DistributedReentrantLock(config("sync-interrupt"), processor);
+        final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        final AtomicLong waitCpuNanos = new AtomicLong(-1);
+        final AtomicBoolean interruptedAfterLock = new AtomicBoolean(false);
+        final CountDownLatch locked = new CountDownLatch(1);
+        lock.lock();
+
+        Thread waiter = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                long cpuStart = threads.isCurrentThreadCpuTimeSupported() ? threads.getCurrentThreadCpuTime() : -1;
+                lock.lock();
+                if (cpuStart >= 0){
+                    waitCpuNanos.set(threads.getCurrentThreadCpuTime() - cpuStart);
+                }
+                interruptedAfterLock.set(Thread.currentThread().isInterrupted());
+                lock.unlock();
+                locked.countDown();
+            }
+        });
+        waiter.start();
+        awaitParked(waiter);
+        waiter.interrupt();
+        Thread.sleep(300);
+        assertEquals(1, locked.getCount());
+        lock.unlock();
+
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+        assertTrue(interruptedAfterLock.get());
+        if (waitCpuNanos.get() >= 0){
+            //被中断后仍在park，等待300ms只消耗很少的CPU
+            assertTrue("waiter spun for " + waitCpuNanos.get() + "ns",
+                waitCpuNanos.get() < TimeUnit.MILLISECONDS.toNanos(150));
+        }
+    }
+
+    @Test
+    public void interruptedTimedTryLockThrowsAndLeavesQueue() throws Exception {
+        InMemoryLockProcessor processor = new InMemoryLockProcessor();
+        final DistributedReentrantLock lock = new DistributedReentrantLock(config("sync-interrupt-timed"), processor);
+        final AtomicBoolean thrown = new AtomicBoolean(false);
+        lock.lock();
+
+        Thread waiter = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try{
+                    lock.tryLock(30, TimeUnit.SECONDS);
+                }catch (InterruptedException e){
+                    thrown.set(true);
+                }
+            }
+        });
+        waiter.start();
+        awaitParked(waiter);
+        waiter.interrupt();
+        waiter.join(5000);
+        assertFalse(waiter.isAlive());
+        assertTrue(thrown.get());
+        lock.unlock();
+        //被取消的节点不再排在前面
+        assertTrue(lock.tryLock());
+        lock.unlock();
+    }
+
+    @Test
+    public void grabErrorAfterExecutionReleasesTheMaybeGrabbedLock(){
+        InMemoryLockProcessor processor = new InMemoryLockProcessor() {
+            @Override
+            public synchronized long tryGrabLock(ALockConfig config) {
+                //脚本已执行但回复超时
+                super.tryGrabLock(config);
+                throw outage();
+            }
+        };
+        DistributedReentrantLock lock = new DistributedReentrantLock(config("sync-grab-timeout"), processor);
+        String key = lock.getLockConfig().getLockUniqueKey();
+
+        assertFalse(lock.tryLock());
+        assertTrue(processor.isLockFree(key));
+    }
+
+    @Test
+    public void releaseNotificationWakesWaiterOnOtherNode() throws Exception {
+        InMemoryLockProcessor processor = new InMemoryLockProcessor();
+        DistributedReentrantLock first = new DistributedReentrantLock(config("sync-notify"), processor);
+        DistributedReentrantLock second = new DistributedReentrantLock(config("sync-notify"), processor);
+        first.lock();
+        long acquiredAfter = waitOnOtherNode(first, second);
+        //轮询间隔为租期的1/10以上（3秒），1秒内拿到锁只能是释放通知唤醒的
+        assertTrue("acquired after " + acquiredAfter + "ms", acquiredAfter < 1000);
+    }
+
+    @Test
+    public void waiterFallsBackToPollingWithoutSubscription() throws Exception {
+        InMemoryLockProcessor processor = new InMemoryLockProcessor();
+        processor.setSubscribeSupported(false);
+        DistributedReentrantLock first = new DistributedReentrantLock(config("sync-poll"), processor);
+        DistributedReentrantLock second = new DistributedReentrantLock(config("sync-poll"), processor);
+        first.lock();
+        long acquiredAfter = waitOnOtherNode(first, second);
+        assertTrue("acquired after " + acquiredAfter + "ms", acquiredAfter >= 1000);
+    }
+
+    @Test
+    public void failedGrabIsCachedBriefly() throws Exception {
+        InMemoryLockProcessor processor = new InMemoryLockProcessor();
+        ALockConfig config = new ALockConfig("sync-negative", 2, TimeUnit.SECONDS);
+        processor.put(config.getLockUniqueKey(), "other-node", 30000);
+        DistributedReentrantLock lock = new DistributedReentrantLock(config, processor);
+
+        assertFalse(lock.tryLock());
+        assertFalse(lock.tryLock());
+        //租期的1/20（100ms）内直接判定失败，不访问远程存储
+        assertEquals(1, processor.getGrabCalls());
+
+        Thread.sleep(150);
+        assertFalse(lock.tryLock());
+        assertEquals(2, processor.getGrabCalls());
+    }
+
+    @Test
+    public void waiterRetriesWhenHolderLeaseExpires() throws Exception {
+        InMemoryLockProcessor processor = new InMemoryLockProcessor();
+        DistributedReentrantLock lock = new DistributedReentrantLock(config("sync-pttl"), processor);
+        processor.put(lock.getLockConfig().getLockUniqueKey(), "other-node", 300);
+
+        long start = System.nanoTime();
+        assertTrue(lock.tryLock(5, TimeUnit.SECONDS));
+        long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        lock.unlock();
+        //过期不会发布释放通知，按剩余租期安排的重试在到期后立即拿到锁，远早于15秒的兜底轮询
+        assertTrue("waited " + waited + "ms", waited >= 250 && waited < 1500);
+    }
+
+    @Test
+    public void subscribedWaiterStillPollsWhenNotificationIsLost() throws Exception {
+        final InMemoryLockProcessor processor = new InMemoryLockProcessor();
+        DistributedReentrantLock lock = new DistributedReentrantLock(new ALockConfig("sync-lost-notify", 60,
+            TimeUnit.SECONDS), processor);
+        final String key = lock.getLockConfig().getLockUniqueKey();
+        processor.put(key, "other-node", 60000);
+        Thread remover = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try{
+                    Thread.sleep(200);
+                }catch (InterruptedException e){
+                    return;
+                }
+                //删除不发布释放通知，等待者只能靠兜底轮询发现
+                processor.remove(key);
+            }
+        });
+        remover.start();
+
+        long start = System.nanoTime();
+        assertTrue(lock.tryLock(10, TimeUnit.SECONDS));
+        long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        lock.unlock();
+        //持有者剩余60秒，未封顶时要等到租期结束才会重试
+        assertTrue("waited " + waited + "ms", waited < ALockConfig.MAX_RETRY_POLL_MILLIS * 2);
+    }
+
+    /**
+     * second在另一线程等待first持有的锁，first释放后返回second拿到锁所用的毫秒数，未拿到为Long.MAX_VALUE
+     */
+    private static long waitOnOtherNode(DistributedReentrantLock first, final DistributedReentrantLock second)
+        throws Exception {
+        final long[] acquiredAt = {Long.MAX_VALUE};
+        Thread waiter = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try{
+                    if (second.tryLock(2, TimeUnit.SECONDS)){
+                        acquiredAt[0] = System.nanoTime();
+                        second.unlock();
+                    }
+                }catch (InterruptedException e){
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        waiter.start();
+        awaitParked(waiter);
+        long releasedAt = System.nanoTime();
+        first.unlock();
+        waiter.join(5000);
+        return acquiredAt[0] == Long.MAX_VALUE ? Long.MAX_VALUE
+            : TimeUnit.NANOSECONDS.toMillis(acquiredAt[0] - releasedAt);
+    }
+
+    static void awaitParked(Thread t) throws InterruptedException {
+        while (t.getState() != Thread.State.WAITING && t.getState() != Thread.State.TIMED_WAITING){
+            Thread.sleep(1);
+        }
+    }
+
+    static ALockConfig config(String target){
+        return new ALockConfig(target, 30, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,42 @@
+package org.apache.alock;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.alock.domain.ALockConfig;
+import org.junit.Test;
+
+/**
+ * FairLock构造校验测试
+ * @author wy
+ */
+public class FairLockTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonFairConfig(){
+        new FairLock(config("fair-plain", null, false), MultiLockTest.clusterProcessor());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsProcessorWithoutFairSupport(){
+        new FairLock(config("fair-unsupported", null, true), new InMemoryLockProcessor());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsMissingHashTagOnClusterAtConstruction(){
+        new FairLock(config("fair-untagged", null, true), MultiLockTest.clusterProcessor());
+    }
+
+    @Test
+    public void acceptsHashTagOnCluster(){
+        ALockConfig config = config("fair-tagged", "queue", true);
+        FairLock lock = new FairLock(config, MultiLockTest.clusterProcessor());
+        assertEquals(config, lock.getLockConfig());
+    }
+
+    private static ALockConfig config(String target, String hashTag, boolean fair){
+        return ALockConfig.builder().lockTarget(target).hashTag(hashTag).fair(fair).leaseTime(30)
+            .leaseTimeUnit(TimeUnit.SECONDS).build();
+    }
+}
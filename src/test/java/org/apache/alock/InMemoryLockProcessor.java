@@ -0,0 +1,230 @@
+package org.apache.alock;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.alock.domain.ALockConfig;
+import org.apache.alock.exception.ALockProcessException;
+import org.apache.alock.processor.ALockReleaseListener;
+import org.apache.alock.processor.AbstractALockProcessor;
+
+/**
+ * 测试用的内存锁处理器，语义与RedisLockProcessor的脚本一致：SET NX PX抢占、按锁值续租与释放、释放时通知订阅者
+ * @author wy
+ */
+public class InMemoryLockProcessor extends AbstractALockProcessor {
+
+    private final Map<String, Entry> store = new HashMap<>();
+
+    private final Map<String, Set<ALockReleaseListener>> releaseListeners = new ConcurrentHashMap<>();
+
+    private final AtomicInteger grabCalls = new AtomicInteger(0);
+
+    private volatile boolean subscribeSupported = true;
+
+    /**
+     * 不为空时所有远程操作抛出该异常，模拟存储不可用
+     */
+    private volatile RuntimeException failure;
+
+    public int getGrabCalls() {
+        return grabCalls.get();
+    }
+
+    public void setSubscribeSupported(boolean subscribeSupported) {
+        this.subscribeSupported = subscribeSupported;
+    }
+
+    public void setFailure(RuntimeException failure) {
+        this.failure = failure;
+    }
+
+    /**
+     * 以其他持有者的身份直接写入锁，模拟其他节点持有或抢占
+     */
+    public synchronized void put(String key, String value, long leaseMillis){
+        store.put(key, new Entry(value, System.currentTimeMillis() + leaseMillis));
+    }
+
+    /**
+     * 模拟锁过期或被删除，不通知订阅者
+     */
+    public synchronized void remove(String key){
+        store.remove(key);
+    }
+
+    @Override
+    public synchronized String lockValue(String lockKey) {
+        checkFailure();
+        Entry e = live(lockKey);
+        return e == null ? null : e.value;
+    }
+
+    @Override
+    public synchronized long tryGrabLock(ALockConfig config) {
+        checkFailure();
+        grabCalls.incrementAndGet();
+        Entry e = live(config.getLockUniqueKey());
+        if (e != null){
+            return ttl(e);
+        }
+        put(config.getLockUniqueKey(), config.getLockValue(), config.getMillisLease());
+        return GRABBED;
+    }
+
+    @Override
+    public synchronized long tryGrabLocks(Collection<ALockConfig> configs) {
+        checkFailure();
+        grabCalls.incrementAndGet();
+        long maxTtl = -1;
+        for (ALockConfig config : configs){
+            Entry e = live(config.getLockUniqueKey());
+            if (e != null){
+                maxTtl = Math.max(maxTtl, ttl(e));
+            }
+        }
+        if (maxTtl >= 0){
+            return maxTtl;
+        }
+        for (ALockConfig config : configs){
+            put(config.getLockUniqueKey(), config.getLockValue(), config.getMillisLease());
+        }
+        return GRABBED;
+    }
+
+    @Override
+    public synchronized List<ALockConfig> claimLocks(List<ALockConfig> candidates, int limit) {
+        checkFailure();
+        List<ALockConfig> claimed = new ArrayList<>();
+        for (ALockConfig config : candidates){
+            if (claimed.size() >= limit){
+                break;
+            }
+            if (live(config.getLockUniqueKey()) == null){
+                put(config.getLockUniqueKey(), config.getLockValue(), config.getMillisLease());
+                claimed.add(config);
+            }
+        }
+        return claimed;
+    }
+
+    @Override
+    public synchronized boolean tryExpandLockExpire(ALockConfig config) {
+        checkFailure();
+        Entry e = live(config.getLockUniqueKey());
+        if (e == null || !e.value.equals(config.getLockValue())){
+            return false;
+        }
+        e.expireAt = System.currentTimeMillis() + config.getMillisLease();
+        return true;
+    }
+
+    @Override
+    public synchronized Map<ALockConfig, Boolean> expandLockExpire(Collection<ALockConfig> configs) {
+        checkFailure();
+        Map<ALockConfig, Boolean> results = new IdentityHashMap<>();
+        for (ALockConfig config : configs){
+            results.put(config, tryExpandLockExpire(config));
+        }
+        return results;
+    }
+
+    @Override
+    public boolean tryReleaseLock(ALockConfig config) {
+        synchronized (this){
+            checkFailure();
+            Entry e = live(config.getLockUniqueKey());
+            if (e == null || !e.value.equals(config.getLockValue())){
+                return false;
+            }
+            store.remove(config.getLockUniqueKey());
+        }
+        notifyRelease(config.getLockUniqueKey());
+        return true;
+    }
+
+    @Override
+    public boolean tryReleaseLocks(Collection<ALockConfig> configs) {
+        boolean all = true;
+        for (ALockConfig config : configs){
+            all &= tryReleaseLock(config);
+        }
+        return all;
+    }
+
+    @Override
+    public boolean subscribeRelease(ALockConfig config, ALockReleaseListener listener) {
+        if (!subscribeSupported){
+            return false;
+        }
+        Set<ALockReleaseListener> listeners = releaseListeners.get(config.getLockUniqueKey());
+        if (listeners == null){
+            releaseListeners.putIfAbsent(config.getLockUniqueKey(), new CopyOnWriteArraySet<ALockReleaseListener>());
+            listeners = releaseListeners.get(config.getLockUniqueKey());
+        }
+        listeners.add(listener);
+        return true;
+    }
+
+    @Override
+    public void unsubscribeRelease(ALockConfig config, ALockReleaseListener listener) {
+        Set<ALockReleaseListener> listeners = releaseListeners.get(config.getLockUniqueKey());
+        if (listeners != null){
+            listeners.remove(listener);
+        }
+    }
+
+    protected void notifyRelease(String key){
+        Set<ALockReleaseListener> listeners = releaseListeners.get(key);
+        if (listeners != null){
+            for (ALockReleaseListener listener : listeners){
+                listener.onRelease(key);
+            }
+        }
+    }
+
+    private void checkFailure(){
+        RuntimeException e = failure;
+        if (e != null){
+            throw e;
+        }
+    }
+
+    private Entry live(String key){
+        Entry e = store.get(key);
+        if (e != null && e.expireAt <= System.currentTimeMillis()){
+            store.remove(key);
+            return null;
+        }
+        return e;
+    }
+
+    private static long ttl(Entry e){
+        return Math.max(0, e.expireAt - System.currentTimeMillis());
+    }
+
+    /**
+     * 抛出ALockProcessException的存储故障
+     */
+    public static ALockProcessException outage(){
+        return new ALockProcessException("store unavailable");
+    }
+
+    private static class Entry{
+        final String value;
+        long expireAt;
+
+        Entry(String value, long expireAt){
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.apache.alock;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.alock.domain.ALockConfig;
+import org.apache.alock.jedis.JedisClusterClient;
+import org.apache.alock.processor.impl.RedisClusterLockProcessor;
+import org.junit.Test;
+
+/**
+ * MultiLock测试
+ * @author wy
+ */
+public class MultiLockTest {
+
+    @Test
+    public void acquiresAllKeysOrNone() throws Exception {
+        InMemoryLockProcessor processor = new InMemoryLockProcessor();
+        List<ALockConfig> configs = Arrays.asList(config("multi-a", null), config("multi-b", null));
+        MultiLock lock = new MultiLock(configs, processor);
+
+        processor.put(configs.get(1).getLockUniqueKey(), "other", 100);
+        assertFalse(lock.tryLock());
+        assertNull(processor.lockValue(configs.get(0).getLockUniqueKey()));
+
+        //其他持有者的租约到期后才能获取
+        Thread.sleep(150);
+        assertTrue(lock.tryLock());
+        for (ALockConfig config : configs){
+            assertEquals(config.getLockValue(), processor.lockValue(config.getLockUniqueKey()));
+        }
+        lock.unlock();
+        for (ALockConfig config : configs){
+            assertTrue(processor.isLockFree(config.getLockUniqueKey()));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsCrossSlotKeysOnClusterAtConstruction(){
+        new MultiLock(Arrays.asList(config("multi-slot-a", null), config("multi-slot-b", null)), clusterProcessor());
+    }
+
+    @Test
+    public void acceptsKeysSharingHashTagOnCluster(){
+        MultiLock lock = new MultiLock(Arrays.asList(config("multi-tag-a", "order"), config("multi-tag-b", "order")),
+            clusterProcessor());
+        assertEquals(2, lock.getLockConfigs().size());
+    }
+
+    static RedisClusterLockProcessor clusterProcessor(){
+        return new RedisClusterLockProcessor(new JedisClusterClient(null));
+    }
+
+    private static ALockConfig config(String target, String hashTag){
+        return ALockConfig.builder().lockTarget(target).hashTag(hashTag).leaseTime(30)
+            .leaseTimeUnit(TimeUnit.SECONDS).build();
+    }
+}
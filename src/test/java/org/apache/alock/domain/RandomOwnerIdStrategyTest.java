@@ -0,0 +1,67 @@
+package org.apache.alock.domain;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * 持有者标识生成策略测试
+ * @author wy
+ */
+public class RandomOwnerIdStrategyTest {
+
+    @Test
+    public void idsAreUniqueCompactAndPrintable(){
+        RandomOwnerIdStrategy strategy = new RandomOwnerIdStrategy();
+        Set<String> ids = new HashSet<>();
+        String processId = null;
+        for (int i = 0; i < 10000; i++){
+            String id = strategy.nextOwnerId();
+            assertTrue(id, id.matches("[A-Za-z0-9_-]+"));
+            assertTrue(id, id.length() <= 14);
+            if (processId == null){
+                processId = id.substring(0, 11);
+            }
+            assertTrue(id.startsWith(processId));
+            ids.add(id);
+        }
+        assertEquals(10000, ids.size());
+    }
+
+    @Test
+    public void instancesShareTheProcessSequence(){
+        RandomOwnerIdStrategy first = new RandomOwnerIdStrategy();
+        RandomOwnerIdStrategy second = new RandomOwnerIdStrategy();
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < 1000; i++){
+            ids.add(first.nextOwnerId());
+            ids.add(second.nextOwnerId());
+        }
+        assertEquals(2000, ids.size());
+    }
+
+    @Test
+    public void builderStrategyOverridesDefault(){
+        LockOwnerIdStrategy fixed = new LockOwnerIdStrategy() {
+            @Override
+            public String nextOwnerId() {
+                return "fixed-owner";
+            }
+        };
+        ALockConfig config = ALockConfig.builder().lockTarget("owner-id").leaseTime(30)
+            .leaseTimeUnit(TimeUnit.SECONDS).ownerIdStrategy(fixed).build();
+        assertEquals("fixed-owner", config.getLockValue());
+        assertTrue(new ALockConfig("owner-id", 30, TimeUnit.SECONDS).getLockValue().length() <= 14);
+    }
+
+    @Test
+    public void hostThreadIdsCarryTheCreatingThread(){
+        String id = new HostThreadOwnerIdStrategy().nextOwnerId();
+        assertTrue(id, id.endsWith("-" + Thread.currentThread().getId()));
+    }
+}
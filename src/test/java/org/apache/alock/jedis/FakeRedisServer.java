@@ -0,0 +1,183 @@
+package org.apache.alock.jedis;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 测试用的最小redis服务端，支持GET、SET、SCRIPT LOAD与EVALSHA（未加载的脚本回复NOSCRIPT，
+ * 已加载的脚本回复第一个key的值）；mute时只读取命令不回复，模拟服务端无响应
+ * @author wy
+ */
+class FakeRedisServer {
+
+    private final ServerSocket serverSocket;
+
+    private final Map<String, String> values = new ConcurrentHashMap<>();
+
+    private final Set<String> scripts = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    private final AtomicInteger scriptLoads = new AtomicInteger(0);
+
+    private final List<Socket> clients = Collections.synchronizedList(new ArrayList<Socket>());
+
+    private volatile boolean mute;
+
+    FakeRedisServer() throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                acceptLoop();
+            }
+        }, "FakeRedisServer");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    int getPort(){
+        return serverSocket.getLocalPort();
+    }
+
+    void put(String key, String value){
+        values.put(key, value);
+    }
+
+    int getScriptLoads(){
+        return scriptLoads.get();
+    }
+
+    void setMute(boolean mute) {
+        this.mute = mute;
+    }
+
+    void close() throws IOException {
+        serverSocket.close();
+        synchronized (clients){
+            for (Socket client : clients){
+                client.close();
+            }
+        }
+    }
+
+    private void acceptLoop(){
+        for (;;){
+            final Socket socket;
+            try{
+                socket = serverSocket.accept();
+            }catch (IOException e){
+                return;
+            }
+            clients.add(socket);
+            Thread t = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    serve(socket);
+                }
+            }, "FakeRedisConnection");
+            t.setDaemon(true);
+            t.start();
+        }
+    }
+
+    private void serve(Socket socket){
+        try{
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            OutputStream out = socket.getOutputStream();
+            for (;;){
+                List<String> command = readCommand(in);
+                if (command == null){
+                    return;
+                }
+                if (!mute){
+                    out.write(reply(command).getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                }
+            }
+        }catch (IOException e){
+            //connection closed
+        }
+    }
+
+    private String reply(List<String> command){
+        String name = command.get(0).toUpperCase();
+        if ("GET".equals(name)){
+            return bulk(values.get(command.get(1)));
+        }
+        if ("SET".equals(name)){
+            values.put(command.get(1), command.get(2));
+            return "+OK\r\n";
+        }
+        if ("SCRIPT".equals(name)){
+            scriptLoads.incrementAndGet();
+            String sha1 = new String(new LuaScript(command.get(2)).getSha1(), StandardCharsets.US_ASCII);
+            scripts.add(sha1);
+            return bulk(sha1);
+        }
+        if ("EVALSHA".equals(name)){
+            if (!scripts.contains(command.get(1))){
+                return "-NOSCRIPT No matching script. Please use EVAL.\r\n";
+            }
+            return bulk(values.get(command.get(3)));
+        }
+        return "-ERR unknown command '" + name + "'\r\n";
+    }
+
+    private static String bulk(String value){
+        if (value == null){
+            return "$-1\r\n";
+        }
+        return "$" + value.getBytes(StandardCharsets.UTF_8).length + "\r\n" + value + "\r\n";
+    }
+
+    private static List<String> readCommand(InputStream in) throws IOException {
+        String header = readLine(in);
+        if (header == null){
+            return null;
+        }
+        int count = Integer.parseInt(header.substring(1));
+        List<String> command = new ArrayList<>(count);
+        for (int i = 0; i < count; i++){
+            int len = Integer.parseInt(readLine(in).substring(1));
+            byte[] bytes = new byte[len];
+            int read = 0;
+            while (read < len){
+                int n = in.read(bytes, read, len - read);
+                if (n < 0){
+                    return null;
+                }
+                read += n;
+            }
+            readLine(in);
+            command.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+        return command;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (;;){
+            int b = in.read();
+            if (b < 0){
+                return null;
+            }
+            if (b == '\r'){
+                in.read();
+                return sb.toString();
+            }
+            sb.append((char) b);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package org.apache.alock.jedis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import redis.clients.jedis.JedisPool;
+
+/**
+ * redis cluster订阅节点选择测试
+ * @author wy
+ */
+public class JedisClusterClientTest {
+
+    @Test
+    public void selectionAvoidsTheFailedNode() throws Exception {
+        JedisPool a = deadNode();
+        JedisPool b = deadNode();
+        try{
+            for (int i = 0; i < 20; i++){
+                assertSame(b, JedisClusterClient.selectNode(Arrays.asList(a, b), a));
+            }
+            //只剩失败的节点时仍然重试它
+            assertSame(a, JedisClusterClient.selectNode(Collections.singletonList(a), a));
+        }finally {
+            a.close();
+            b.close();
+        }
+    }
+
+    @Test
+    public void subscriberReselectsNodeAfterConnectionFailure() throws Exception {
+        final JedisPool a = deadNode();
+        final JedisPool b = deadNode();
+        final List<JedisPool> failures = new CopyOnWriteArrayList<>();
+        final CountDownLatch reselected = new CountDownLatch(1);
+        JedisSubscriber subscriber = JedisSubscriber.of(new JedisSubscriber.NodeSelector() {
+            @Override
+            public JedisPool select(JedisPool failed) {
+                failures.add(failed);
+                if (failed == null){
+                    return a;
+                }
+                reselected.countDown();
+                //结束订阅线程，不再重连
+                Thread.currentThread().interrupt();
+                return b;
+            }
+        });
+        try{
+            subscriber.subscribe("cluster-reselect", new JedisMessageListener() {
+                @Override
+                public void onMessage(String channel, String message) {
+                }
+            });
+            assertTrue(reselected.await(5, TimeUnit.SECONDS));
+            assertEquals(2, failures.size());
+            assertNull(failures.get(0));
+            assertSame(a, failures.get(1));
+        }finally {
+            a.close();
+            b.close();
+        }
+    }
+
+    /**
+     * 指向无人监听端口的连接池，获取连接总是失败
+     */
+    private static JedisPool deadNode() throws IOException {
+        int port;
+        try(ServerSocket socket = new ServerSocket(0)){
+            port = socket.getLocalPort();
+        }
+        return new JedisPool("127.0.0.1", port);
+    }
+}
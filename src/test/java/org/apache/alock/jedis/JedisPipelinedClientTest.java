@@ -0,0 +1,99 @@
+package org.apache.alock.jedis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+/**
+ * JedisPipelinedClient测试，redis由FakeRedisServer代替
+ * @author wy
+ */
+public class JedisPipelinedClientTest {
+
+    private FakeRedisServer server;
+
+    private JedisPool pool;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new FakeRedisServer();
+        pool = new JedisPool("127.0.0.1", server.getPort());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        pool.destroy();
+        server.close();
+    }
+
+    @Test
+    public void concurrentCallersGetTheirOwnReplies() throws Exception {
+        final JedisPipelinedClient client = new JedisPipelinedClient(pool, 1, 64, 200, 5000);
+        for (int i = 0; i < 50; i++){
+            server.put("key" + i, "value" + i);
+        }
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try{
+            List<Future<String>> replies = new ArrayList<>();
+            for (int i = 0; i < 50; i++){
+                final int n = i;
+                replies.add(callers.submit(new Callable<String>() {
+                    @Override
+                    public String call() {
+                        return client.get("key" + n);
+                    }
+                }));
+            }
+            for (int i = 0; i < 50; i++){
+                assertEquals("value" + i, replies.get(i).get(5, TimeUnit.SECONDS));
+            }
+        }finally {
+            callers.shutdownNow();
+        }
+        assertNull(client.get("missing"));
+        assertEquals(0, client.getQueueDepth());
+    }
+
+    @Test
+    public void noScriptLoadsOnceAndRetries() throws Exception {
+        JedisPipelinedClient client = new JedisPipelinedClient(pool, 1, 64, 0, 5000);
+        server.put("lock", "owner");
+        LuaScript script = new LuaScript("return redis.call('get', KEYS[1])");
+        List<byte[]> keys = Collections.singletonList("lock".getBytes(StandardCharsets.UTF_8));
+        List<byte[]> args = Collections.emptyList();
+
+        assertEquals("owner", new String((byte[]) client.evalsha(script, keys, args), StandardCharsets.UTF_8));
+        assertEquals("owner", new String((byte[]) client.evalsha(script, keys, args), StandardCharsets.UTF_8));
+        assertEquals(1, server.getScriptLoads());
+    }
+
+    @Test
+    public void unansweredCommandTimesOut(){
+        JedisPipelinedClient client = new JedisPipelinedClient(pool, 1, 64, 0, 200);
+        server.setMute(true);
+        long start = System.nanoTime();
+        try{
+            client.get("key");
+            fail("expected JedisConnectionException");
+        }catch (JedisConnectionException e){
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 200);
+        }
+    }
+}
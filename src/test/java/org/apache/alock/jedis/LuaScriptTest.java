@@ -0,0 +1,29 @@
+package org.apache.alock.jedis;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+/**
+ * LuaScript测试，sha1需与redis SCRIPT LOAD返回值一致
+ * @author wy
+ */
+public class LuaScriptTest {
+
+    @Test
+    public void sha1IsLowercaseHexOfScript(){
+        LuaScript script = new LuaScript("return 1");
+        assertEquals("e0e1f9fabfc9d4800c877a703b823ac0578ff8db", new String(script.getSha1(), StandardCharsets.US_ASCII));
+        assertArrayEquals("return 1".getBytes(StandardCharsets.UTF_8), script.getScriptBytes());
+    }
+
+    @Test
+    public void scriptIsEncodedAsUtf8(){
+        LuaScript script = new LuaScript("return '锁'");
+        assertEquals(12, script.getScriptBytes().length);
+        assertEquals(40, script.getSha1().length);
+    }
+}
@@ -0,0 +1,90 @@
+package org.apache.alock.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * ContentionTracker测试
+ * @author wy
+ */
+public class ContentionTrackerTest {
+
+    @Test
+    public void newKeyReplacesTheLeastCountedKey(){
+        ContentionTracker tracker = new ContentionTracker(3);
+        record(tracker, "a", 5);
+        record(tracker, "b", 5);
+        record(tracker, "c", 1);
+        record(tracker, "d", 1);
+
+        Map<String, ContendedKey> top = byKey(tracker.topKeys(3));
+        assertEquals(5, top.get("a").getCount());
+        assertEquals(5, top.get("b").getCount());
+        assertEquals(2, top.get("d").getCount());
+        assertEquals(1, top.get("d").getError());
+    }
+
+    @Test
+    public void heavyHitterSurvivesManyRareKeys(){
+        ContentionTracker tracker = new ContentionTracker(4);
+        for (int i = 0; i < 1000; i++){
+            tracker.record("hot", i % 7, 1000);
+            tracker.record("rare-" + i, 0, -1);
+        }
+        List<ContendedKey> top = tracker.topKeys(1);
+        assertEquals("hot", top.get(0).getKey());
+        assertTrue(top.get(0).getCount() >= 1000);
+        assertEquals(6, top.get(0).getMaxQueueDepth());
+    }
+
+    @Test
+    public void concurrentRecordsAreNotLost() throws Exception {
+        ContentionTracker tracker = new ContentionTracker(16);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try{
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++){
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 10000; i++){
+                        tracker.record("key-" + (i % 8), 1, -1);
+                    }
+                }));
+            }
+            for (Future<?> f : futures){
+                f.get(30, TimeUnit.SECONDS);
+            }
+        }finally {
+            executor.shutdownNow();
+        }
+        long total = 0;
+        for (ContendedKey key : tracker.topKeys(16)){
+            total += key.getCount();
+        }
+        assertEquals(80000, total + tracker.getDropped());
+    }
+
+    private static void record(ContentionTracker tracker, String key, int times){
+        for (int i = 0; i < times; i++){
+            tracker.record(key, 1, -1);
+        }
+    }
+
+    private static Map<String, ContendedKey> byKey(List<ContendedKey> keys){
+        Map<String, ContendedKey> map = new HashMap<>();
+        for (ContendedKey key : keys){
+            map.put(key.getKey(), key);
+        }
+        return map;
+    }
+}
@@ -0,0 +1,61 @@
+package org.apache.alock.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * LatencyHistogram测试
+ * @author wy
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void tracksCountMeanAndMax(){
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long v = 1; v <= 1000; v++){
+            histogram.record(v);
+        }
+        histogram.record(-5);
+        assertEquals(1001, histogram.getCount());
+        assertEquals(1000, histogram.getMax());
+        assertEquals(500500.0 / 1001, histogram.getMean(), 0.0001);
+    }
+
+    @Test
+    public void percentilesStayWithinBucketError(){
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long v = 1; v <= 100000; v++){
+            histogram.record(v);
+        }
+        for (double p : new double[]{50, 90, 99, 99.9}){
+            long exact = (long) Math.ceil(p / 100 * 100000);
+            long estimate = histogram.getPercentile(p);
+            assertTrue(p + ":" + estimate, estimate >= exact && estimate <= exact * 1.125 + 1);
+        }
+        assertEquals(100000, histogram.getPercentile(100));
+    }
+
+    @Test
+    public void bucketsCoverEveryValueInOrder(){
+        long[] values = {0, 1, 7, 8, 9, 15, 16, 1000, 1L << 40, Long.MAX_VALUE};
+        int last = -1;
+        for (long v : values){
+            int index = LatencyHistogram.bucketIndex(v);
+            assertTrue(index >= last);
+            assertTrue(LatencyHistogram.bucketUpperBound(index) >= v);
+            last = index;
+        }
+    }
+
+    @Test
+    public void resetClearsEverything(){
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(42);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getPercentile(99));
+    }
+}
@@ -0,0 +1,129 @@
+package org.apache.alock.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * LockNearCache测试
+ * @author wy
+ */
+public class LockNearCacheTest {
+
+    @Test
+    public void loadsThroughUntilTrackingIsOn(){
+        LockNearCache cache = new LockNearCache(16);
+        CountingLoader loader = new CountingLoader().value("k", "owner");
+        cache.get("k", loader);
+        cache.get("k", loader);
+        assertEquals(2, loader.loads);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void servesValuesAndAbsenceFromCacheWhileTracking(){
+        LockNearCache cache = new LockNearCache(16);
+        cache.onTrackingChanged(true);
+        CountingLoader loader = new CountingLoader().value("k", "owner");
+
+        assertEquals("owner", cache.get("k", loader));
+        assertEquals("owner", cache.get("k", loader));
+        assertNull(cache.get("free", loader));
+        assertNull(cache.get("free", loader));
+        assertEquals(2, loader.loads);
+    }
+
+    @Test
+    public void invalidationForcesReload(){
+        LockNearCache cache = new LockNearCache(16);
+        cache.onTrackingChanged(true);
+        CountingLoader loader = new CountingLoader().value("k", "first");
+        cache.get("k", loader);
+
+        loader.value("k", "second");
+        cache.onInvalidate("k");
+        assertEquals("second", cache.get("k", loader));
+        assertEquals(2, loader.loads);
+    }
+
+    @Test
+    public void invalidationDuringLoadIsNotOverwritten(){
+        final LockNearCache cache = new LockNearCache(16);
+        cache.onTrackingChanged(true);
+        CountingLoader loader = new CountingLoader() {
+            @Override
+            public String load(String key) {
+                String value = super.load(key);
+                //加载的值在返回前已被修改
+                cache.onInvalidate(key);
+                return value;
+            }
+        }.value("k", "stale");
+
+        assertEquals("stale", cache.get("k", loader));
+        cache.get("k", loader);
+        assertEquals(2, loader.loads);
+    }
+
+    @Test
+    public void trackingLossDisablesAndClears(){
+        LockNearCache cache = new LockNearCache(16);
+        cache.onTrackingChanged(true);
+        CountingLoader loader = new CountingLoader().value("k", "owner");
+        cache.get("k", loader);
+        assertEquals(1, cache.size());
+
+        cache.onTrackingChanged(false);
+        assertEquals(0, cache.size());
+        cache.get("k", loader);
+        assertEquals(2, loader.loads);
+    }
+
+    @Test
+    public void sizeIsBounded(){
+        LockNearCache cache = new LockNearCache(4);
+        cache.onTrackingChanged(true);
+        CountingLoader loader = new CountingLoader();
+        for (int i = 0; i < 10; i++){
+            cache.get("k" + i, loader);
+        }
+        assertTrue(cache.size() <= 4);
+    }
+
+    @Test
+    public void fullCacheEvictsOneEntryInsteadOfClearing(){
+        LockNearCache cache = new LockNearCache(4);
+        cache.onTrackingChanged(true);
+        CountingLoader loader = new CountingLoader();
+        for (int i = 0; i < 5; i++){
+            cache.get("k" + i, loader);
+        }
+        assertEquals(4, cache.size());
+        assertEquals(5, loader.loads);
+
+        //只淘汰一项，不会清空整个缓存；新加载的项已缓存
+        cache.get("k4", loader);
+        assertEquals(5, loader.loads);
+    }
+
+    private static class CountingLoader implements LockNearCache.Loader {
+        final Map<String, String> values = new HashMap<>();
+        int loads;
+
+        CountingLoader value(String key, String value){
+            values.put(key, value);
+            return this;
+        }
+
+        @Override
+        public String load(String key) {
+            loads++;
+            return values.get(key);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package org.apache.alock.processor.impl;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.apache.alock.jedis.LuaScript;
+import org.apache.alock.jedis.RedisClient;
+
+/**
+ * 测试用的RedisClient桩：记录evalsha调用，按顺序返回预设的应答，其余方法不支持
+ * @author wy
+ */
+class RecordingRedisClient implements InvocationHandler {
+
+    final List<Call> calls = new ArrayList<>();
+
+    private final LinkedList<Object> replies = new LinkedList<>();
+
+    private volatile RuntimeException failure;
+
+    /**
+     * 追加一次evalsha应答
+     */
+    RecordingRedisClient reply(Object reply){
+        replies.add(reply);
+        return this;
+    }
+
+    void setFailure(RuntimeException failure) {
+        this.failure = failure;
+    }
+
+    RedisClient proxy(){
+        return (RedisClient) Proxy.newProxyInstance(RedisClient.class.getClassLoader(),
+            new Class<?>[]{RedisClient.class}, this);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public synchronized Object invoke(Object proxy, Method method, Object[] args) {
+        if ("evalsha".equals(method.getName())){
+            calls.add(new Call((LuaScript) args[0], (List<byte[]>) args[1], (List<byte[]>) args[2]));
+            RuntimeException e = failure;
+            if (e != null){
+                throw e;
+            }
+            return replies.poll();
+        }
+        if ("supportsKeyspaceNotifications".equals(method.getName())){
+            return false;
+        }
+        throw new UnsupportedOperationException(method.getName());
+    }
+
+    static class Call{
+        final LuaScript script;
+        final List<byte[]> keys;
+        final List<byte[]> args;
+
+        Call(LuaScript script, List<byte[]> keys, List<byte[]> args){
+            this.script = script;
+            this.keys = keys;
+            this.args = args;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package org.apache.alock.processor.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.alock.domain.ALockConfig;
+import org.apache.alock.jedis.JedisClusterClient;
+import org.apache.alock.jedis.LuaScript;
+import org.junit.Test;
+
+/**
+ * RedisClusterLockProcessor按slot分组测试
+ * @author wy
+ */
+public class RedisClusterLockProcessorTest {
+
+    @Test
+    public void batchRenewalIsSplitPerSlot(){
+        List<ALockConfig> configs = Arrays.asList(config("cluster-a", null), config("cluster-b", null),
+            config("cluster-c", null), config("cluster-d", null));
+        int slots = RedisClusterLockProcessor.groupBySlot(configs).size();
+        assertTrue(slots > 1);
+
+        RecordingClusterClient client = new RecordingClusterClient();
+        Map<ALockConfig, Boolean> results = new RedisClusterLockProcessor(client).expandLockExpire(configs);
+
+        assertEquals(slots, client.batches.size());
+        assertEquals(configs.size(), results.size());
+        for (Boolean renewed : results.values()){
+            assertTrue(renewed);
+        }
+    }
+
+    @Test
+    public void sharedHashTagStaysInOneScript(){
+        List<ALockConfig> configs = Arrays.asList(config("cluster-a", "order"), config("cluster-b", "order"),
+            config("cluster-c", "order"));
+        assertEquals(1, RedisClusterLockProcessor.groupBySlot(configs).size());
+
+        RecordingClusterClient client = new RecordingClusterClient();
+        new RedisClusterLockProcessor(client).expandLockExpire(configs);
+
+        assertEquals(1, client.batches.size());
+        assertEquals(3, client.batches.get(0).intValue());
+    }
+
+    @Test
+    public void claimStopsOnceLimitIsReached(){
+        List<ALockConfig> configs = new ArrayList<>();
+        for (String target : Arrays.asList("cluster-a", "cluster-b", "cluster-c", "cluster-d")){
+            configs.add(config(target, null));
+        }
+        assertTrue(RedisClusterLockProcessor.groupBySlot(configs).size() > 1);
+
+        RecordingClusterClient client = new RecordingClusterClient();
+        client.reply = Collections.singletonList(1L);
+        List<ALockConfig> claimed = new RedisClusterLockProcessor(client).claimLocks(configs, 1);
+
+        assertEquals(1, claimed.size());
+        assertEquals(1, client.batches.size());
+    }
+
+    private static ALockConfig config(String target, String hashTag){
+        return ALockConfig.builder().lockTarget(target).hashTag(hashTag).leaseTime(30)
+            .leaseTimeUnit(TimeUnit.SECONDS).build();
+    }
+
+    /**
+     * 记录每次脚本调用的key数量，未指定应答时每个key都应答1（续租成功）
+     */
+    private static class RecordingClusterClient extends JedisClusterClient {
+        final List<Integer> batches = new ArrayList<>();
+        Object reply;
+
+        RecordingClusterClient(){
+            super(null);
+        }
+
+        @Override
+        public Object evalsha(LuaScript script, List<byte[]> keys, List<byte[]> args) {
+            batches.add(keys.size());
+            return reply != null ? reply : new ArrayList<>(Collections.nCopies(keys.size(), 1L));
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package org.apache.alock.processor.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.alock.domain.ALockConfig;
+import org.apache.alock.exception.OptimisticLockingException;
+import org.apache.alock.exception.RedisProcessException;
+import org.apache.alock.processor.ALockProcessor;
+import org.junit.Test;
+
+/**
+ * RedisLockProcessor与redis交互测试，RedisClient以RecordingRedisClient代替
+ * @author wy
+ */
+public class RedisLockProcessorTest {
+
+    @Test
+    public void grabUsesCachedScriptAndConfigBytes(){
+        RecordingRedisClient client = new RecordingRedisClient().reply(ALockProcessor.GRABBED).reply(ALockProcessor.GRABBED);
+        RedisLockProcessor processor = new RedisLockProcessor(client.proxy());
+        ALockConfig config = config("processor-bytes");
+
+        processor.tryGrabLock(config);
+        processor.tryGrabLock(config);
+
+        assertEquals(2, client.calls.size());
+        RecordingRedisClient.Call first = client.calls.get(0);
+        RecordingRedisClient.Call second = client.calls.get(1);
+        assertSame(first.script, second.script);
+        assertSame(config.getLockUniqueKeyBytes(), first.keys.get(0));
+        assertSame(config.getLockValueBytes(), first.args.get(0));
+        assertSame(config.getMillisLeaseBytes(), first.args.get(1));
+        assertEquals("30000", new String(first.args.get(1)));
+    }
+
+    @Test
+    public void contentionIsReportedByResultNotException(){
+        RecordingRedisClient client = new RecordingRedisClient().reply(1200L).reply(null).reply(null);
+        RedisLockProcessor processor = new RedisLockProcessor(client.proxy());
+        ALockConfig config = config("processor-codes");
+
+        assertEquals(1200L, processor.tryGrabLock(config));
+        assertFalse(processor.tryExpandLockExpire(config));
+        assertFalse(processor.tryReleaseLock(config));
+    }
+
+    @Test
+    public void throwingVariantsTranslateResults(){
+        RecordingRedisClient client = new RecordingRedisClient().reply(ALockProcessor.GRABBED).reply(500L).reply(null);
+        RedisLockProcessor processor = new RedisLockProcessor(client.proxy());
+        ALockConfig config = config("processor-throwing");
+
+        processor.grabLock(config);
+        try{
+            processor.grabLock(config);
+            fail("expected OptimisticLockingException");
+        }catch (OptimisticLockingException e){
+            //expected
+        }
+        try{
+            processor.releaseLock(config);
+            fail("expected OptimisticLockingException");
+        }catch (OptimisticLockingException e){
+            //expected
+        }
+    }
+
+    @Test
+    public void redisFailureIsWrapped(){
+        RecordingRedisClient client = new RecordingRedisClient();
+        client.setFailure(new IllegalStateException("connection reset"));
+        RedisLockProcessor processor = new RedisLockProcessor(client.proxy());
+        try{
+            processor.tryGrabLock(config("processor-failure"));
+            fail("expected RedisProcessException");
+        }catch (RedisProcessException e){
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    static ALockConfig config(String target){
+        return new ALockConfig(target, 30, TimeUnit.SECONDS);
+    }
+}
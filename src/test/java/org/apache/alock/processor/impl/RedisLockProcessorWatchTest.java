@@ -0,0 +1,118 @@
+package org.apache.alock.processor.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.alock.domain.ALockConfig;
+import org.apache.alock.jedis.JedisMessageListener;
+import org.apache.alock.jedis.RedisClient;
+import org.apache.alock.processor.ALockWatchListener;
+import org.junit.Test;
+
+/**
+ * RedisLockProcessor keyspace监听测试，RedisClient以动态代理桩代替
+ * @author wy
+ */
+public class RedisLockProcessorWatchTest {
+
+    @Test
+    public void unsupportedClientIsNeverSubscribed(){
+        StubClient stub = new StubClient(false, 0);
+        RedisLockProcessor processor = new RedisLockProcessor(stub.proxy());
+
+        assertFalse(processor.watchLock(config("watch-unsupported"), new RecordingListener()));
+        assertFalse(processor.watchLock(config("watch-unsupported"), new RecordingListener()));
+        assertEquals(0, stub.subscribeCalls.get());
+    }
+
+    @Test
+    public void transientSubscribeFailureIsRetried(){
+        StubClient stub = new StubClient(true, 1);
+        RedisLockProcessor processor = new RedisLockProcessor(stub.proxy());
+
+        assertFalse(processor.watchLock(config("watch-retry"), new RecordingListener()));
+        assertTrue(processor.watchLock(config("watch-retry"), new RecordingListener()));
+        assertTrue(processor.watchLock(config("watch-retry"), new RecordingListener()));
+        assertEquals(2, stub.subscribeCalls.get());
+    }
+
+    @Test
+    public void keyspaceEventsReachWatchers(){
+        StubClient stub = new StubClient(true, 0);
+        RedisLockProcessor processor = new RedisLockProcessor(stub.proxy());
+        ALockConfig config = config("watch-dispatch");
+        RecordingListener listener = new RecordingListener();
+        assertTrue(processor.watchLock(config, listener));
+
+        String channel = "__keyspace@0__:" + config.getLockUniqueKey();
+        stub.listener.onMessage(channel, "pexpire");
+        stub.listener.onMessage(channel, "del");
+        assertEquals(1, listener.events.size());
+        assertEquals(config.getLockUniqueKey() + ":del", listener.events.get(0));
+
+        processor.unwatchLock(config, listener);
+        stub.listener.onMessage(channel, "expired");
+        assertEquals(1, listener.events.size());
+    }
+
+    private static ALockConfig config(String target){
+        return new ALockConfig(target, 30, TimeUnit.SECONDS);
+    }
+
+    private static class RecordingListener implements ALockWatchListener {
+        final List<String> events = new ArrayList<>();
+
+        @Override
+        public void onLockChanged(String lockKey, String event) {
+            events.add(lockKey + ":" + event);
+        }
+    }
+
+    /**
+     * 只实现keyspace相关方法的RedisClient桩，前failures次订阅抛出异常
+     */
+    private static class StubClient implements InvocationHandler {
+        final boolean supported;
+        final AtomicInteger failures;
+        final AtomicInteger subscribeCalls = new AtomicInteger(0);
+        volatile JedisMessageListener listener;
+
+        StubClient(boolean supported, int failures){
+            this.supported = supported;
+            this.failures = new AtomicInteger(failures);
+        }
+
+        RedisClient proxy(){
+            return (RedisClient) Proxy.newProxyInstance(RedisClient.class.getClassLoader(),
+                new Class<?>[]{RedisClient.class}, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            if ("supportsKeyspaceNotifications".equals(method.getName())){
+                return supported;
+            }
+            if ("subscribeKeyspace".equals(method.getName())){
+                subscribeCalls.incrementAndGet();
+                if (failures.getAndDecrement() > 0){
+                    throw new IllegalStateException("connection refused");
+                }
+                listener = (JedisMessageListener) args[1];
+                return null;
+            }
+            if ("unsubscribeKeyspace".equals(method.getName())){
+                return null;
+            }
+            throw new UnsupportedOperationException(method.getName());
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package org.apache.alock.processor.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.alock.InMemoryLockProcessor;
+import org.apache.alock.domain.ALockConfig;
+import org.apache.alock.exception.ALockProcessException;
+import org.apache.alock.processor.ALockProcessor;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * RedlockProcessor测试，节点为内存实现
+ * @author wy
+ */
+public class RedlockProcessorTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @After
+    public void shutdown(){
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void grabsAndReleasesOnMajority(){
+        InMemoryLockProcessor[] nodes = nodes(3);
+        RedlockProcessor redlock = redlock(1000, nodes);
+        ALockConfig config = config("redlock-basic");
+        nodes[2].put(config.getLockUniqueKey(), "other", 10000);
+
+        assertEquals(ALockProcessor.GRABBED, redlock.tryGrabLock(config));
+        assertEquals(config.getLockValue(), redlock.lockValue(config.getLockUniqueKey()));
+        assertTrue(redlock.tryExpandLockExpire(config));
+        assertTrue(redlock.tryReleaseLock(config));
+        assertNull(nodes[0].lockValue(config.getLockUniqueKey()));
+        assertNull(nodes[1].lockValue(config.getLockUniqueKey()));
+    }
+
+    @Test
+    public void contentionWithSlowNodesIsNotAnError() throws Exception {
+        InMemoryLockProcessor[] nodes = {new InMemoryLockProcessor(), new InMemoryLockProcessor(),
+            new SlowNode(300), new SlowNode(300)};
+        RedlockProcessor redlock = redlock(1000, nodes);
+        ALockConfig config = config("redlock-contended");
+        nodes[0].put(config.getLockUniqueKey(), "other", 10000);
+        nodes[1].put(config.getLockUniqueKey(), "other", 10000);
+
+        long ttl = redlock.tryGrabLock(config);
+        assertTrue(ttl > 0);
+
+        //慢节点上本次写入的锁在其返回后回滚
+        Thread.sleep(600);
+        assertNull(nodes[2].lockValue(config.getLockUniqueKey()));
+        assertNull(nodes[3].lockValue(config.getLockUniqueKey()));
+    }
+
+    @Test
+    public void lateRollbackKeepsNewerHold() throws Exception {
+        InMemoryLockProcessor[] nodes = {new SlowNode(300), new InMemoryLockProcessor(), new InMemoryLockProcessor()};
+        RedlockProcessor redlock = redlock(50, nodes);
+        ALockConfig config = config("redlock-late-rollback");
+        nodes[2].put(config.getLockUniqueKey(), "other", 10000);
+
+        //慢节点已写入但未在预算内返回，多数未达成
+        assertTrue(redlock.tryGrabLock(config) != ALockProcessor.GRABBED);
+        assertNull(nodes[1].lockValue(config.getLockUniqueKey()));
+
+        nodes[2].remove(config.getLockUniqueKey());
+        assertEquals(ALockProcessor.GRABBED, redlock.tryGrabLock(config));
+
+        //上一次尝试在慢节点上的回滚不能删除本次在其他节点上的持有
+        Thread.sleep(800);
+        assertEquals(config.getLockValue(), nodes[1].lockValue(config.getLockUniqueKey()));
+        assertEquals(config.getLockValue(), nodes[2].lockValue(config.getLockUniqueKey()));
+        assertEquals(config.getLockValue(), redlock.lockValue(config.getLockUniqueKey()));
+    }
+
+    @Test
+    public void majorityErrorsThrowAndRollBackBeforeReturning(){
+        InMemoryLockProcessor[] nodes = nodes(3);
+        RedlockProcessor redlock = redlock(1000, nodes);
+        ALockConfig config = config("redlock-errors");
+        nodes[1].setFailure(InMemoryLockProcessor.outage());
+        nodes[2].setFailure(InMemoryLockProcessor.outage());
+
+        try{
+            redlock.tryGrabLock(config);
+            fail("expected ALockProcessException");
+        }catch (ALockProcessException e){
+            //expected
+        }
+        assertNull(nodes[0].lockValue(config.getLockUniqueKey()));
+    }
+
+    @Test
+    public void claimRollsBackMinorityClaimsOnly(){
+        InMemoryLockProcessor[] nodes = nodes(3);
+        RedlockProcessor redlock = redlock(1000, nodes);
+        ALockConfig a = config("redlock-claim-a");
+        ALockConfig b = config("redlock-claim-b");
+        nodes[1].put(b.getLockUniqueKey(), "other", 10000);
+        nodes[2].put(b.getLockUniqueKey(), "other", 10000);
+
+        List<ALockConfig> claimed = redlock.claimLocks(Arrays.asList(a, b), 2);
+        assertEquals(Collections.singletonList(a), claimed);
+        assertNull(nodes[0].lockValue(b.getLockUniqueKey()));
+        for (InMemoryLockProcessor node : nodes){
+            assertEquals(a.getLockValue(), node.lockValue(a.getLockUniqueKey()));
+        }
+    }
+
+    @Test
+    public void nonPositiveLatencyBudgetIsRejected(){
+        try {
+            new RedlockProcessor(Arrays.<ALockProcessor>asList(nodes(3)), 0);
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e){
+            //expected
+        }
+    }
+
+    private RedlockProcessor redlock(long budgetMillis, InMemoryLockProcessor... nodes){
+        return new RedlockProcessor(Arrays.<ALockProcessor>asList(nodes), budgetMillis, executor);
+    }
+
+    private static InMemoryLockProcessor[] nodes(int n){
+        InMemoryLockProcessor[] nodes = new InMemoryLockProcessor[n];
+        for (int i = 0; i < n; i++){
+            nodes[i] = new InMemoryLockProcessor();
+        }
+        return nodes;
+    }
+
+    private static ALockConfig config(String target){
+        return new ALockConfig(target, 30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 抢占立即生效、应答延迟返回的节点
+     */
+    private static class SlowNode extends InMemoryLockProcessor {
+        private final long replyDelayMillis;
+
+        SlowNode(long replyDelayMillis){
+            this.replyDelayMillis = replyDelayMillis;
+        }
+
+        @Override
+        public long tryGrabLock(ALockConfig config) {
+            long r = super.tryGrabLock(config);
+            try{
+                Thread.sleep(replyDelayMillis);
+            }catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+            }
+            return r;
+        }
+    }
+}
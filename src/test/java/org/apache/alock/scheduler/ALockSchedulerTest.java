@@ -0,0 +1,145 @@
+package org.apache.alock.scheduler;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+/**
+ * ALockScheduler时间轮调度测试
+ * @author wy
+ */
+public class ALockSchedulerTest {
+
+    /**
+     * 4个10ms的槽位，一圈40ms，便于覆盖跨圈任务
+     */
+    private static final ALockScheduler SCHEDULER = new ALockScheduler(10, 4, 1);
+
+    @Test
+    public void scheduledTaskRunsOnWorkerNoEarlierThanDelay() throws Exception {
+        final CountDownLatch ran = new CountDownLatch(1);
+        final AtomicReference<String> thread = new AtomicReference<>();
+        long start = System.nanoTime();
+        ALockTimeout timeout = SCHEDULER.schedule(new Runnable() {
+            @Override
+            public void run() {
+                thread.set(Thread.currentThread().getName());
+                ran.countDown();
+            }
+        }, 100);
+
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 100);
+        assertTrue(thread.get(), thread.get().startsWith("ALockSchedulerWorker"));
+        assertTrue(timeout.isExpired());
+        assertFalse(timeout.cancel());
+    }
+
+    @Test
+    public void cancelledTaskNeverRuns() throws Exception {
+        final AtomicBoolean ran = new AtomicBoolean(false);
+        ALockTimeout timeout = SCHEDULER.schedule(new Runnable() {
+            @Override
+            public void run() {
+                ran.set(true);
+            }
+        }, 50);
+
+        assertTrue(timeout.cancel());
+        assertTrue(timeout.isCancelled());
+        Thread.sleep(200);
+        assertFalse(ran.get());
+    }
+
+    @Test
+    public void executeRunsImmediatelyOnWorker() throws Exception {
+        final CountDownLatch ran = new CountDownLatch(1);
+        SCHEDULER.execute(new Runnable() {
+            @Override
+            public void run() {
+                ran.countDown();
+            }
+        });
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void blockingIoTaskDoesNotHoldTheWorker() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicReference<String> thread = new AtomicReference<>();
+        SCHEDULER.scheduleIo(new Runnable() {
+            @Override
+            public void run() {
+                thread.set(Thread.currentThread().getName());
+                try{
+                    release.await(5, TimeUnit.SECONDS);
+                }catch (InterruptedException e){
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }, 10);
+        //唯一的工作线程不被阻塞的IO任务占用
+        final CountDownLatch ran = new CountDownLatch(1);
+        SCHEDULER.schedule(new Runnable() {
+            @Override
+            public void run() {
+                ran.countDown();
+            }
+        }, 30);
+        try{
+            assertTrue(ran.await(2, TimeUnit.SECONDS));
+            assertTrue(thread.get(), thread.get().startsWith("ALockSchedulerIo"));
+        }finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void shutdownDropsPendingTasksAndRejectsNewOnes() throws Exception {
+        ALockScheduler scheduler = new ALockScheduler(10, 4, 1);
+        final AtomicBoolean ran = new AtomicBoolean(false);
+        scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                ran.set(true);
+            }
+        }, 50);
+
+        scheduler.shutdown();
+        assertTrue(scheduler.isShutdown());
+        Thread.sleep(200);
+        assertFalse(ran.get());
+        try{
+            scheduler.executeIo(new Runnable() {
+                @Override
+                public void run() {
+                }
+            });
+            fail("expected RejectedExecutionException");
+        }catch (RejectedExecutionException e){
+            //expected
+        }
+    }
+
+    @Test
+    public void lagIsTracked() throws Exception {
+        final CountDownLatch ran = new CountDownLatch(1);
+        SCHEDULER.schedule(new Runnable() {
+            @Override
+            public void run() {
+                ran.countDown();
+            }
+        }, 20);
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        assertTrue(SCHEDULER.getMaxLagMillis() >= SCHEDULER.getLastLagMillis());
+        assertTrue(SCHEDULER.getLastLagMillis() >= 0);
+    }
+}
@@ -0,0 +1,38 @@
+package org.apache.alock.scheduler;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * ALockThreads测试，两个版本（平台线程与虚拟线程）行为一致
+ * @author wy
+ */
+public class ALockThreadsTest {
+
+    @Test
+    public void executorsRunNamedDaemonTasks() throws Exception {
+        ExecutorService[] executors = {ALockThreads.newFixedExecutor("ALockThreadsTestFixed", 2),
+            ALockThreads.newCachedExecutor("ALockThreadsTestCached")};
+        String[] prefixes = {"ALockThreadsTestFixed", "ALockThreadsTestCached"};
+        for (int i = 0; i < executors.length; i++){
+            try{
+                Thread t = executors[i].submit(Thread::currentThread).get(5, TimeUnit.SECONDS);
+                assertTrue(t.isDaemon());
+                assertTrue(t.getName(), t.getName().startsWith(prefixes[i]));
+            }finally {
+                executors[i].shutdownNow();
+            }
+        }
+    }
+
+    @Test
+    public void daemonThreadFactoryCreatesPlatformDaemons(){
+        Thread t = ALockThreads.daemonThreadFactory("ALockThreadsTestTicker").newThread(() -> { });
+        assertTrue(t.isDaemon());
+        assertTrue(t.getName().startsWith("ALockThreadsTestTicker"));
+    }
+}
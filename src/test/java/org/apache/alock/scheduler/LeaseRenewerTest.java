@@ -0,0 +1,124 @@
+package org.apache.alock.scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.alock.InMemoryLockProcessor;
+import org.apache.alock.domain.ALockConfig;
+import org.apache.alock.exception.ALockProcessException;
+import org.junit.Test;
+
+/**
+ * LeaseRenewer测试
+ * @author wy
+ */
+public class LeaseRenewerTest {
+
+    @Test
+    public void renewsHeldLocksAndReportsLostOnes() throws Exception {
+        InMemoryLockProcessor processor = new InMemoryLockProcessor();
+        ALockConfig held = new ALockConfig("renew-held", 1, TimeUnit.SECONDS);
+        ALockConfig lost = new ALockConfig("renew-lost", 1, TimeUnit.SECONDS);
+        processor.grabLock(held);
+        processor.grabLock(lost);
+        processor.put(lost.getLockUniqueKey(), "other", 1000);
+
+        RecordingListener heldListener = new RecordingListener();
+        RecordingListener lostListener = new RecordingListener();
+        LeaseRenewer renewer = LeaseRenewer.of(processor);
+        assertSame(renewer, LeaseRenewer.of(processor));
+        renewer.renew(held, heldListener);
+        renewer.renew(Arrays.asList(held, lost), lostListener);
+
+        assertTrue(heldListener.done.await(5, TimeUnit.SECONDS));
+        assertTrue(lostListener.done.await(5, TimeUnit.SECONDS));
+        assertEquals(1, heldListener.renewed.get());
+        assertEquals(1, lostListener.lost.get());
+    }
+
+    @Test
+    public void reportsFailureWhenStoreUnavailable() throws Exception {
+        InMemoryLockProcessor processor = new InMemoryLockProcessor();
+        processor.setFailure(InMemoryLockProcessor.outage());
+        RecordingListener listener = new RecordingListener();
+        LeaseRenewer.of(processor).renew(new ALockConfig("renew-failed", 1, TimeUnit.SECONDS), listener);
+
+        assertTrue(listener.done.await(5, TimeUnit.SECONDS));
+        assertEquals(1, listener.failed.get());
+    }
+
+    @Test
+    public void throwingFailureListenerDoesNotSkipOthers() throws Exception {
+        InMemoryLockProcessor processor = new InMemoryLockProcessor();
+        processor.setFailure(InMemoryLockProcessor.outage());
+        RecordingListener throwing = new RecordingListener() {
+            @Override
+            public void failed(ALockProcessException e) {
+                super.failed(e);
+                throw new IllegalStateException("listener bug");
+            }
+        };
+        RecordingListener listener = new RecordingListener();
+        LeaseRenewer renewer = LeaseRenewer.of(processor);
+        //两次登记落在同一批次，前一个监听抛出异常不影响后一个
+        renewer.renew(new ALockConfig("renew-throwing", 1, TimeUnit.SECONDS), throwing);
+        renewer.renew(new ALockConfig("renew-after-throwing", 1, TimeUnit.SECONDS), listener);
+
+        assertTrue(throwing.done.await(5, TimeUnit.SECONDS));
+        assertTrue(listener.done.await(5, TimeUnit.SECONDS));
+        assertEquals(1, listener.failed.get());
+    }
+
+    @Test
+    public void discardedProcessorIsCollectable() throws Exception {
+        WeakReference<InMemoryLockProcessor> ref = renewOnDiscardedProcessor();
+        for (int i = 0; i < 50 && ref.get() != null; i++){
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertNull(ref.get());
+    }
+
+    private WeakReference<InMemoryLockProcessor> renewOnDiscardedProcessor() throws Exception {
+        InMemoryLockProcessor processor = new InMemoryLockProcessor();
+        ALockConfig config = new ALockConfig("renew-discarded", 1, TimeUnit.SECONDS);
+        processor.grabLock(config);
+        RecordingListener listener = new RecordingListener();
+        LeaseRenewer.of(processor).renew(config, listener);
+        assertTrue(listener.done.await(5, TimeUnit.SECONDS));
+        return new WeakReference<>(processor);
+    }
+
+    private static class RecordingListener implements LeaseRenewalListener {
+        final CountDownLatch done = new CountDownLatch(1);
+        final AtomicInteger renewed = new AtomicInteger();
+        final AtomicInteger lost = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+
+        @Override
+        public void renewed() {
+            renewed.incrementAndGet();
+            done.countDown();
+        }
+
+        @Override
+        public void lost() {
+            lost.incrementAndGet();
+            done.countDown();
+        }
+
+        @Override
+        public void failed(ALockProcessException e) {
+            failed.incrementAndGet();
+            done.countDown();
+        }
+    }
+}